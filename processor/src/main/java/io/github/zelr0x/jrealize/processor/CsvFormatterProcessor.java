@@ -0,0 +1,456 @@
+package io.github.zelr0x.jrealize.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a typed CSV Formatter for each class with fields marked
+ * with @Csv annotation. Generated formatters read fields directly, as
+ * the runtime plans do, so no reflection is used to serialize such classes.
+ * Private fields, which the generated class cannot name, are read through
+ * VarHandles resolved once when the generated class is initialized, rather
+ * than through bean getters, which may compute a value other than the one
+ * in the field.
+ * A class is skipped (and serialized with reflection at runtime) if any of
+ * its @Csv fields is of a type with @Csv fields and no getter
+ * marked with @CsvGetter, which is flattened at runtime, or is marked
+ * with @CsvFormat, which formats are resolved at runtime. A class
+ * is skipped as well if @CsvGetter methods of the types of its fields
+ * return each other, or chain longer than the runtime follows them,
+ * so reflection reports the cycle at runtime instead of the compiler
+ * recursing forever.
+ * Doubles, boxed numbers and dates are written by CsvValues as the runtime
+ * plans write them, and null values are written as empty fields.
+ * Values are quoted by CsvStrings as the runtime plans quote them, and
+ * numbers and booleans are only scanned for characters to quote if
+ * the delimiter starts with a character they can contain.
+ */
+@SupportedAnnotationTypes(CsvFormatterProcessor.CSV)
+public final class CsvFormatterProcessor extends AbstractProcessor {
+    static final String CSV = "io.github.zelr0x.jrealize.Annotation.Csv";
+    /**
+     * Must match the suffix the runtime looks for in CsvFormatter.
+     */
+    static final String SUFFIX = "_CsvFormatter";
+
+    private static final String CSV_GETTER =
+            "io.github.zelr0x.jrealize.Annotation.CsvGetter";
+    private static final String CSV_FORMAT =
+            "io.github.zelr0x.jrealize.Annotation.CsvFormat";
+    private static final String CSV_VALUES =
+            "io.github.zelr0x.jrealize.CsvValues";
+    private static final String COL = "col";
+    /**
+     * Final types which CsvValues writes without calling toString().
+     */
+    private static final Set<String> FORMATTED = Set.of(
+            "java.lang.Double", "java.lang.Float", "java.lang.Long",
+            "java.lang.Integer", "java.lang.Short", "java.lang.Byte",
+            "java.time.LocalDate", "java.time.LocalDateTime",
+            "java.time.LocalTime");
+    private static final String INDENT = "    ";
+    /**
+     * Must match the number of getters the runtime follows in Util.
+     */
+    private static final int MAX_GETTER_CHAIN = 64;
+    private static final String HANDLE = "FIELD_";
+    private static final String QUOTE_TAIL =
+            "io.github.zelr0x.jrealize.CsvStrings.quoteTail"
+                    + "(sb, start, delimiter);\n";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations,
+                           final RoundEnvironment roundEnv) {
+        final Map<TypeElement, List<VariableElement>> classes =
+                new LinkedHashMap<>();
+        for (final var annotation : annotations) {
+            for (final var e : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (e.getKind() != ElementKind.FIELD) continue;
+                classes.computeIfAbsent(
+                        (TypeElement) e.getEnclosingElement(),
+                        k -> new ArrayList<>())
+                        .add((VariableElement) e);
+            }
+        }
+        classes.forEach(this::generate);
+        return false;
+    }
+
+    /**
+     * Generates the formatter of a specified class if all of its fields
+     * can be written without the runtime plans.
+     * @param type a class to generate formatter for
+     * @param fields fields of the type marked with @Csv annotation
+     */
+    private void generate(final TypeElement type,
+                          final List<VariableElement> fields) {
+        if (!isAccessible(type)) {
+            note(type, "class is not accessible from its package");
+            return;
+        }
+        fields.sort(Comparator.comparingInt(this::col));
+        final var reads = new ArrayList<String>(fields.size());
+        final var numeric = new ArrayList<Boolean>(fields.size());
+        final var handles = new ArrayList<VariableElement>();
+        for (final var field : fields) {
+            if (isNested(field.asType())) {
+                note(field, "nested @Csv type is flattened");
+                return;
+            }
+            if (field.getAnnotationMirrors().stream()
+                    .anyMatch(a -> name(a).equals(CSV_FORMAT))) {
+                note(field, "field has @CsvFormat");
+                return;
+            }
+            final String access;
+            if (field.getModifiers().contains(Modifier.PRIVATE)) {
+                access = "((" + erasure(field) + ") " + HANDLE
+                        + handles.size() + ".get(obj))";
+                handles.add(field);
+            } else {
+                access = "obj." + field.getSimpleName();
+            }
+            final var read = appendStatements(access, field.asType(),
+                    "v" + reads.size(), INDENT + INDENT, new ArrayList<>());
+            if (read == null) {
+                note(field, "@CsvGetter methods of its type form a cycle");
+                return;
+            }
+            reads.add(read);
+            numeric.add(field.asType().getKind().isPrimitive()
+                    && field.asType().getKind() != TypeKind.CHAR);
+        }
+        try {
+            write(type, reads, numeric, handles);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Cannot write CSV formatter: " + e.getMessage(), type);
+        }
+    }
+
+    /**
+     * Writes the source file of the formatter.
+     * @param type a class to generate formatter for
+     * @param appends statements appending each field to a StringBuilder sb,
+     *                indented and terminated
+     * @param numeric whether each field is written as a number or boolean
+     * @param handles private fields read through VarHandles, in the order
+     *                of the numbers of their handles
+     * @throws IOException if the source file cannot be written
+     */
+    private void write(final TypeElement type, final List<String> appends,
+                       final List<Boolean> numeric,
+                       final List<VariableElement> handles)
+            throws IOException {
+        final var elements = processingEnv.getElementUtils();
+        final var pkg = elements.getPackageOf(type).getQualifiedName()
+                .toString();
+        final var binaryName = elements.getBinaryName(type).toString();
+        final var simpleName = (pkg.isEmpty()
+                ? binaryName
+                : binaryName.substring(pkg.length() + 1)) + SUFFIX;
+        final var typeName = type.getQualifiedName().toString();
+
+        final var file = processingEnv.getFiler().createSourceFile(
+                pkg.isEmpty() ? simpleName : pkg + "." + simpleName, type);
+        try (Writer w = file.openWriter()) {
+            if (!pkg.isEmpty()) {
+                w.write("package " + pkg + ";\n\n");
+            }
+            w.write("@javax.annotation.processing.Generated(\""
+                    + getClass().getName() + "\")\n");
+            w.write("public final class " + simpleName
+                    + " implements io.github.zelr0x.jrealize.Formatter {\n");
+            writeHandles(w, typeName, handles);
+            w.write("    private final String delimiter;\n");
+            w.write("    private final boolean quotesNumbers;\n\n");
+            w.write("    public " + simpleName
+                    + "(final String delimiter) {\n");
+            w.write("        this.delimiter = delimiter;\n");
+            w.write("        this.quotesNumbers = io.github.zelr0x.jrealize"
+                    + ".CsvStrings.quotesNumbers(delimiter);\n");
+            w.write("    }\n\n");
+            w.write("    @Override\n");
+            w.write("    public String format(final Object o) {\n");
+            w.write("        final StringBuilder sb = new StringBuilder();\n");
+            w.write("        format(o, sb);\n");
+            w.write("        return sb.toString();\n");
+            w.write("    }\n\n");
+            w.write("    @Override\n");
+            w.write("    public void format(final Object o, "
+                    + "final StringBuilder sb) {\n");
+            w.write("        final " + typeName + " obj = (" + typeName
+                    + ") o;\n");
+            w.write("        int start;\n");
+            for (int i = 0; i < appends.size(); i++) {
+                if (i > 0) {
+                    w.write("        sb.append(delimiter);\n");
+                }
+                w.write("        start = sb.length();\n");
+                w.write(appends.get(i));
+                if (numeric.get(i)) {
+                    w.write("        if (quotesNumbers) {\n");
+                    w.write("            " + QUOTE_TAIL);
+                    w.write("        }\n");
+                } else {
+                    w.write("        " + QUOTE_TAIL);
+                }
+            }
+            w.write("        sb.append(System.lineSeparator());\n");
+            w.write("    }\n");
+            w.write("}\n");
+        }
+    }
+
+    /**
+     * Writes VarHandles of private fields, looked up once when
+     * the generated class is initialized.
+     * @param w a writer of the source file
+     * @param typeName qualified name of the class of the fields
+     * @param handles the private fields
+     * @throws IOException if the source file cannot be written
+     */
+    private void writeHandles(final Writer w, final String typeName,
+                              final List<VariableElement> handles)
+            throws IOException {
+        if (handles.isEmpty()) return;
+        for (int i = 0; i < handles.size(); i++) {
+            w.write("    private static final java.lang.invoke.VarHandle "
+                    + HANDLE + i + ";\n");
+        }
+        w.write("\n    static {\n");
+        w.write("        try {\n");
+        w.write("            final java.lang.invoke.MethodHandles.Lookup"
+                + " lookup = java.lang.invoke.MethodHandles.privateLookupIn("
+                + typeName + ".class, java.lang.invoke.MethodHandles"
+                + ".lookup());\n");
+        for (int i = 0; i < handles.size(); i++) {
+            final var field = handles.get(i);
+            w.write("            " + HANDLE + i + " = lookup.findVarHandle("
+                    + typeName + ".class, \"" + field.getSimpleName()
+                    + "\", " + erasure(field) + ".class);\n");
+        }
+        w.write("        } catch (ReflectiveOperationException e) {\n");
+        w.write("            throw new ExceptionInInitializerError(e);\n");
+        w.write("        }\n");
+        w.write("    }\n\n");
+    }
+
+    /**
+     * Returns the source name of the erased type of a specified field.
+     * @param field a field
+     * @return the name of the raw type of the field
+     */
+    private String erasure(final VariableElement field) {
+        return processingEnv.getTypeUtils().erasure(field.asType())
+                .toString();
+    }
+
+    /**
+     * Builds statements appending a value to a StringBuilder sb
+     * in the same form as the runtime serialization does: doubles, boxed
+     * numbers and dates through CsvValues, other primitives and Strings
+     * as is, values of other final types through their @CsvGetter
+     * or toString(), other values through the runtime getter lookup.
+     * Null values, including ones returned by getters, append nothing.
+     * @param read an expression producing the value
+     * @param valueType the static type of the value
+     * @param local name of a local variable to hold a reference value
+     * @param indent indentation of the statements
+     * @param chain types which getters produced the value
+     * @return the statements, each on a line of its own, or null
+     *         if getters of the value form a cycle
+     */
+    private String appendStatements(final String read,
+                                    final TypeMirror valueType,
+                                    final String local, final String indent,
+                                    final List<TypeElement> chain) {
+        if (valueType.getKind() == TypeKind.DOUBLE) {
+            return indent + CSV_VALUES + ".appendDouble(sb, " + read + ");\n";
+        }
+        if (valueType.getKind().isPrimitive()) {
+            return indent + "sb.append(" + read + ");\n";
+        }
+        final var append = appendValue(local, valueType, indent + INDENT,
+                chain);
+        if (append == null) return null;
+        return indent + "final var " + local + " = " + read + ";\n"
+                + indent + "if (" + local + " != null) {\n"
+                + append
+                + indent + "}\n";
+    }
+
+    /**
+     * Builds statements appending a value which is not null.
+     * @param local a local variable holding the value
+     * @param valueType the static type of the value
+     * @param indent indentation of the statements
+     * @param chain types which getters produced the value
+     * @return the statements, each on a line of its own, or null
+     *         if getters of the value form a cycle
+     */
+    private String appendValue(final String local, final TypeMirror valueType,
+                               final String indent,
+                               final List<TypeElement> chain) {
+        if (isString(valueType)) {
+            return indent + "sb.append(" + local + ");\n";
+        }
+        if (valueType.getKind() == TypeKind.DECLARED) {
+            final var element = (TypeElement) ((DeclaredType) valueType)
+                    .asElement();
+            final var getter = findGetter(element);
+            if (element.getModifiers().contains(Modifier.FINAL)
+                    && (getter == null || !getter.getModifiers()
+                            .contains(Modifier.PRIVATE))) {
+                if (getter != null) {
+                    if (chain.contains(element)
+                            || chain.size() == MAX_GETTER_CHAIN) {
+                        return null;
+                    }
+                    chain.add(element);
+                    final var res = appendStatements(local + "."
+                            + getter.getSimpleName() + "()",
+                            getter.getReturnType(), local + "_", indent,
+                            chain);
+                    chain.remove(chain.size() - 1);
+                    return res;
+                }
+                if (FORMATTED.contains(
+                        element.getQualifiedName().toString())) {
+                    return indent + CSV_VALUES + ".appendValue(sb, " + local
+                            + ");\n";
+                }
+                return indent + "sb.append(" + local + ".toString());\n";
+            }
+        }
+        return indent + "sb.append(io.github.zelr0x.jrealize.Annotation.Util"
+                + ".valueToString(" + local + ", " + CSV_GETTER
+                + ".class));\n";
+    }
+
+    /**
+     * Checks if values of a specified type are flattened at runtime.
+     * @param valueType the static type of a @Csv field
+     * @return true if the type has @Csv fields and no @CsvGetter
+     */
+    private boolean isNested(final TypeMirror valueType) {
+        if (valueType.getKind() != TypeKind.DECLARED) return false;
+        final var element = ((DeclaredType) valueType).asElement();
+        final var hasColumns = ElementFilter.fieldsIn(
+                element.getEnclosedElements()).stream()
+                .anyMatch(f -> f.getAnnotationMirrors().stream()
+                        .anyMatch(a -> name(a).equals(CSV)));
+        return hasColumns && ElementFilter.methodsIn(
+                element.getEnclosedElements()).stream()
+                .noneMatch(m -> m.getAnnotationMirrors().stream()
+                        .anyMatch(a -> name(a).equals(CSV_GETTER)));
+    }
+
+    /**
+     * Finds a method marked with @CsvGetter in a specified class.
+     * @param type a class in which to look for the getter
+     * @return the getter or null if there is no such method
+     */
+    private ExecutableElement findGetter(final TypeElement type) {
+        for (final var m : ElementFilter.methodsIn(
+                type.getEnclosedElements())) {
+            final var isGetter = m.getAnnotationMirrors().stream()
+                    .anyMatch(a -> name(a).equals(CSV_GETTER));
+            if (isGetter && m.getParameters().isEmpty()) {
+                return m;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves CSV column number of a specified field.
+     * @param field a field marked with @Csv annotation
+     * @return the column number
+     */
+    private int col(final VariableElement field) {
+        for (final var a : field.getAnnotationMirrors()) {
+            if (!name(a).equals(CSV)) continue;
+            for (final Map.Entry<? extends ExecutableElement,
+                    ? extends AnnotationValue> e
+                    : a.getElementValues().entrySet()) {
+                if (e.getKey().getSimpleName().contentEquals(COL)) {
+                    return (Integer) e.getValue().getValue();
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Checks if a specified class can be referenced from its package.
+     * @param type a class to check
+     * @return true if the class is top level or static nested and not private
+     */
+    private static boolean isAccessible(final TypeElement type) {
+        if (type.getModifiers().contains(Modifier.PRIVATE)) return false;
+        if (type.getNestingKind() == NestingKind.TOP_LEVEL) return true;
+        return type.getNestingKind() == NestingKind.MEMBER
+                && type.getModifiers().contains(Modifier.STATIC)
+                && isAccessible((TypeElement) type.getEnclosingElement());
+    }
+
+    /**
+     * Checks if a specified type is java.lang.String.
+     * @param type a type to check
+     * @return true if the type is String
+     */
+    private static boolean isString(final TypeMirror type) {
+        return type.toString().equals(String.class.getName());
+    }
+
+    /**
+     * Returns the qualified name of the type of a specified annotation.
+     * @param annotation an annotation which name to get
+     * @return the qualified name of the annotation type
+     */
+    private static String name(final AnnotationMirror annotation) {
+        return ((TypeElement) annotation.getAnnotationType().asElement())
+                .getQualifiedName().toString();
+    }
+
+    /**
+     * Reports that a formatter is not generated for an element.
+     * @param element an element that prevents generation
+     * @param reason the reason why formatter is not generated
+     */
+    private void note(final Element element, final String reason) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                "CSV formatter is not generated, reflection will be used: "
+                        + reason, element);
+    }
+}
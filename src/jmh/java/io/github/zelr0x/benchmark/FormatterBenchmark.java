@@ -0,0 +1,88 @@
+package io.github.zelr0x.benchmark;
+
+import io.github.zelr0x.EmployeePojo.Employee;
+import io.github.zelr0x.EmployeePojo.Payslip;
+import io.github.zelr0x.EmployeePojo.PhoneNumber;
+import io.github.zelr0x.EmployeePojo.Position;
+import io.github.zelr0x.jrealize.Accessor;
+import io.github.zelr0x.jrealize.Format;
+import io.github.zelr0x.jrealize.Formatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of formatting a single row of a flat POJO of primitives (Payslip)
+ * and of a POJO with nested values resolved through getters (Employee),
+ * for every way of reading fields: generated formatters (default),
+ * reflection and method handles.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FormatterBenchmark {
+    private static final int ROWS = 1024;
+
+    @Param({"flat", "nested"})
+    String pojo;
+
+    @Param({"GENERATED", "REFLECTION", "METHOD_HANDLE"})
+    String backend;
+
+    private Object[] rows;
+    private Formatter formatter;
+    private final StringBuilder buffer = new StringBuilder();
+    private int next;
+
+    /**
+     * Creates the rows and the formatter.
+     */
+    @Setup
+    public void setUp() {
+        rows = new Object[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = "flat".equals(pojo)
+                    ? new Payslip(i, i % 12 + 1, i * 1.5, (i & 1) == 0, 'A')
+                    : new Employee("John" + i, "Doe",
+                            Position.values()[i % Position.values().length],
+                            new PhoneNumber("0" + i));
+        }
+        formatter = "GENERATED".equals(backend)
+                ? Formatter.getFormatter(Format.CSV)
+                : Formatter.getFormatter(Format.CSV,
+                        Formatter.DEFAULT_DELIMITER, Accessor.valueOf(backend));
+    }
+
+    /**
+     * Formats a row into a reusable buffer as Serializer does.
+     * @return the buffer
+     */
+    @Benchmark
+    public StringBuilder formatIntoBuffer() {
+        buffer.setLength(0);
+        formatter.format(rows[next++ & (ROWS - 1)], buffer);
+        return buffer;
+    }
+
+    /**
+     * Formats a row into a new String.
+     * @return the row
+     */
+    @Benchmark
+    public String formatToString() {
+        return formatter.format(rows[next++ & (ROWS - 1)]);
+    }
+}
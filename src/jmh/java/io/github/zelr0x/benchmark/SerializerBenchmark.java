@@ -0,0 +1,109 @@
+package io.github.zelr0x.benchmark;
+
+import io.github.zelr0x.EmployeePojo.Payslip;
+import io.github.zelr0x.jrealize.ChannelOutput;
+import io.github.zelr0x.jrealize.Formatter;
+import io.github.zelr0x.jrealize.Serializer;
+import io.github.zelr0x.jrealize.WriteOption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * End-to-end throughput of writing CSV files of Payslip rows
+ * with the BufferedWriter and FileChannel outputs.
+ * At most a million distinct rows are kept in memory, larger exports
+ * cycle through them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class SerializerBenchmark {
+    private static final String DIR = "jmh-output";
+    private static final String FILENAME = "serializer-benchmark.csv";
+    private static final int MAX_DISTINCT_ROWS = 1_000_000;
+
+    @Param({"1000", "1000000", "10000000"})
+    int rows;
+
+    @Param({"buffered", "channel", "mapped"})
+    String output;
+
+    private List<Payslip> payslips;
+    private WriteOption[] options;
+    private final File file = new File(DIR, FILENAME);
+
+    /**
+     * Creates the rows and the output options.
+     */
+    @Setup
+    public void setUp() {
+        final var distinct = Math.min(rows, MAX_DISTINCT_ROWS);
+        payslips = new ArrayList<>(distinct);
+        for (int i = 0; i < distinct; i++) {
+            payslips.add(new Payslip(i, i % 12 + 1, i * 1.5,
+                    (i & 1) == 0, 'A'));
+        }
+        switch (output) {
+            case "channel":
+                options = new WriteOption[] {new ChannelOutput()};
+                break;
+            case "mapped":
+                options = new WriteOption[] {new ChannelOutput(
+                        ChannelOutput.DEFAULT_BUFFER_SIZE * 16, true)};
+                break;
+            default:
+                options = new WriteOption[0];
+        }
+    }
+
+    /**
+     * Starts every export with an empty file.
+     */
+    @Setup(Level.Invocation)
+    public void deleteFile() {
+        file.delete();
+    }
+
+    /**
+     * Removes the written file.
+     */
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * Writes all rows to a file.
+     * @return size of the file
+     */
+    @Benchmark
+    public long writeCsv() {
+        final var size = payslips.size();
+        Serializer.writeCsv(IntStream.range(0, rows)
+                        .mapToObj(i -> payslips.get(i % size)),
+                DIR, FILENAME, StandardCharsets.UTF_8,
+                Formatter.DEFAULT_DELIMITER, options);
+        return file.length();
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.zelr0x.benchmark;
+
+import io.github.zelr0x.jrealize.Format;
+import io.github.zelr0x.jrealize.Formatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Effect of the number of fields and of the length of the delimiter
+ * on the cost of formatting a row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShapeBenchmark {
+    private static final int ROWS = 1024;
+
+    @Param({"4", "16", "64"})
+    int fields;
+
+    @Param({",", "||", "<=-=>"})
+    String delimiter;
+
+    private Object[] rows;
+    private Formatter formatter;
+    private final StringBuilder buffer = new StringBuilder();
+    private int next;
+
+    /**
+     * Creates the rows and the formatter.
+     */
+    @Setup
+    public void setUp() {
+        final IntFunction<Object> factory;
+        switch (fields) {
+            case 4:
+                factory = Wide4::of;
+                break;
+            case 16:
+                factory = Wide16::of;
+                break;
+            default:
+                factory = Wide64::of;
+        }
+        rows = new Object[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = factory.apply(i);
+        }
+        formatter = Formatter.getFormatter(Format.CSV, delimiter);
+    }
+
+    /**
+     * Formats a row into a reusable buffer as Serializer does.
+     * @return the buffer
+     */
+    @Benchmark
+    public StringBuilder formatRow() {
+        buffer.setLength(0);
+        formatter.format(rows[next++ & (ROWS - 1)], buffer);
+        return buffer;
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.zelr0x.benchmark;
+
+import io.github.zelr0x.jrealize.Annotation.Csv;
+
+/**
+ * POJO with 16 @Csv columns of mixed types used to measure the effect
+ * of the number of fields.
+ */
+public class Wide16 {
+    @Csv(col = 1)
+    int f0;
+    @Csv(col = 2)
+    String f1;
+    @Csv(col = 3)
+    double f2;
+    @Csv(col = 4)
+    long f3;
+    @Csv(col = 5)
+    int f4;
+    @Csv(col = 6)
+    String f5;
+    @Csv(col = 7)
+    double f6;
+    @Csv(col = 8)
+    long f7;
+    @Csv(col = 9)
+    int f8;
+    @Csv(col = 10)
+    String f9;
+    @Csv(col = 11)
+    double f10;
+    @Csv(col = 12)
+    long f11;
+    @Csv(col = 13)
+    int f12;
+    @Csv(col = 14)
+    String f13;
+    @Csv(col = 15)
+    double f14;
+    @Csv(col = 16)
+    long f15;
+
+    /**
+     * Creates an object with values derived from a seed.
+     * @param seed a seed of the values
+     * @return the object
+     */
+    public static Wide16 of(final int seed) {
+        final var res = new Wide16();
+        res.f0 = seed;
+        res.f1 = "value" + (seed + 1);
+        res.f2 = (seed + 2) * 0.5;
+        res.f3 = (long) seed * 4;
+        res.f4 = seed + 4;
+        res.f5 = "value" + (seed + 5);
+        res.f6 = (seed + 6) * 0.5;
+        res.f7 = (long) seed * 8;
+        res.f8 = seed + 8;
+        res.f9 = "value" + (seed + 9);
+        res.f10 = (seed + 10) * 0.5;
+        res.f11 = (long) seed * 12;
+        res.f12 = seed + 12;
+        res.f13 = "value" + (seed + 13);
+        res.f14 = (seed + 14) * 0.5;
+        res.f15 = (long) seed * 16;
+        return res;
+    }
+}
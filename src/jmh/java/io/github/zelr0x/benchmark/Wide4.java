@@ -0,0 +1,32 @@
+package io.github.zelr0x.benchmark;
+
+import io.github.zelr0x.jrealize.Annotation.Csv;
+
+/**
+ * POJO with 4 @Csv columns of mixed types used to measure the effect
+ * of the number of fields.
+ */
+public class Wide4 {
+    @Csv(col = 1)
+    int f0;
+    @Csv(col = 2)
+    String f1;
+    @Csv(col = 3)
+    double f2;
+    @Csv(col = 4)
+    long f3;
+
+    /**
+     * Creates an object with values derived from a seed.
+     * @param seed a seed of the values
+     * @return the object
+     */
+    public static Wide4 of(final int seed) {
+        final var res = new Wide4();
+        res.f0 = seed;
+        res.f1 = "value" + (seed + 1);
+        res.f2 = (seed + 2) * 0.5;
+        res.f3 = (long) seed * 4;
+        return res;
+    }
+}
@@ -0,0 +1,212 @@
+package io.github.zelr0x.benchmark;
+
+import io.github.zelr0x.jrealize.Annotation.Csv;
+
+/**
+ * POJO with 64 @Csv columns of mixed types used to measure the effect
+ * of the number of fields.
+ */
+public class Wide64 {
+    @Csv(col = 1)
+    int f0;
+    @Csv(col = 2)
+    String f1;
+    @Csv(col = 3)
+    double f2;
+    @Csv(col = 4)
+    long f3;
+    @Csv(col = 5)
+    int f4;
+    @Csv(col = 6)
+    String f5;
+    @Csv(col = 7)
+    double f6;
+    @Csv(col = 8)
+    long f7;
+    @Csv(col = 9)
+    int f8;
+    @Csv(col = 10)
+    String f9;
+    @Csv(col = 11)
+    double f10;
+    @Csv(col = 12)
+    long f11;
+    @Csv(col = 13)
+    int f12;
+    @Csv(col = 14)
+    String f13;
+    @Csv(col = 15)
+    double f14;
+    @Csv(col = 16)
+    long f15;
+    @Csv(col = 17)
+    int f16;
+    @Csv(col = 18)
+    String f17;
+    @Csv(col = 19)
+    double f18;
+    @Csv(col = 20)
+    long f19;
+    @Csv(col = 21)
+    int f20;
+    @Csv(col = 22)
+    String f21;
+    @Csv(col = 23)
+    double f22;
+    @Csv(col = 24)
+    long f23;
+    @Csv(col = 25)
+    int f24;
+    @Csv(col = 26)
+    String f25;
+    @Csv(col = 27)
+    double f26;
+    @Csv(col = 28)
+    long f27;
+    @Csv(col = 29)
+    int f28;
+    @Csv(col = 30)
+    String f29;
+    @Csv(col = 31)
+    double f30;
+    @Csv(col = 32)
+    long f31;
+    @Csv(col = 33)
+    int f32;
+    @Csv(col = 34)
+    String f33;
+    @Csv(col = 35)
+    double f34;
+    @Csv(col = 36)
+    long f35;
+    @Csv(col = 37)
+    int f36;
+    @Csv(col = 38)
+    String f37;
+    @Csv(col = 39)
+    double f38;
+    @Csv(col = 40)
+    long f39;
+    @Csv(col = 41)
+    int f40;
+    @Csv(col = 42)
+    String f41;
+    @Csv(col = 43)
+    double f42;
+    @Csv(col = 44)
+    long f43;
+    @Csv(col = 45)
+    int f44;
+    @Csv(col = 46)
+    String f45;
+    @Csv(col = 47)
+    double f46;
+    @Csv(col = 48)
+    long f47;
+    @Csv(col = 49)
+    int f48;
+    @Csv(col = 50)
+    String f49;
+    @Csv(col = 51)
+    double f50;
+    @Csv(col = 52)
+    long f51;
+    @Csv(col = 53)
+    int f52;
+    @Csv(col = 54)
+    String f53;
+    @Csv(col = 55)
+    double f54;
+    @Csv(col = 56)
+    long f55;
+    @Csv(col = 57)
+    int f56;
+    @Csv(col = 58)
+    String f57;
+    @Csv(col = 59)
+    double f58;
+    @Csv(col = 60)
+    long f59;
+    @Csv(col = 61)
+    int f60;
+    @Csv(col = 62)
+    String f61;
+    @Csv(col = 63)
+    double f62;
+    @Csv(col = 64)
+    long f63;
+
+    /**
+     * Creates an object with values derived from a seed.
+     * @param seed a seed of the values
+     * @return the object
+     */
+    public static Wide64 of(final int seed) {
+        final var res = new Wide64();
+        res.f0 = seed;
+        res.f1 = "value" + (seed + 1);
+        res.f2 = (seed + 2) * 0.5;
+        res.f3 = (long) seed * 4;
+        res.f4 = seed + 4;
+        res.f5 = "value" + (seed + 5);
+        res.f6 = (seed + 6) * 0.5;
+        res.f7 = (long) seed * 8;
+        res.f8 = seed + 8;
+        res.f9 = "value" + (seed + 9);
+        res.f10 = (seed + 10) * 0.5;
+        res.f11 = (long) seed * 12;
+        res.f12 = seed + 12;
+        res.f13 = "value" + (seed + 13);
+        res.f14 = (seed + 14) * 0.5;
+        res.f15 = (long) seed * 16;
+        res.f16 = seed + 16;
+        res.f17 = "value" + (seed + 17);
+        res.f18 = (seed + 18) * 0.5;
+        res.f19 = (long) seed * 20;
+        res.f20 = seed + 20;
+        res.f21 = "value" + (seed + 21);
+        res.f22 = (seed + 22) * 0.5;
+        res.f23 = (long) seed * 24;
+        res.f24 = seed + 24;
+        res.f25 = "value" + (seed + 25);
+        res.f26 = (seed + 26) * 0.5;
+        res.f27 = (long) seed * 28;
+        res.f28 = seed + 28;
+        res.f29 = "value" + (seed + 29);
+        res.f30 = (seed + 30) * 0.5;
+        res.f31 = (long) seed * 32;
+        res.f32 = seed + 32;
+        res.f33 = "value" + (seed + 33);
+        res.f34 = (seed + 34) * 0.5;
+        res.f35 = (long) seed * 36;
+        res.f36 = seed + 36;
+        res.f37 = "value" + (seed + 37);
+        res.f38 = (seed + 38) * 0.5;
+        res.f39 = (long) seed * 40;
+        res.f40 = seed + 40;
+        res.f41 = "value" + (seed + 41);
+        res.f42 = (seed + 42) * 0.5;
+        res.f43 = (long) seed * 44;
+        res.f44 = seed + 44;
+        res.f45 = "value" + (seed + 45);
+        res.f46 = (seed + 46) * 0.5;
+        res.f47 = (long) seed * 48;
+        res.f48 = seed + 48;
+        res.f49 = "value" + (seed + 49);
+        res.f50 = (seed + 50) * 0.5;
+        res.f51 = (long) seed * 52;
+        res.f52 = seed + 52;
+        res.f53 = "value" + (seed + 53);
+        res.f54 = (seed + 54) * 0.5;
+        res.f55 = (long) seed * 56;
+        res.f56 = seed + 56;
+        res.f57 = "value" + (seed + 57);
+        res.f58 = (seed + 58) * 0.5;
+        res.f59 = (long) seed * 60;
+        res.f60 = seed + 60;
+        res.f61 = "value" + (seed + 61);
+        res.f62 = (seed + 62) * 0.5;
+        res.f63 = (long) seed * 64;
+        return res;
+    }
+}
@@ -0,0 +1,508 @@
+package io.github.zelr0x.jrealize;
+
+import io.github.zelr0x.jrealize.Annotation.CsvFormat;
+import io.github.zelr0x.jrealize.Annotation.CsvGetter;
+import io.github.zelr0x.jrealize.Annotation.Util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Backends used to read values of annotated fields.
+ * Default backend can be set with -Djrealize.accessor JVM flag
+ * (reflection or method_handle).
+ * Both backends read primitive fields without boxing them.
+ */
+public enum Accessor {
+    /**
+     * Reads fields with Field.get and calls getters with Method.invoke.
+     */
+    REFLECTION {
+        @Override
+        ValueReader reader(final Field field) {
+            final var type = field.getType();
+            if (type == int.class || type == short.class
+                    || type == byte.class) {
+                return (obj, out) -> {
+                    try {
+                        out.append(field.getInt(obj));
+                    } catch (IllegalAccessException e) {
+                        throw propagate(e);
+                    }
+                };
+            } else if (type == long.class) {
+                return (obj, out) -> {
+                    try {
+                        out.append(field.getLong(obj));
+                    } catch (IllegalAccessException e) {
+                        throw propagate(e);
+                    }
+                };
+            } else if (type == double.class) {
+                return (obj, out) -> {
+                    try {
+                        CsvValues.appendDouble(out, field.getDouble(obj));
+                    } catch (IllegalAccessException e) {
+                        throw propagate(e);
+                    }
+                };
+            } else if (type == float.class) {
+                return (obj, out) -> {
+                    try {
+                        out.append(field.getFloat(obj));
+                    } catch (IllegalAccessException e) {
+                        throw propagate(e);
+                    }
+                };
+            } else if (type == boolean.class) {
+                return (obj, out) -> {
+                    try {
+                        out.append(field.getBoolean(obj));
+                    } catch (IllegalAccessException e) {
+                        throw propagate(e);
+                    }
+                };
+            } else if (type == char.class) {
+                return (obj, out) -> {
+                    try {
+                        out.append(field.getChar(obj));
+                    } catch (IllegalAccessException e) {
+                        throw propagate(e);
+                    }
+                };
+            }
+            return (obj, out) -> {
+                final Object value;
+                try {
+                    value = field.get(obj);
+                } catch (IllegalAccessException e) {
+                    throw propagate(e);
+                }
+                CsvValues.appendValue(out, value);
+            };
+        }
+
+        @Override
+        Function<Object, Object> getter(final Field field) {
+            return obj -> {
+                try {
+                    return field.get(obj);
+                } catch (IllegalAccessException e) {
+                    throw propagate(e);
+                }
+            };
+        }
+
+        @Override
+        ToLongFunction<Object> longGetter(final Field field) {
+            if (field.getType() == boolean.class) {
+                return obj -> {
+                    try {
+                        return field.getBoolean(obj) ? 1 : 0;
+                    } catch (IllegalAccessException e) {
+                        throw propagate(e);
+                    }
+                };
+            }
+            return obj -> {
+                try {
+                    return field.getLong(obj);
+                } catch (IllegalAccessException e) {
+                    throw propagate(e);
+                }
+            };
+        }
+
+        @Override
+        ToDoubleFunction<Object> doubleGetter(final Field field) {
+            return obj -> {
+                try {
+                    return field.getDouble(obj);
+                } catch (IllegalAccessException e) {
+                    throw propagate(e);
+                }
+            };
+        }
+    },
+
+    /**
+     * Reads fields and calls getters through method handles which can be
+     * inlined by the JIT compiler. Getters of final field types are resolved
+     * once and bound to the field handle.
+     */
+    METHOD_HANDLE {
+        @Override
+        ValueReader reader(final Field field) {
+            final var type = field.getType();
+            final var handle = getterHandle(field);
+            if (type == int.class || type == short.class
+                    || type == byte.class) {
+                final var h = handle.asType(
+                        MethodType.methodType(int.class, Object.class));
+                return (obj, out) -> {
+                    try {
+                        out.append((int) h.invokeExact(obj));
+                    } catch (Throwable e) {
+                        throw propagate(e);
+                    }
+                };
+            } else if (type == long.class) {
+                final var h = handle.asType(
+                        MethodType.methodType(long.class, Object.class));
+                return (obj, out) -> {
+                    try {
+                        out.append((long) h.invokeExact(obj));
+                    } catch (Throwable e) {
+                        throw propagate(e);
+                    }
+                };
+            } else if (type == double.class) {
+                final var h = handle.asType(
+                        MethodType.methodType(double.class, Object.class));
+                return (obj, out) -> {
+                    try {
+                        CsvValues.appendDouble(out,
+                                (double) h.invokeExact(obj));
+                    } catch (Throwable e) {
+                        throw propagate(e);
+                    }
+                };
+            } else if (type == float.class) {
+                final var h = handle.asType(
+                        MethodType.methodType(float.class, Object.class));
+                return (obj, out) -> {
+                    try {
+                        out.append((float) h.invokeExact(obj));
+                    } catch (Throwable e) {
+                        throw propagate(e);
+                    }
+                };
+            } else if (type == boolean.class) {
+                final var h = handle.asType(
+                        MethodType.methodType(boolean.class, Object.class));
+                return (obj, out) -> {
+                    try {
+                        out.append((boolean) h.invokeExact(obj));
+                    } catch (Throwable e) {
+                        throw propagate(e);
+                    }
+                };
+            } else if (type == char.class) {
+                final var h = handle.asType(
+                        MethodType.methodType(char.class, Object.class));
+                return (obj, out) -> {
+                    try {
+                        out.append((char) h.invokeExact(obj));
+                    } catch (Throwable e) {
+                        throw propagate(e);
+                    }
+                };
+            }
+            final var h = handle.asType(READER_TYPE);
+            return (obj, out) -> {
+                final Object value;
+                try {
+                    value = (Object) h.invokeExact(obj);
+                } catch (Throwable e) {
+                    throw propagate(e);
+                }
+                CsvValues.appendValue(out, value);
+            };
+        }
+
+        @Override
+        Function<Object, Object> getter(final Field field) {
+            final MethodHandle h;
+            try {
+                h = MethodHandles.lookup().unreflectGetter(field)
+                        .asType(READER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw propagate(e);
+            }
+            return obj -> {
+                try {
+                    return (Object) h.invokeExact(obj);
+                } catch (Throwable e) {
+                    throw propagate(e);
+                }
+            };
+        }
+
+        @Override
+        ToLongFunction<Object> longGetter(final Field field) {
+            final var handle = getterHandle(field);
+            if (field.getType() == boolean.class) {
+                final var h = handle.asType(
+                        MethodType.methodType(boolean.class, Object.class));
+                return obj -> {
+                    try {
+                        return (boolean) h.invokeExact(obj) ? 1 : 0;
+                    } catch (Throwable e) {
+                        throw propagate(e);
+                    }
+                };
+            }
+            final var h = handle.asType(
+                    MethodType.methodType(long.class, Object.class));
+            return obj -> {
+                try {
+                    return (long) h.invokeExact(obj);
+                } catch (Throwable e) {
+                    throw propagate(e);
+                }
+            };
+        }
+
+        @Override
+        ToDoubleFunction<Object> doubleGetter(final Field field) {
+            final var h = getterHandle(field).asType(
+                    MethodType.methodType(double.class, Object.class));
+            return obj -> {
+                try {
+                    return (double) h.invokeExact(obj);
+                } catch (Throwable e) {
+                    throw propagate(e);
+                }
+            };
+        }
+    };
+
+    private static final String PROPERTY = "jrealize.accessor";
+    private static final String ILLEGAL_ACCESS_MESSAGE =
+            "Unknown error. Please report the details to the maintainer";
+    private static final MethodType READER_TYPE =
+            MethodType.methodType(Object.class, Object.class);
+
+    private final ClassValue<CsvPlan> plans = new ClassValue<>() {
+        @Override
+        protected CsvPlan computeValue(final Class<?> type) {
+            final var start = System.nanoTime();
+            final var plan = new CsvPlan(type, Accessor.this);
+            Serializer.getMetricsListener().planCompiled(type, Format.CSV,
+                    System.nanoTime() - start);
+            return plan;
+        }
+    };
+
+    private final ClassValue<Map<Projection, CsvPlan>> projectedPlans =
+            new ClassValue<>() {
+                @Override
+                protected Map<Projection, CsvPlan> computeValue(
+                        final Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private final ClassValue<JsonPlan> jsonPlans = new ClassValue<>() {
+        @Override
+        protected JsonPlan computeValue(final Class<?> type) {
+            final var start = System.nanoTime();
+            final var plan = new JsonPlan(type, Accessor.this);
+            Serializer.getMetricsListener().planCompiled(type, Format.JSON,
+                    System.nanoTime() - start);
+            return plan;
+        }
+    };
+
+    private final ClassValue<XmlPlan> xmlPlans = new ClassValue<>() {
+        @Override
+        protected XmlPlan computeValue(final Class<?> type) {
+            final var start = System.nanoTime();
+            final var plan = new XmlPlan(type, Accessor.this);
+            Serializer.getMetricsListener().planCompiled(type, Format.XML,
+                    System.nanoTime() - start);
+            return plan;
+        }
+    };
+
+    private final ClassValue<BinaryPlan> binaryPlans = new ClassValue<>() {
+        @Override
+        protected BinaryPlan computeValue(final Class<?> type) {
+            final var start = System.nanoTime();
+            final var plan = new BinaryPlan(type, Accessor.this);
+            Serializer.getMetricsListener().planCompiled(type, Format.BINARY,
+                    System.nanoTime() - start);
+            return plan;
+        }
+    };
+
+    /**
+     * Creates a reader of a specified field which appends the value
+     * of the field in its default form, ignoring @CsvFormat, so JSON
+     * and XML can write numbers with it.
+     * @param field an accessible field to read
+     * @return a reader of the field
+     */
+    abstract ValueReader reader(Field field);
+
+    /**
+     * Creates a reader of a specified field which appends the value
+     * of the field as CSV does, in the form set with @CsvFormat if the
+     * field has one.
+     * @param field an accessible field to read
+     * @return a reader of the field
+     */
+    ValueReader csvReader(final Field field) {
+        if (field.getAnnotation(CsvFormat.class) == null) {
+            return reader(field);
+        }
+        final var type = field.getType();
+        if (type == double.class || type == float.class) {
+            final var getter = doubleGetter(field);
+            final var scale = CsvValues.scale(field);
+            return (obj, out) -> CsvValues.appendDouble(out,
+                    getter.applyAsDouble(obj), scale);
+        }
+        final var getter = getter(field);
+        final var appender = CsvValues.appender(field);
+        return (obj, out) -> appender.accept(getter.apply(obj), out);
+    }
+
+    /**
+     * Creates a function returning the raw value of a specified field.
+     * Values of primitive fields are boxed.
+     * @param field an accessible field to read
+     * @return a function returning the value of the field
+     */
+    abstract Function<Object, Object> getter(Field field);
+
+    /**
+     * Creates a function returning the value of a specified primitive
+     * field other than float or double without boxing it. Values are
+     * widened to long; chars are returned as their codes and booleans
+     * as 1 and 0.
+     * @param field an accessible field of an integral, char or boolean type
+     * @return a function returning the value of the field
+     */
+    abstract ToLongFunction<Object> longGetter(Field field);
+
+    /**
+     * Creates a function returning the value of a specified numeric
+     * primitive field without boxing it. Values are widened to double.
+     * @param field an accessible field of a numeric primitive type
+     * @return a function returning the value of the field
+     */
+    abstract ToDoubleFunction<Object> doubleGetter(Field field);
+
+    /**
+     * Returns the CSV plan of a specified class which reads fields
+     * with this backend, compiling it on first access.
+     * @param clazz a class which plan to get
+     * @return the plan of the clazz
+     */
+    CsvPlan plan(final Class<?> clazz) {
+        Serializer.getMetricsListener().planLookup(clazz, Format.CSV);
+        return plans.get(clazz);
+    }
+
+    /**
+     * Returns the CSV plan of a projection of a specified class which reads
+     * fields with this backend, compiling it on first access.
+     * @param clazz a class which plan to get
+     * @param projection the columns to write
+     * @return the plan of the projection of the clazz
+     */
+    CsvPlan plan(final Class<?> clazz, final Projection projection) {
+        final var listener = Serializer.getMetricsListener();
+        listener.planLookup(clazz, Format.CSV);
+        return projectedPlans.get(clazz).computeIfAbsent(projection, p -> {
+            final var start = System.nanoTime();
+            final var plan = new CsvPlan(clazz, this, p);
+            listener.planCompiled(clazz, Format.CSV,
+                    System.nanoTime() - start);
+            return plan;
+        });
+    }
+
+    /**
+     * Returns the JSON plan of a specified class which reads fields
+     * with this backend, compiling it on first access.
+     * @param clazz a class which plan to get
+     * @return the plan of the clazz
+     */
+    JsonPlan jsonPlan(final Class<?> clazz) {
+        Serializer.getMetricsListener().planLookup(clazz, Format.JSON);
+        return jsonPlans.get(clazz);
+    }
+
+    /**
+     * Returns the XML plan of a specified class which reads fields
+     * with this backend, compiling it on first access.
+     * @param clazz a class which plan to get
+     * @return the plan of the clazz
+     */
+    XmlPlan xmlPlan(final Class<?> clazz) {
+        Serializer.getMetricsListener().planLookup(clazz, Format.XML);
+        return xmlPlans.get(clazz);
+    }
+
+    /**
+     * Returns the binary plan of a specified class which reads fields
+     * with this backend, compiling it on first access.
+     * @param clazz a class which plan to get
+     * @return the plan of the clazz
+     */
+    BinaryPlan binaryPlan(final Class<?> clazz) {
+        Serializer.getMetricsListener().planLookup(clazz, Format.BINARY);
+        return binaryPlans.get(clazz);
+    }
+
+    /**
+     * Returns the backend set with -Djrealize.accessor JVM flag.
+     * @return the default backend, METHOD_HANDLE if the flag is not set
+     */
+    public static Accessor getDefault() {
+        final var name = System.getProperty(PROPERTY);
+        return name == null
+                ? METHOD_HANDLE
+                : valueOf(name.trim().toUpperCase());
+    }
+
+    /**
+     * Creates a method handle that reads a specified field.
+     * If the type of the field cannot be subclassed, its serialization
+     * getter is bound to the handle as well.
+     * @param field an accessible field to read
+     * @return the method handle reading the field
+     */
+    private static MethodHandle getterHandle(final Field field) {
+        final var lookup = MethodHandles.lookup();
+        try {
+            var handle = lookup.unreflectGetter(field);
+            final var type = field.getType();
+            if (!type.isPrimitive() && Modifier.isFinal(type.getModifiers())) {
+                final Method getter = Util.findGetter(type, CsvGetter.class);
+                if (getter != null) {
+                    getter.setAccessible(true);
+                    handle = MethodHandles.filterReturnValue(handle,
+                            lookup.unreflect(getter));
+                }
+            }
+            return handle;
+        } catch (IllegalAccessException e) {
+            throw propagate(e);
+        }
+    }
+
+    /**
+     * Rethrows unchecked exceptions as is and reports checked ones
+     * the same way reflective access errors are reported.
+     * @param e an exception thrown while reading a field
+     * @return never returns normally, declared for use in throw statements
+     */
+    private static RuntimeException propagate(final Throwable e) {
+        if (e instanceof RuntimeException) return (RuntimeException) e;
+        if (e instanceof Error) throw (Error) e;
+        e.printStackTrace();
+        throw new IllegalAccessError(ILLEGAL_ACCESS_MESSAGE);
+    }
+}
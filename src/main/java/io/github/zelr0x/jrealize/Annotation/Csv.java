@@ -16,4 +16,11 @@ public @interface Csv {
      * @return CSV column number
      */
     int col();
+
+    /**
+     * The name of the column in the header row (overrides the name
+     * of the field in a class).
+     * @return the name of the column
+     */
+    String name() default "";
 }
@@ -0,0 +1,29 @@
+package io.github.zelr0x.jrealize.Annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Specifies how the value of a field marked with @Csv is formatted.
+ * Fields without it are written in their default form: numbers and
+ * dates as their toString() would write them.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface CsvFormat {
+    /**
+     * DateTimeFormatter pattern of a java.time field, e.g. "dd.MM.yyyy".
+     * @return the pattern, empty to write ISO-8601
+     */
+    String pattern() default "";
+
+    /**
+     * Number of digits after the decimal point of a double, float
+     * or BigDecimal field, the value being rounded half up.
+     * @return the number of digits, -1 to write the shortest decimal
+     *         which reads back as the same value
+     */
+    int scale() default -1;
+}
@@ -10,7 +10,7 @@ import java.lang.annotation.Target;
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.FIELD)
-@interface Json {
+public @interface Json {
     /**
      * The name of the JSON field (overrides the name of the field in a class).
      * @return the name of the field
@@ -12,6 +12,6 @@ import java.lang.annotation.Target;
  * If not getter is specified, toString() will be used instead.
  */
 @Retention(RetentionPolicy.RUNTIME)
-@Target(ElementType.FIELD)
-@interface JsonGetter {
+@Target(ElementType.METHOD)
+public @interface JsonGetter {
 }
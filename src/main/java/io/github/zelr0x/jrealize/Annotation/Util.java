@@ -1,19 +1,40 @@
 package io.github.zelr0x.jrealize.Annotation;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 /**
  * Annotations utilities.
+ * Serialization getters are resolved once per class and getter annotation
+ * and cached as method handles. Classes without a getter cache a handle
+ * calling toString(), so they are not scanned for getters again either.
  */
 public final class Util {
     private static final long MAX_GETTERS = 1;
+    private static final int MAX_GETTER_CHAIN = 64;
     private static final String ILLEGAL_ACCESS_MESSAGE =
             "Unknown error. Please report the details to the maintainer";
+    private static final MethodType GETTER_TYPE =
+            MethodType.methodType(Object.class, Object.class);
+    private static final MethodHandle TO_STRING = toStringHandle();
+
+    private static final ClassValue<Map<Class<? extends Annotation>,
+            MethodHandle>> GETTERS = new ClassValue<>() {
+                @Override
+                protected Map<Class<? extends Annotation>, MethodHandle>
+                        computeValue(final Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
 
     /**
      * Prevents instantiation.
@@ -31,9 +52,21 @@ public final class Util {
      */
     public static Stream<Field> getAnnotatedFields(final Object obj,
             final Class<? extends Annotation> annotation) {
-        return Arrays.stream(obj.getClass().getDeclaredFields())
-                .peek(f -> f.setAccessible(true))
-                .filter(f -> f.isAnnotationPresent(annotation));
+        return getAnnotatedFields(obj.getClass(), annotation);
+    }
+
+    /**
+     * Retrieves all fields marked with a specified annotation
+     * from a specified class.
+     * @param clazz a class in which to gather fields
+     * @param annotation an annotation to look for in fields of the clazz
+     * @return Stream of fields of clazz annotated with annotation
+     */
+    public static Stream<Field> getAnnotatedFields(final Class<?> clazz,
+            final Class<? extends Annotation> annotation) {
+        return Arrays.stream(clazz.getDeclaredFields())
+                .filter(f -> f.isAnnotationPresent(annotation))
+                .peek(f -> f.setAccessible(true));
     }
 
     /**
@@ -53,26 +86,42 @@ public final class Util {
             e.printStackTrace();
             throw new IllegalAccessError(ILLEGAL_ACCESS_MESSAGE);
         }
+        return valueToString(fieldValue, getter);
+    }
 
-        while (!isSerializable(fieldValue)) {
-            fieldValue = serialize(fieldValue, getter);
+    /**
+     * Represents a specified value in a form suitable for serialization,
+     * calling serialization getters until a String is produced.
+     * @param value a value to represent
+     * @param getter a getter annotation to look for in the class of the value
+     * @return a String representation of the value, empty for null
+     * @throws IllegalStateException if getters keep returning objects
+     *                               which are not Strings, e.g. each other
+     */
+    public static String valueToString(final Object value,
+            final Class<? extends Annotation> getter) {
+        var res = value;
+        for (int i = 0; res != null && !isSerializable(res); i++) {
+            if (i == MAX_GETTER_CHAIN) {
+                throw new IllegalStateException("Serialization getters of "
+                        + value.getClass().getName() + " form a cycle");
+            }
+            res = serialize(res, getter);
         }
-        return fieldValue.toString();
+        return res == null ? "" : res.toString();
     }
 
     /**
-     * Invoke a method of a target marked with a specified annotation
-     * and return the result.
-     * @param target an object to use as implicit parameter of method
-     *               invocation i.e. as "this"
-     * @param annotation an annotation to look for in methods of the target
-     * @return the result of method invocation on the target
+     * Finds the method of a specified class marked with a specified
+     * getter annotation.
+     * @param clazz a class in which to look for the getter
+     * @param annotation a getter annotation to look for
+     * @return the annotated method or null if there is none
+     * @throws RuntimeException if there is more than one annotated method
      */
-    private static Object serialize(final Object target,
+    public static Method findGetter(final Class<?> clazz,
             final Class<? extends Annotation> annotation) {
-        if (isSerializable(target)) return target.toString();
-
-        final var annotatedMethods = getAnnotatedMethods(target, annotation)
+        final var annotatedMethods = getAnnotatedMethods(clazz, annotation)
                 .toArray(Method[]::new);
 
         final var annotatedMethodCount = annotatedMethods.length;
@@ -80,41 +129,89 @@ public final class Util {
             throw new RuntimeException("Class can only have "
                     + MAX_GETTERS
                     + " methods marked with serialization getter annotation");
-        } else if (annotatedMethodCount == 0) return target.toString();
+        }
+        return annotatedMethodCount == 0 ? null : annotatedMethods[0];
+    }
+
+    /**
+     * Invoke a method of a target marked with a specified annotation
+     * and return the result. If there is no such method, toString()
+     * of the target is returned.
+     * @param target an object to use as implicit parameter of method
+     *               invocation i.e. as "this"
+     * @param annotation an annotation to look for in methods of the target
+     * @return the result of method invocation on the target
+     */
+    private static Object serialize(final Object target,
+            final Class<? extends Annotation> annotation) {
+        final var clazz = target.getClass();
+        final var getters = GETTERS.get(clazz);
+        var getter = getters.get(annotation);
+        if (getter == null) {
+            getter = getters.computeIfAbsent(annotation,
+                    a -> resolveGetter(clazz, a));
+        }
+        try {
+            return (Object) getter.invokeExact(target);
+        } catch (Throwable e) {
+            e.printStackTrace();
+            throw new IllegalAccessError(ILLEGAL_ACCESS_MESSAGE);
+        }
+    }
 
-        return invoke(target, annotatedMethods[0]);
+    /**
+     * Resolves the serialization getter of a specified class checking
+     * that there is at most one.
+     * @param clazz a class in which to look for the getter
+     * @param annotation a getter annotation to look for
+     * @return a handle calling the getter or toString() if there is none
+     */
+    private static MethodHandle resolveGetter(final Class<?> clazz,
+            final Class<? extends Annotation> annotation) {
+        final var getter = findGetter(clazz, annotation);
+        if (getter == null) return TO_STRING;
+        if (Modifier.isStatic(getter.getModifiers())
+                || getter.getParameterCount() != 0) {
+            throw new IllegalArgumentException("Serialization getter "
+                    + getter + " has to be an instance method"
+                    + " without parameters");
+        }
+        getter.setAccessible(true);
+        try {
+            return MethodHandles.lookup().unreflect(getter)
+                    .asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+            throw new IllegalAccessError(ILLEGAL_ACCESS_MESSAGE);
+        }
     }
 
     /**
      * Returns a stream of methods marked with a specified annotation
-     * in a class of provided object.
-     * @param o an object in which class to find annotated methods
+     * in a specified class.
+     * @param clazz a class in which to find annotated methods
      * @param annotation an annotation to look for
      * @return a stream of methods annotated with annotation
      */
-    private static Stream<Method> getAnnotatedMethods(final Object o,
+    private static Stream<Method> getAnnotatedMethods(final Class<?> clazz,
             final Class<? extends Annotation> annotation) {
-        return Arrays.stream(o.getClass()
-                .getDeclaredMethods())
+        return Arrays.stream(clazz.getDeclaredMethods())
                 .filter(m -> m.isAnnotationPresent(annotation));
     }
 
     /**
-     * Invoke a method of a target and return the result.
-     * @param target an object to use as implicit parameter of method
-     *               invocation i.e. as "this"
-     * @param method a method to call on the target
-     * @return the result of method invocation on the target
+     * Creates a handle calling toString() of its argument.
+     * @return the handle
      */
-    private static Object invoke(final Object target, final Method method) {
-        Object res;
+    private static MethodHandle toStringHandle() {
         try {
-            res = method.invoke(target);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            e.printStackTrace();
-            throw new IllegalAccessError(ILLEGAL_ACCESS_MESSAGE);
+            return MethodHandles.publicLookup()
+                    .findVirtual(Object.class, "toString",
+                            MethodType.methodType(String.class))
+                    .asType(GETTER_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new AssertionError(e);
         }
-        return res;
     }
 
     /**
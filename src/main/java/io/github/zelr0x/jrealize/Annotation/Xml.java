@@ -0,0 +1,21 @@
+package io.github.zelr0x.jrealize.Annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Specifies field for XML serialization.
+ * On a class, specifies the name of the elements of its objects.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.TYPE})
+public @interface Xml {
+    /**
+     * The name of the XML element (overrides the name of the field
+     * or the simple name of the class).
+     * @return the name of the element
+     */
+    String name() default "";
+}
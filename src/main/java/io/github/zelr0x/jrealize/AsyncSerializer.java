@@ -0,0 +1,303 @@
+package io.github.zelr0x.jrealize;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serializes batches of objects and appends them to files on background
+ * writer threads, so callers don't wait on disk I/O.
+ * Each file is always written by the same writer thread: batches
+ * submitted for a file are appended in the order of submission and
+ * never interleave. Every writer has a bounded queue of batches;
+ * submitting to a full queue blocks until the writer catches up.
+ * Writer threads are virtual threads if the JVM supports them.
+ */
+public final class AsyncSerializer implements AutoCloseable {
+    /**
+     * Default number of batches waiting for each writer.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    private static final String WORKING_DIR = System.getProperty("user.dir");
+    private static final Batch CLOSE = new Batch(null, null);
+
+    private final String workingDir;
+    private final boolean sync;
+    private final List<BlockingQueue<Batch>> queues;
+    private final List<Thread> writers;
+    private volatile boolean closed;
+
+    /**
+     * Constructs new AsyncSerializer with a writer per processor,
+     * default queue capacity and syncing each batch to the disk.
+     * Files are placed in user.dir.
+     */
+    public AsyncSerializer() {
+        this(WORKING_DIR, DEFAULT_QUEUE_CAPACITY,
+                Runtime.getRuntime().availableProcessors(),
+                defaultThreadFactory(), true);
+    }
+
+    /**
+     * Constructs new AsyncSerializer.
+     * @param workingDir a directory in which all generated files and
+     *                   directories will be placed
+     * @param queueCapacity maximum number of batches waiting for a writer
+     * @param writerCount number of writer threads
+     * @param threadFactory factory of the writer threads
+     * @param sync whether the content of a file is forced to the disk
+     *             before the future of a batch is completed
+     */
+    public AsyncSerializer(final String workingDir, final int queueCapacity,
+                           final int writerCount,
+                           final ThreadFactory threadFactory,
+                           final boolean sync) {
+        if (queueCapacity < 1 || writerCount < 1) {
+            throw new IllegalArgumentException(
+                    "Queue capacity and writer count must be positive");
+        }
+        this.workingDir = workingDir;
+        this.sync = sync;
+        this.queues = new ArrayList<>(writerCount);
+        this.writers = new ArrayList<>(writerCount);
+        for (int i = 0; i < writerCount; i++) {
+            final BlockingQueue<Batch> queue =
+                    new ArrayBlockingQueue<>(queueCapacity);
+            final var writer = threadFactory.newThread(() -> run(queue));
+            queues.add(queue);
+            writers.add(writer);
+            writer.start();
+        }
+    }
+
+    /**
+     * Submits a batch of objects to be appended to a specified file as CSV.
+     * Blocks while the queue of the writer of the file is full.
+     * @param batch objects to write. It must not be modified until
+     *              the returned future is completed
+     * @param directory name of the directory in which all created
+     *                  files will be placed
+     * @param filename name of the file in which to write the batch
+     * @param charset charset to use
+     * @param delimiter String to use as a delimiter
+     * @param options options of the export
+     * @return a future completed when the batch is appended
+     *         (and synced if the serializer syncs)
+     */
+    public CompletableFuture<Void> csv(final Collection<?> batch,
+            final String directory, final String filename,
+            final Charset charset, final String delimiter,
+            final WriteOption... options) {
+        return submit(batch, Formatter.getFormatter(Format.CSV, delimiter),
+                directory, filename, charset, options);
+    }
+
+    /**
+     * Submits a batch of objects to be appended to a specified file
+     * in a specified format. Blocks while the queue of the writer
+     * of the file is full.
+     * @param batch objects to write. It must not be modified until
+     *              the returned future is completed
+     * @param format format of the file
+     * @param directory name of the directory in which all created
+     *                  files will be placed
+     * @param filename name of the file in which to write the batch
+     * @param charset charset to use
+     * @param options options of the export
+     * @return a future completed when the batch is appended
+     *         (and synced if the serializer syncs)
+     */
+    public CompletableFuture<Void> write(final Collection<?> batch,
+            final Format format, final String directory,
+            final String filename, final Charset charset,
+            final WriteOption... options) {
+        return submit(batch, Serializer.formatter(format, charset),
+                directory, filename, charset, options);
+    }
+
+    /**
+     * Stops accepting batches, waits for the submitted ones to be written
+     * and stops the writer threads.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        var interrupted = false;
+        for (final var queue : queues) {
+            while (true) {
+                try {
+                    queue.put(CLOSE);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        for (final var writer : writers) {
+            while (true) {
+                try {
+                    writer.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues a batch for the writer of its file.
+     * @param batch objects to write
+     * @param formatter a function used to serialize each object
+     * @param directory name of the directory of the file
+     * @param filename name of the file
+     * @param charset charset to use
+     * @param options options of the export
+     * @return a future completed when the batch is written
+     */
+    private CompletableFuture<Void> submit(final Collection<?> batch,
+            final Formatter formatter, final String directory,
+            final String filename, final Charset charset,
+            final WriteOption... options) {
+        if (closed) {
+            throw new IllegalStateException("AsyncSerializer is closed");
+        }
+        final var writeOptions = WriteOptions.of(options);
+        if (writeOptions.rolling() != null) {
+            throw new IllegalArgumentException(
+                    "Rolling output is not supported by AsyncSerializer");
+        }
+        final var file = Serializer.resolve(workingDir, directory, filename);
+        final var res = new CompletableFuture<Void>();
+        final var task = new Batch(res, () -> {
+            Serializer.append(batch.stream(), formatter, file, charset,
+                    writeOptions);
+            if (sync) {
+                force(file);
+            }
+        });
+        final var queue = queues.get(Math.floorMod(
+                file.toAbsolutePath().normalize().hashCode(), queues.size()));
+        try {
+            queue.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while submitting", e);
+        }
+        return res;
+    }
+
+    /**
+     * Writes batches of a queue until the serializer is closed.
+     * Batches queued after closing are failed.
+     * @param queue a queue of a writer
+     */
+    private static void run(final BlockingQueue<Batch> queue) {
+        Batch batch;
+        while ((batch = take(queue)) != CLOSE) {
+            try {
+                batch.write.run();
+                batch.future.complete(null);
+            } catch (Throwable e) {
+                batch.future.completeExceptionally(e);
+            }
+        }
+        while ((batch = queue.poll()) != null) {
+            if (batch != CLOSE) {
+                batch.future.completeExceptionally(
+                        new IllegalStateException("AsyncSerializer is closed"));
+            }
+        }
+    }
+
+    /**
+     * Takes the next batch of a queue.
+     * @param queue a queue of a writer
+     * @return the batch, CLOSE if the writer is interrupted
+     */
+    private static Batch take(final BlockingQueue<Batch> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CLOSE;
+        }
+    }
+
+    /**
+     * Forces the content of a specified file to the disk.
+     * @param file a path to the file
+     * @throws IOException if the file cannot be synced
+     */
+    private static void force(final Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Creates a factory of virtual threads if the JVM supports them,
+     * otherwise a factory of daemon platform threads.
+     * @return the thread factory
+     */
+    private static ThreadFactory defaultThreadFactory() {
+        try {
+            final var builder = Thread.class.getMethod("ofVirtual")
+                    .invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                    .getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            final var count = new AtomicInteger();
+            return r -> {
+                final var thread = new Thread(r,
+                        "jrealize-writer-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
+    /**
+     * Batch of objects waiting to be written.
+     */
+    private static final class Batch {
+        private final CompletableFuture<Void> future;
+        private final Write write;
+
+        /**
+         * Constructs new batch.
+         * @param future a future to complete when the batch is written
+         * @param write the write of the batch
+         */
+        Batch(final CompletableFuture<Void> future, final Write write) {
+            this.future = future;
+            this.write = write;
+        }
+    }
+
+    /**
+     * Write of a batch which may fail with an IOException.
+     */
+    @FunctionalInterface
+    private interface Write {
+        /**
+         * Performs the write.
+         * @throws IOException if the file cannot be written
+         */
+        void run() throws IOException;
+    }
+}
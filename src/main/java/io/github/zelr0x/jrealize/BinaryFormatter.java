@@ -0,0 +1,41 @@
+package io.github.zelr0x.jrealize;
+
+/**
+ * Marker of the binary columnar format in the write path.
+ * The format is not written row by row as text: Serializer.formatter
+ * creates this marker for Format.BINARY and append encodes objects
+ * in column blocks with BinaryWriter, so it only carries the backend
+ * used to read fields. It is never handed to callers, as
+ * Formatter.getFormatter rejects the binary format.
+ */
+final class BinaryFormatter implements Formatter {
+    private final Accessor accessor;
+
+    /**
+     * Constructs new binary formatter.
+     * @param accessor backend used to read values of fields
+     */
+    BinaryFormatter(final Accessor accessor) {
+        this.accessor = accessor;
+    }
+
+    /**
+     * Returns the backend used to read values of fields.
+     * @return the backend
+     */
+    Accessor getAccessor() {
+        return accessor;
+    }
+
+    /**
+     * Binary rows cannot be represented as Strings.
+     * @param o an object to serialize
+     * @return never returns normally
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public String format(final Object o) {
+        throw new UnsupportedOperationException(
+                "Binary format is written in column blocks by Serializer");
+    }
+}
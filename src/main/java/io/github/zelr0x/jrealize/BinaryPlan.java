@@ -0,0 +1,245 @@
+package io.github.zelr0x.jrealize;
+
+import io.github.zelr0x.jrealize.Annotation.Csv;
+import io.github.zelr0x.jrealize.Annotation.Util;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Compiled binary serialization plan of a class.
+ * Holds the fields marked with @Csv annotation in the order of their
+ * column numbers, the type codes of their columns and the encoded header
+ * of a segment of the class, so all of them are resolved once per class.
+ * Primitive columns are read with getters specialized for their types,
+ * a whole column of a block at a time, so their values are never boxed.
+ *
+ * <p>A binary file is a sequence of segments. A segment is a header
+ * followed by blocks of rows and a zero row count. The header is the
+ * magic bytes "JRLZ", a version byte, the number of columns and, for each
+ * column, its type code and its UTF-8 name prefixed with its length.
+ * A block is its row count followed by the columns of the block one after
+ * another. Primitive columns are arrays of fixed-width values, text columns
+ * are a dictionary reset flag byte, the number and the UTF-8 bytes of the
+ * strings added to the dictionary of the column and an array of int
+ * dictionary ids, -1 standing for null. All numbers are little-endian.
+ */
+final class BinaryPlan {
+    static final byte[] MAGIC = {'J', 'R', 'L', 'Z'};
+    static final byte VERSION = 1;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static final byte INT = 'I';
+    static final byte LONG = 'J';
+    static final byte SHORT = 'S';
+    static final byte BYTE = 'B';
+    static final byte DOUBLE = 'D';
+    static final byte FLOAT = 'F';
+    static final byte BOOLEAN = 'Z';
+    static final byte CHAR = 'C';
+    static final byte TEXT = 'T';
+
+    private final byte[] types;
+    private final Function<Object, Object>[] getters;
+    private final BiConsumer<Object, StringBuilder>[] appenders;
+    private final ToLongFunction<Object>[] longGetters;
+    private final ToDoubleFunction<Object>[] doubleGetters;
+    private final byte[] header;
+
+    /**
+     * Compiles a plan for a specified class.
+     * @param clazz a class which fields marked with @Csv to gather
+     * @param accessor a backend to read the fields with
+     */
+    @SuppressWarnings("unchecked")
+    BinaryPlan(final Class<?> clazz, final Accessor accessor) {
+        final var fields = Util.getAnnotatedFields(clazz, Csv.class)
+                .sorted(Comparator.comparingInt(
+                        f -> f.getAnnotation(Csv.class).col()))
+                .toArray(Field[]::new);
+        this.types = new byte[fields.length];
+        this.getters = new Function[fields.length];
+        this.appenders = new BiConsumer[fields.length];
+        this.longGetters = new ToLongFunction[fields.length];
+        this.doubleGetters = new ToDoubleFunction[fields.length];
+        final var names = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            types[i] = typeOf(fields[i].getType());
+            if (types[i] == TEXT) {
+                getters[i] = accessor.getter(fields[i]);
+                appenders[i] = CsvValues.appender(fields[i]);
+            } else if (isFloating(types[i])) {
+                doubleGetters[i] = accessor.doubleGetter(fields[i]);
+            } else {
+                longGetters[i] = accessor.longGetter(fields[i]);
+            }
+            names[i] = fields[i].getName();
+        }
+        this.header = header(types, names);
+    }
+
+    /**
+     * Returns the code of the column of a field of a specified type.
+     * Types other than primitives are written as text.
+     * @param type a type of a field
+     * @return the type code of the column
+     */
+    static byte typeOf(final Class<?> type) {
+        if (type == int.class) {
+            return INT;
+        } else if (type == long.class) {
+            return LONG;
+        } else if (type == short.class) {
+            return SHORT;
+        } else if (type == byte.class) {
+            return BYTE;
+        } else if (type == double.class) {
+            return DOUBLE;
+        } else if (type == float.class) {
+            return FLOAT;
+        } else if (type == boolean.class) {
+            return BOOLEAN;
+        } else if (type == char.class) {
+            return CHAR;
+        }
+        return TEXT;
+    }
+
+    /**
+     * Checks if a primitive column is read as doubles.
+     * @param type a type code of a primitive column
+     * @return true for float and double columns
+     */
+    static boolean isFloating(final byte type) {
+        return type == DOUBLE || type == FLOAT;
+    }
+
+    /**
+     * Returns the width of a value of a primitive column.
+     * @param type a type code of a primitive column
+     * @return the number of bytes of a single value
+     */
+    static int widthOf(final byte type) {
+        switch (type) {
+            case LONG:
+            case DOUBLE:
+                return Long.BYTES;
+            case INT:
+            case FLOAT:
+                return Integer.BYTES;
+            case SHORT:
+            case CHAR:
+                return Short.BYTES;
+            default:
+                return Byte.BYTES;
+        }
+    }
+
+    /**
+     * Returns the number of columns of this plan.
+     * @return the number of fields marked with @Csv
+     */
+    int columnCount() {
+        return types.length;
+    }
+
+    /**
+     * Returns the type code of a specified column.
+     * @param column index of a column starting from 0
+     * @return the type code
+     */
+    byte type(final int column) {
+        return types[column];
+    }
+
+    /**
+     * Reads the value of a specified text column of an object.
+     * @param column index of a text column starting from 0
+     * @param obj an object of the class of this plan
+     * @return the value
+     */
+    Object get(final int column, final Object obj) {
+        return getters[column].apply(obj);
+    }
+
+    /**
+     * Appends a value of a specified text column the way CSV writes it.
+     * @param column index of a text column starting from 0
+     * @param value a value of the column, not null
+     * @param out a buffer to append to
+     */
+    void appendText(final int column, final Object value,
+                    final StringBuilder out) {
+        appenders[column].accept(value, out);
+    }
+
+    /**
+     * Reads the values of a specified integral, char or boolean column
+     * of a block of objects.
+     * @param column index of the column starting from 0
+     * @param rows objects of the class of this plan
+     * @param out an array to store the values in, see
+     *            {@link Accessor#longGetter}
+     */
+    void read(final int column, final List<?> rows, final long[] out) {
+        final var getter = longGetters[column];
+        for (int r = 0; r < rows.size(); r++) {
+            out[r] = getter.applyAsLong(rows.get(r));
+        }
+    }
+
+    /**
+     * Reads the values of a specified float or double column of a block
+     * of objects.
+     * @param column index of the column starting from 0
+     * @param rows objects of the class of this plan
+     * @param out an array to store the values in
+     */
+    void read(final int column, final List<?> rows, final double[] out) {
+        final var getter = doubleGetters[column];
+        for (int r = 0; r < rows.size(); r++) {
+            out[r] = getter.applyAsDouble(rows.get(r));
+        }
+    }
+
+    /**
+     * Returns the encoded header of a segment of the class of this plan.
+     * @return read-only view of the header
+     */
+    ByteBuffer header() {
+        return ByteBuffer.wrap(header).asReadOnlyBuffer();
+    }
+
+    /**
+     * Encodes a header of a segment.
+     * @param types type codes of the columns
+     * @param names names of the columns
+     * @return the header
+     */
+    private static byte[] header(final byte[] types, final String[] names) {
+        final var encodedNames = new byte[names.length][];
+        var size = MAGIC.length + Byte.BYTES + Integer.BYTES;
+        for (int i = 0; i < names.length; i++) {
+            encodedNames[i] = names[i].getBytes(StandardCharsets.UTF_8);
+            size += Byte.BYTES + Integer.BYTES + encodedNames[i].length;
+        }
+        final var out = ByteBuffer.allocate(size).order(ORDER)
+                .put(MAGIC)
+                .put(VERSION)
+                .putInt(types.length);
+        for (int i = 0; i < types.length; i++) {
+            out.put(types[i])
+                    .putInt(encodedNames[i].length)
+                    .put(encodedNames[i]);
+        }
+        return out.array();
+    }
+}
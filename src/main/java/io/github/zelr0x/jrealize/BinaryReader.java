@@ -0,0 +1,242 @@
+package io.github.zelr0x.jrealize;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads objects written in the binary columnar format described
+ * in BinaryPlan. Blocks are decoded column by column and objects
+ * are created row by row with the CSV deserialization plan of the class,
+ * so columns are parsed into fields the same way CSV columns are.
+ */
+final class BinaryReader {
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final int NULL_ID = -1;
+
+    private final ReadableByteChannel in;
+    private final CsvReadPlan plan;
+    private final byte[] types;
+    private final List<List<String>> dictionaries;
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE)
+            .order(BinaryPlan.ORDER);
+    private Object[][] columns;
+    private int rows;
+    private int next;
+    private long row;
+    private boolean inSegment;
+
+    /**
+     * Constructs new binary reader.
+     * @param type class of objects to read
+     * @param in a channel to read from
+     */
+    BinaryReader(final Class<?> type, final ReadableByteChannel in) {
+        this.in = in;
+        this.plan = CsvReadPlan.of(type);
+        this.types = new byte[plan.columnCount()];
+        this.dictionaries = new ArrayList<>(types.length);
+        for (int i = 0; i < types.length; i++) {
+            types[i] = BinaryPlan.typeOf(plan.column(i).getType());
+            dictionaries.add(new ArrayList<>());
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Reads the next object.
+     * @return the object or null if the end of the input is reached
+     * @throws IOException if the input cannot be read or is malformed
+     */
+    Object next() throws IOException {
+        while (next == rows) {
+            if (!nextBlock()) return null;
+        }
+        final var values = new Object[types.length];
+        for (int c = 0; c < types.length; c++) {
+            values[c] = columns[c][next];
+        }
+        next++;
+        return plan.create(values, ++row);
+    }
+
+    /**
+     * Decodes the next block, reading a segment header first if necessary.
+     * @return false if the end of the input is reached
+     * @throws IOException if the input cannot be read or is malformed
+     */
+    private boolean nextBlock() throws IOException {
+        if (!inSegment) {
+            if (atEnd()) return false;
+            readHeader();
+            inSegment = true;
+        }
+        require(Integer.BYTES);
+        rows = buffer.getInt();
+        next = 0;
+        if (rows == 0) {
+            inSegment = false;
+            return true;
+        }
+        if (columns == null || columns[0].length < rows) {
+            columns = new Object[types.length][rows];
+        }
+        for (int c = 0; c < types.length; c++) {
+            if (types[c] == BinaryPlan.TEXT) {
+                readText(c);
+            } else {
+                require(rows * BinaryPlan.widthOf(types[c]));
+                for (int r = 0; r < rows; r++) {
+                    columns[c][r] = getPrimitive(types[c]);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a segment header checking it against the read plan.
+     * @throws IOException if the input cannot be read or is malformed
+     */
+    private void readHeader() throws IOException {
+        require(BinaryPlan.MAGIC.length + Byte.BYTES + Integer.BYTES);
+        final var magic = new byte[BinaryPlan.MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, BinaryPlan.MAGIC)) {
+            throw new IOException("Not a jrealize binary segment");
+        }
+        final var version = buffer.get();
+        if (version != BinaryPlan.VERSION) {
+            throw new IOException("Unsupported version " + version);
+        }
+        final var count = buffer.getInt();
+        if (count != types.length) {
+            throw new IllegalArgumentException("Segment has " + count
+                    + " columns, reading " + types.length);
+        }
+        for (int c = 0; c < count; c++) {
+            require(Byte.BYTES + Integer.BYTES);
+            final var type = buffer.get();
+            final var name = readString();
+            final var field = plan.column(c);
+            if (type != types[c] || !name.equals(field.getName())) {
+                throw new IllegalArgumentException("Column " + (c + 1)
+                        + " is " + name + " of type " + (char) type
+                        + ", field " + field.getName() + " needs type "
+                        + (char) types[c]);
+            }
+        }
+        for (final var dictionary : dictionaries) {
+            dictionary.clear();
+        }
+    }
+
+    /**
+     * Decodes a text column of the current block.
+     * @param column index of the column
+     * @throws IOException if the input cannot be read or is malformed
+     */
+    private void readText(final int column) throws IOException {
+        final var dictionary = dictionaries.get(column);
+        require(Byte.BYTES + Integer.BYTES);
+        if (buffer.get() != 0) {
+            dictionary.clear();
+        }
+        final var added = buffer.getInt();
+        for (int i = 0; i < added; i++) {
+            require(Integer.BYTES);
+            dictionary.add(readString());
+        }
+        require(rows * Integer.BYTES);
+        for (int r = 0; r < rows; r++) {
+            final var id = buffer.getInt();
+            columns[column][r] = id == NULL_ID
+                    ? null
+                    : plan.parse(column, dictionary.get(id), row + r + 1);
+        }
+    }
+
+    /**
+     * Reads a UTF-8 string which length has already been buffered.
+     * @return the string
+     * @throws IOException if the input cannot be read
+     */
+    private String readString() throws IOException {
+        final var length = buffer.getInt();
+        require(length);
+        final var res = new String(buffer.array(),
+                buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return res;
+    }
+
+    /**
+     * Gets a value of a primitive column.
+     * @param type the type code of the column
+     * @return the boxed value
+     */
+    private Object getPrimitive(final byte type) {
+        switch (type) {
+            case BinaryPlan.INT:
+                return buffer.getInt();
+            case BinaryPlan.LONG:
+                return buffer.getLong();
+            case BinaryPlan.SHORT:
+                return buffer.getShort();
+            case BinaryPlan.BYTE:
+                return buffer.get();
+            case BinaryPlan.DOUBLE:
+                return buffer.getDouble();
+            case BinaryPlan.FLOAT:
+                return buffer.getFloat();
+            case BinaryPlan.BOOLEAN:
+                return buffer.get() != 0;
+            default:
+                return buffer.getChar();
+        }
+    }
+
+    /**
+     * Checks if there is no more input.
+     * @return true if the end of the input is reached
+     * @throws IOException if the input cannot be read
+     */
+    private boolean atEnd() throws IOException {
+        if (buffer.hasRemaining()) return false;
+        buffer.clear();
+        final var read = in.read(buffer);
+        buffer.flip();
+        return read < 0;
+    }
+
+    /**
+     * Makes sure a specified number of bytes is buffered,
+     * growing the buffer if necessary.
+     * @param bytes number of bytes to buffer
+     * @throws IOException if the input ends before
+     */
+    private void require(final int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) return;
+        if (buffer.capacity() < bytes) {
+            final var grown = ByteBuffer.allocate(
+                    Math.max(bytes, buffer.capacity() * 2))
+                    .order(BinaryPlan.ORDER);
+            grown.put(buffer);
+            buffer = grown;
+        } else {
+            buffer.compact();
+        }
+        while (buffer.position() < bytes) {
+            if (in.read(buffer) < 0) {
+                throw new EOFException("Truncated binary input");
+            }
+        }
+        buffer.flip();
+    }
+}
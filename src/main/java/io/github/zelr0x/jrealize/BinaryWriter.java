@@ -0,0 +1,290 @@
+package io.github.zelr0x.jrealize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes objects in the binary columnar format described in BinaryPlan.
+ * Rows are gathered into blocks which are encoded column by column into
+ * a reusable direct buffer and written to the channel with a single write,
+ * which a FileChannel does without copying the block again.
+ * Strings are dictionary-encoded per column: each distinct string is
+ * written once and referred to by its id afterwards, until the dictionary
+ * of the column grows too big and is reset.
+ * Values of text columns are converted the same way CSV converts them.
+ * A new segment is started whenever the class of the objects changes.
+ * Primitive columns are read a column at a time into reusable primitive
+ * arrays and then encoded in a loop specialized for the type of the
+ * column, so encoding them neither boxes nor allocates.
+ * Each block is reported to the metrics listener as a batch.
+ */
+final class BinaryWriter {
+    private static final int BLOCK_ROWS = 4096;
+    private static final int MAX_DICTIONARY_SIZE = 64 * 1024;
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final int NULL_ID = -1;
+
+    private final WritableByteChannel out;
+    private final Accessor accessor;
+    private final MetricsListener listener;
+    private final List<Object> block = new ArrayList<>(BLOCK_ROWS);
+    private final int[] ids = new int[BLOCK_ROWS];
+    private final long[] longs = new long[BLOCK_ROWS];
+    private final double[] doubles = new double[BLOCK_ROWS];
+    private final List<byte[]> added = new ArrayList<>();
+    private final StringBuilder textBuffer = new StringBuilder();
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE)
+            .order(BinaryPlan.ORDER);
+    private Class<?> type;
+    private BinaryPlan plan;
+    private List<Map<String, Integer>> dictionaries;
+    private long rows;
+
+    /**
+     * Constructs new binary writer.
+     * @param out a channel to write to
+     * @param accessor backend used to read values of fields
+     * @param listener listener receiving measurements of written blocks
+     */
+    private BinaryWriter(final WritableByteChannel out,
+                         final Accessor accessor,
+                         final MetricsListener listener) {
+        this.out = out;
+        this.accessor = accessor;
+        this.listener = listener;
+    }
+
+    /**
+     * Writes objects to a specified channel.
+     * @param items objects to write
+     * @param accessor backend used to read values of fields
+     * @param out a channel to write to
+     * @param listener listener receiving measurements of written blocks
+     * @return number of objects written
+     * @throws IOException if a block cannot be written
+     */
+    static long write(final Iterator<?> items, final Accessor accessor,
+                      final WritableByteChannel out,
+                      final MetricsListener listener) throws IOException {
+        final var writer = new BinaryWriter(out, accessor, listener);
+        while (items.hasNext()) {
+            writer.add(items.next());
+        }
+        writer.endSegment();
+        return writer.rows;
+    }
+
+    /**
+     * Adds an object to the current block writing the block if it is full.
+     * @param item an object to write
+     * @throws IOException if a block cannot be written
+     */
+    private void add(final Object item) throws IOException {
+        if (item.getClass() != type) {
+            endSegment();
+            startSegment(item.getClass());
+        }
+        block.add(item);
+        if (block.size() == BLOCK_ROWS) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Writes the header of a segment of a specified class.
+     * @param clazz the class of the objects of the segment
+     * @throws IOException if the header cannot be written
+     */
+    private void startSegment(final Class<?> clazz) throws IOException {
+        type = clazz;
+        plan = accessor.binaryPlan(clazz);
+        dictionaries = new ArrayList<>(plan.columnCount());
+        for (int i = 0; i < plan.columnCount(); i++) {
+            dictionaries.add(new HashMap<>());
+        }
+        final var header = plan.header();
+        ensure(header.remaining());
+        buffer.put(header);
+        flush();
+    }
+
+    /**
+     * Writes the remaining rows and the end of the current segment.
+     * @throws IOException if the rows cannot be written
+     */
+    private void endSegment() throws IOException {
+        if (plan == null) return;
+        writeBlock();
+        ensure(Integer.BYTES);
+        buffer.putInt(0);
+        flush();
+    }
+
+    /**
+     * Encodes the current block and writes it.
+     * @throws IOException if the block cannot be written
+     */
+    private void writeBlock() throws IOException {
+        if (block.isEmpty()) return;
+        final var start = System.nanoTime();
+        final var blockRows = block.size();
+        ensure(Integer.BYTES);
+        buffer.putInt(blockRows);
+        for (int c = 0; c < plan.columnCount(); c++) {
+            final var columnType = plan.type(c);
+            if (columnType == BinaryPlan.TEXT) {
+                writeText(c);
+            } else {
+                ensure(blockRows * BinaryPlan.widthOf(columnType));
+                if (BinaryPlan.isFloating(columnType)) {
+                    plan.read(c, block, doubles);
+                    putFloating(columnType, blockRows);
+                } else {
+                    plan.read(c, block, longs);
+                    putIntegral(columnType, blockRows);
+                }
+            }
+        }
+        block.clear();
+        rows += blockRows;
+        final var encoded = System.nanoTime();
+        flush();
+        if (listener != MetricsListener.NOOP) {
+            listener.batchWritten(blockRows, encoded - start,
+                    System.nanoTime() - encoded);
+        }
+    }
+
+    /**
+     * Encodes a text column of the current block.
+     * @param column index of the column
+     */
+    private void writeText(final int column) {
+        final var dictionary = dictionaries.get(column);
+        final var reset = dictionary.size() >= MAX_DICTIONARY_SIZE;
+        if (reset) {
+            dictionary.clear();
+        }
+        added.clear();
+        var size = 0;
+        for (int r = 0; r < block.size(); r++) {
+            final var value = plan.get(column, block.get(r));
+            if (value == null) {
+                ids[r] = NULL_ID;
+                continue;
+            }
+            textBuffer.setLength(0);
+            plan.appendText(column, value, textBuffer);
+            final var text = textBuffer.toString();
+            var id = dictionary.get(text);
+            if (id == null) {
+                id = dictionary.size();
+                dictionary.put(text, id);
+                final var bytes = text.getBytes(StandardCharsets.UTF_8);
+                added.add(bytes);
+                size += Integer.BYTES + bytes.length;
+            }
+            ids[r] = id;
+        }
+        ensure(Byte.BYTES + Integer.BYTES + size
+                + block.size() * Integer.BYTES);
+        buffer.put((byte) (reset ? 1 : 0));
+        buffer.putInt(added.size());
+        for (final var bytes : added) {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+        for (int r = 0; r < block.size(); r++) {
+            buffer.putInt(ids[r]);
+        }
+    }
+
+    /**
+     * Puts the values of an integral, char or boolean column read
+     * into the long array.
+     * @param columnType the type code of the column
+     * @param count number of values
+     */
+    private void putIntegral(final byte columnType, final int count) {
+        switch (columnType) {
+            case BinaryPlan.INT:
+                for (int r = 0; r < count; r++) {
+                    buffer.putInt((int) longs[r]);
+                }
+                break;
+            case BinaryPlan.LONG:
+                for (int r = 0; r < count; r++) {
+                    buffer.putLong(longs[r]);
+                }
+                break;
+            case BinaryPlan.SHORT:
+                for (int r = 0; r < count; r++) {
+                    buffer.putShort((short) longs[r]);
+                }
+                break;
+            case BinaryPlan.CHAR:
+                for (int r = 0; r < count; r++) {
+                    buffer.putChar((char) longs[r]);
+                }
+                break;
+            default:
+                for (int r = 0; r < count; r++) {
+                    buffer.put((byte) longs[r]);
+                }
+        }
+    }
+
+    /**
+     * Puts the values of a float or double column read into
+     * the double array.
+     * @param columnType the type code of the column
+     * @param count number of values
+     */
+    private void putFloating(final byte columnType, final int count) {
+        if (columnType == BinaryPlan.DOUBLE) {
+            for (int r = 0; r < count; r++) {
+                buffer.putDouble(doubles[r]);
+            }
+        } else {
+            for (int r = 0; r < count; r++) {
+                buffer.putFloat((float) doubles[r]);
+            }
+        }
+    }
+
+    /**
+     * Grows the buffer so that it can take a specified number of bytes.
+     * @param bytes number of bytes to put
+     */
+    private void ensure(final int bytes) {
+        if (buffer.remaining() >= bytes) return;
+        var capacity = buffer.capacity();
+        while (capacity - buffer.position() < bytes) {
+            capacity *= 2;
+        }
+        final var grown = ByteBuffer.allocateDirect(capacity)
+                .order(BinaryPlan.ORDER);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+
+    /**
+     * Writes the buffer to the channel.
+     * @throws IOException if the buffer cannot be written
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+}
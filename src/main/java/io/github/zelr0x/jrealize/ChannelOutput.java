@@ -0,0 +1,57 @@
+package io.github.zelr0x.jrealize;
+
+/**
+ * Option that writes the file through a FileChannel instead of
+ * a BufferedWriter. Rows are encoded in the target charset straight into
+ * a large direct byte buffer which is written in one block when full,
+ * or into consecutive memory-mapped regions of the file.
+ */
+public final class ChannelOutput implements WriteOption {
+    /**
+     * Default size of the byte buffer or mapped region - 1 MiB.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    private final int bufferSize;
+    private final boolean mapped;
+
+    /**
+     * Constructs an option that writes through a direct byte buffer
+     * of default size.
+     */
+    public ChannelOutput() {
+        this(DEFAULT_BUFFER_SIZE, false);
+    }
+
+    /**
+     * Constructs an option with a specified buffer size.
+     * @param bufferSize size of the byte buffer or mapped region in bytes
+     * @param mapped whether to map regions of the file into memory instead
+     *               of writing a direct buffer. The file is truncated to
+     *               the written size when the export is finished
+     */
+    public ChannelOutput(final int bufferSize, final boolean mapped) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException(
+                    "Buffer size must be positive: " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+        this.mapped = mapped;
+    }
+
+    /**
+     * Returns the size of the byte buffer or mapped region.
+     * @return size in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns whether regions of the file are mapped into memory.
+     * @return true if the output is memory-mapped
+     */
+    public boolean isMapped() {
+        return mapped;
+    }
+}
@@ -0,0 +1,179 @@
+package io.github.zelr0x.jrealize;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writer that appends to a file through a FileChannel.
+ * Characters are staged in a small heap buffer and encoded in bulk
+ * (array-backed buffers take the fast path of JDK encoders), then copied
+ * into a large direct byte buffer which is written to the channel when
+ * full, or into a memory-mapped region of the file which is replaced
+ * with the next one when full.
+ * Characters the charset cannot encode are reported with
+ * a CharacterCodingException, as the writers of the other outputs
+ * report them, rather than replaced. The file is still truncated to
+ * the bytes encoded before the error, so a mapped region never leaves
+ * zeros at its end.
+ */
+final class ChannelWriter extends Writer {
+    private static final int STAGE_SIZE = 8192;
+
+    private final FileChannel channel;
+    private final CharsetEncoder encoder;
+    private final boolean mapped;
+    private final int bufferSize;
+    private final CharBuffer chars = CharBuffer.allocate(STAGE_SIZE);
+    private final ByteBuffer encoded;
+    private ByteBuffer bytes;
+    /**
+     * Position of the current mapped region in the file.
+     */
+    private long regionStart;
+
+    /**
+     * Opens a file for appending.
+     * @param filePath path to the file
+     * @param charset charset to encode characters with
+     * @param options buffer options
+     * @throws IOException if the file cannot be opened
+     */
+    ChannelWriter(final Path filePath, final Charset charset,
+                  final ChannelOutput options) throws IOException {
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        this.encoded = ByteBuffer.allocate(
+                (int) Math.ceil(STAGE_SIZE * encoder.maxBytesPerChar()));
+        this.mapped = options.isMapped();
+        this.bufferSize = options.getBufferSize();
+        if (mapped) {
+            this.channel = FileChannel.open(filePath, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+            this.regionStart = channel.size();
+            this.bytes = channel.map(FileChannel.MapMode.READ_WRITE,
+                    regionStart, bufferSize);
+        } else {
+            this.channel = FileChannel.open(filePath,
+                    StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+            this.bytes = ByteBuffer.allocateDirect(bufferSize);
+        }
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len)
+            throws IOException {
+        var from = off;
+        final var to = off + len;
+        while (from < to) {
+            final var n = Math.min(to - from, chars.remaining());
+            chars.put(cbuf, from, n);
+            from += n;
+            if (!chars.hasRemaining()) {
+                encodeStaged(false);
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        encodeStaged(false);
+        if (!mapped) {
+            drain();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) return;
+        try {
+            encodeStaged(true);
+            encoded.clear();
+            encoder.flush(encoded);
+            copyEncoded();
+        } finally {
+            try {
+                if (mapped) {
+                    channel.truncate(regionStart + bytes.position());
+                } else {
+                    drain();
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Encodes staged characters and copies the bytes to the output buffer.
+     * A trailing high surrogate stays staged until its pair arrives.
+     * @param endOfInput whether there will be no more characters
+     * @throws IOException if the output buffer cannot be written
+     */
+    private void encodeStaged(final boolean endOfInput) throws IOException {
+        chars.flip();
+        encoded.clear();
+        final CoderResult res = encoder.encode(chars, encoded, endOfInput);
+        chars.compact();
+        if (res.isError()) {
+            res.throwException();
+        }
+        copyEncoded();
+    }
+
+    /**
+     * Copies encoded bytes to the output buffer moving to the next buffer
+     * whenever it is full.
+     * @throws IOException if the output buffer cannot be written
+     */
+    private void copyEncoded() throws IOException {
+        encoded.flip();
+        while (encoded.hasRemaining()) {
+            if (!bytes.hasRemaining()) {
+                next();
+            }
+            final var n = Math.min(encoded.remaining(), bytes.remaining());
+            final var limit = encoded.limit();
+            encoded.limit(encoded.position() + n);
+            bytes.put(encoded);
+            encoded.limit(limit);
+        }
+    }
+
+    /**
+     * Makes room for more bytes: writes the direct buffer to the channel
+     * or maps the next region of the file.
+     * @throws IOException if the buffer cannot be written
+     */
+    private void next() throws IOException {
+        if (mapped) {
+            regionStart += bytes.position();
+            bytes = channel.map(FileChannel.MapMode.READ_WRITE,
+                    regionStart, bufferSize);
+        } else {
+            drain();
+        }
+    }
+
+    /**
+     * Writes the contents of the direct buffer to the channel.
+     * @throws IOException if the buffer cannot be written
+     */
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
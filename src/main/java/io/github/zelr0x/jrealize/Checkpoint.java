@@ -0,0 +1,58 @@
+package io.github.zelr0x.jrealize;
+
+/**
+ * Option that makes an export resumable.
+ * Every number of rows the file is flushed to the disk and the number
+ * of rows and bytes written so far is saved to a sidecar file next to it
+ * ("employees.csv.checkpoint"). If the export dies, running it again
+ * with the same input truncates the file to the last checkpoint,
+ * dropping any partially written rows, skips the input rows already
+ * written and continues from there. The sidecar file is deleted when
+ * the export finishes.
+ * Checkpointed output cannot be compressed, split into parts, written
+ * to a channel or written in parallel out of order, and the binary
+ * format cannot be checkpointed.
+ */
+public final class Checkpoint implements WriteOption {
+    /**
+     * Default number of rows between checkpoints.
+     */
+    public static final long DEFAULT_INTERVAL = 100_000;
+
+    /**
+     * Suffix appended to the file name to name its sidecar file.
+     */
+    public static final String SUFFIX = ".checkpoint";
+
+    private final long interval;
+
+    /**
+     * Constructs an option that saves a checkpoint every
+     * DEFAULT_INTERVAL rows.
+     */
+    public Checkpoint() {
+        this(DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Constructs an option that saves a checkpoint every number of rows.
+     * Each checkpoint syncs the file to the disk, so rare checkpoints
+     * are cheaper and frequent ones lose less work.
+     * @param interval number of rows between checkpoints
+     */
+    public Checkpoint(final long interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException(
+                    "Interval must be positive: " + interval);
+        }
+        this.interval = interval;
+    }
+
+    /**
+     * Returns the number of rows between checkpoints.
+     * @return the number of rows
+     */
+    public long getInterval() {
+        return interval;
+    }
+}
@@ -0,0 +1,254 @@
+package io.github.zelr0x.jrealize;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Appends rows to a file saving checkpoints to its sidecar file,
+ * see {@link Checkpoint}. Rows are written in segments of the checkpoint
+ * interval; after each segment the file is flushed and synced and only
+ * then the checkpoint is replaced, so a checkpoint never points past
+ * the data on the disk. The first checkpoint is saved before anything
+ * is written and points at the end of the file as it was, so an export
+ * dying before its first segment is redone from the start, prefix
+ * included. A checkpoint is a text file with "rows" and "bytes" lines.
+ */
+final class CheckpointWriter {
+    private static final String ROWS = "rows=";
+    private static final String BYTES = "bytes=";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Prevents instantiation.
+     */
+    private CheckpointWriter() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Formats objects and appends them to a specified file, resuming
+     * from its checkpoint if there is one.
+     * @param items all objects of the export, including written ones
+     * @param formatter a function used to serialize each object
+     * @param file path to the file
+     * @param charset charset to use
+     * @param options options of the export including the checkpoint option
+     * @param listener listener receiving measurements of the export
+     * @return number of objects written by this call
+     * @throws IOException if the file or its checkpoint cannot be written
+     */
+    static long write(final Iterator<?> items, final Formatter formatter,
+                      final Path file, final Charset charset,
+                      final WriteOptions options,
+                      final MetricsListener listener) throws IOException {
+        if (formatter instanceof BinaryFormatter) {
+            throw new IllegalArgumentException(
+                    "Binary output cannot be checkpointed");
+        }
+        final var interval = options.checkpoint().getInterval();
+        final var sidecar = file.resolveSibling(
+                file.getFileName() + Checkpoint.SUFFIX);
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            var rows = 0L;
+            if (Files.exists(sidecar)) {
+                final var saved = load(sidecar);
+                rows = saved[0];
+                if (channel.size() < saved[1]) {
+                    throw new IOException(file + " is shorter than"
+                            + " its checkpoint, it was changed since");
+                }
+                channel.truncate(saved[1]);
+                skip(items, rows);
+            } else {
+                save(sidecar, 0, channel.size());
+            }
+            final var skipped = rows;
+            channel.position(channel.size());
+            final Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    Channels.newOutputStream(channel), charset.newEncoder()));
+            if (rows == 0) {
+                writer.write(formatter.prefix());
+            }
+            final var buffer = new RowBuffer(listener);
+            while (items.hasNext()) {
+                if (rows > 0) {
+                    writer.write(formatter.separator());
+                }
+                final var segment = new Segment(items, interval);
+                if (options.parallel() != null) {
+                    rows += ParallelWriter.write(segment, formatter, writer,
+                            options.parallel(), listener);
+                } else {
+                    rows += write(segment, formatter, writer, buffer);
+                }
+                writer.flush();
+                channel.force(false);
+                save(sidecar, rows, channel.position());
+            }
+            writer.write(formatter.suffix());
+            writer.flush();
+            channel.force(false);
+            Files.delete(sidecar);
+            return rows - skipped;
+        }
+    }
+
+    /**
+     * Checks if an export starts writing a specified file from its
+     * beginning, either because the file is empty or because it is
+     * resumed from a checkpoint saved when the file was empty.
+     * @param file path to the file
+     * @return true if nothing is kept from the file
+     * @throws IOException if the file or its checkpoint cannot be read
+     */
+    static boolean startsEmpty(final Path file) throws IOException {
+        final var sidecar = file.resolveSibling(
+                file.getFileName() + Checkpoint.SUFFIX);
+        return Files.exists(sidecar)
+                ? load(sidecar)[1] == 0
+                : Files.size(file) == 0;
+    }
+
+    /**
+     * Checks if an export of a specified file resumes from a checkpoint,
+     * continuing the document an earlier export has started.
+     * @param file path to the file
+     * @return true if the file has a checkpoint
+     */
+    static boolean resumes(final Path file) {
+        return Files.exists(file.resolveSibling(
+                file.getFileName() + Checkpoint.SUFFIX));
+    }
+
+    /**
+     * Writes objects of a segment.
+     * @param segment objects of the segment
+     * @param formatter a function used to serialize each object
+     * @param writer a writer to write the rows to
+     * @param buffer the buffer of the export
+     * @return number of objects written
+     * @throws IOException if a row cannot be written
+     */
+    private static long write(final Iterator<?> segment,
+            final Formatter formatter, final Writer writer,
+            final RowBuffer buffer) throws IOException {
+        final var separator = formatter.separator();
+        final var start = buffer.rows();
+        while (segment.hasNext()) {
+            if (buffer.rows() > start) {
+                writer.write(separator);
+            }
+            buffer.write(segment.next(), formatter, writer);
+        }
+        buffer.endBatch();
+        return buffer.rows() - start;
+    }
+
+    /**
+     * Skips objects written before the checkpoint.
+     * @param items all objects of the export
+     * @param rows number of written objects
+     */
+    private static void skip(final Iterator<?> items, final long rows) {
+        for (long i = 0; i < rows; i++) {
+            if (!items.hasNext()) {
+                throw new IllegalStateException("Input has " + i
+                        + " rows but " + rows + " are already written");
+            }
+            items.next();
+        }
+    }
+
+    /**
+     * Reads a checkpoint.
+     * @param sidecar path to the sidecar file
+     * @return written rows and bytes
+     * @throws IOException if the checkpoint cannot be read or is corrupted
+     */
+    private static long[] load(final Path sidecar) throws IOException {
+        final var lines = Files.readAllLines(sidecar,
+                StandardCharsets.US_ASCII);
+        if (lines.size() != 2 || !lines.get(0).startsWith(ROWS)
+                || !lines.get(1).startsWith(BYTES)) {
+            throw new IOException("Corrupted checkpoint " + sidecar);
+        }
+        try {
+            return new long[] {
+                Long.parseLong(lines.get(0).substring(ROWS.length())),
+                Long.parseLong(lines.get(1).substring(BYTES.length()))
+            };
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupted checkpoint " + sidecar, e);
+        }
+    }
+
+    /**
+     * Replaces a checkpoint atomically. The new checkpoint is written
+     * to a temporary file and synced before it is moved over the old one.
+     * @param sidecar path to the sidecar file
+     * @param rows number of written rows
+     * @param bytes size of the file after the written rows
+     * @throws IOException if the checkpoint cannot be written
+     */
+    private static void save(final Path sidecar, final long rows,
+                             final long bytes) throws IOException {
+        final var temp = sidecar.resolveSibling(
+                sidecar.getFileName() + TEMP_SUFFIX);
+        final var text = ROWS + rows + "\n" + BYTES + bytes + "\n";
+        try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final var buffer = ByteBuffer.wrap(
+                    text.getBytes(StandardCharsets.US_ASCII));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, sidecar, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Objects of the export up to the next checkpoint.
+     */
+    private static final class Segment implements Iterator<Object> {
+        private final Iterator<?> items;
+        private long remaining;
+
+        /**
+         * Constructs new segment.
+         * @param items all objects of the export
+         * @param rows maximum number of objects of the segment
+         */
+        Segment(final Iterator<?> items, final long rows) {
+            this.items = items;
+            this.remaining = rows;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0 && items.hasNext();
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            remaining--;
+            return items.next();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package io.github.zelr0x.jrealize;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * CSV formatter dispatching on the class of each serialized object.
+ * Uses the formatter generated at compile time by the jrealize annotation
+ * processor when one exists and a reflective plan otherwise.
+ * Projected formatters always use plans of their projection, since
+ * generated formatters write all columns. A formatter with a header
+ * writes the header row of the plan of its class and projection
+ * as its prefix.
+ */
+final class CsvFormatter implements Formatter {
+    /**
+     * Must match the suffix used by the annotation processor.
+     */
+    private static final String GENERATED_SUFFIX = "_CsvFormatter";
+
+    private final String delimiter;
+    private final Accessor accessor;
+    private final boolean useGenerated;
+    private final Projection projection;
+    private final String prefix;
+
+    private final ClassValue<Formatter> formatters = new ClassValue<>() {
+        @Override
+        protected Formatter computeValue(final Class<?> type) {
+            if (projection != null) {
+                return new PlanFormatter(accessor.plan(type, projection),
+                        delimiter);
+            }
+            final var generated = useGenerated
+                    ? generated(type, delimiter)
+                    : null;
+            if (generated != null) return generated;
+            return new PlanFormatter(accessor.plan(type), delimiter);
+        }
+    };
+
+    /**
+     * Constructs new CSV formatter.
+     * @param delimiter delimiter to use
+     * @param accessor backend used to read values of fields when
+     *                 there is no generated formatter
+     * @param useGenerated whether to use generated formatters
+     */
+    CsvFormatter(final String delimiter, final Accessor accessor,
+                 final boolean useGenerated) {
+        this(delimiter, accessor, useGenerated, null, "");
+    }
+
+    /**
+     * Constructs new CSV formatter.
+     * @param delimiter delimiter to use
+     * @param accessor backend used to read values of fields when
+     *                 there is no generated formatter
+     * @param useGenerated whether to use generated formatters
+     * @param projection the columns to write or null to write all of them
+     * @param prefix the header written before all rows, empty for none
+     */
+    private CsvFormatter(final String delimiter, final Accessor accessor,
+                         final boolean useGenerated,
+                         final Projection projection, final String prefix) {
+        this.delimiter = delimiter;
+        this.accessor = accessor;
+        this.useGenerated = useGenerated;
+        this.projection = projection;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Returns a formatter writing only the columns of a projection.
+     * @param columns the columns to write
+     * @return the formatter, this formatter if it writes the same columns
+     */
+    CsvFormatter project(final Projection columns) {
+        return columns.equals(projection)
+                ? this
+                : new CsvFormatter(delimiter, accessor, false, columns,
+                        prefix);
+    }
+
+    /**
+     * Returns a formatter writing a header before all rows.
+     * @param header the header option
+     * @return the formatter
+     */
+    CsvFormatter header(final Header header) {
+        final var plan = projection == null
+                ? accessor.plan(header.getType())
+                : accessor.plan(header.getType(), projection);
+        return new CsvFormatter(delimiter, accessor, useGenerated, projection,
+                header.text(plan, delimiter));
+    }
+
+    @Override
+    public String prefix() {
+        return prefix;
+    }
+
+    @Override
+    public String format(final Object o) {
+        return formatters.get(o.getClass()).format(o);
+    }
+
+    @Override
+    public void format(final Object o, final StringBuilder out) {
+        formatters.get(o.getClass()).format(o, out);
+    }
+
+    /**
+     * Instantiates the formatter generated for a specified class.
+     * @param type a class which formatter to look for
+     * @param delimiter delimiter to use
+     * @return the generated formatter or null if there is none
+     */
+    private static Formatter generated(final Class<?> type,
+                                       final String delimiter) {
+        final Class<?> generatedClass;
+        try {
+            generatedClass = Class.forName(type.getName() + GENERATED_SUFFIX,
+                    true, type.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        if (!Formatter.class.isAssignableFrom(generatedClass)) return null;
+        try {
+            return (Formatter) generatedClass.getConstructor(String.class)
+                    .newInstance(delimiter);
+        } catch (NoSuchMethodException | InstantiationException
+                | IllegalAccessException | InvocationTargetException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Formatter of a single class backed by its reflective plan.
+     */
+    private static final class PlanFormatter implements Formatter {
+        private final CsvPlan plan;
+        private final String delimiter;
+        private final boolean[] scanned;
+
+        /**
+         * Binds a plan to a delimiter.
+         * @param plan a plan of the class to format
+         * @param delimiter delimiter to use
+         */
+        PlanFormatter(final CsvPlan plan, final String delimiter) {
+            this.plan = plan;
+            this.delimiter = delimiter;
+            this.scanned = plan.scanned(delimiter);
+        }
+
+        @Override
+        public String format(final Object o) {
+            final var sb = new StringBuilder();
+            plan.format(o, delimiter, scanned, sb);
+            return sb.toString();
+        }
+
+        @Override
+        public void format(final Object o, final StringBuilder out) {
+            plan.format(o, delimiter, scanned, out);
+        }
+    }
+}
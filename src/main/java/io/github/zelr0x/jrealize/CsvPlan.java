@@ -0,0 +1,375 @@
+package io.github.zelr0x.jrealize;
+
+import io.github.zelr0x.jrealize.Annotation.Csv;
+import io.github.zelr0x.jrealize.Annotation.CsvGetter;
+import io.github.zelr0x.jrealize.Annotation.Util;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Compiled CSV serialization plan of a class.
+ * Holds the fields marked with @Csv annotation already ordered by column
+ * number, so the reflective scan of a class happens once per class
+ * instead of once per serialized object. Plans are cached per accessor
+ * backend, see {@link Accessor#plan(Class)}, and plans of projections
+ * per projection as well.
+ * A @Csv field of a type which has @Csv fields of its own and no getter
+ * marked with @CsvGetter is flattened: its columns are inlined in its
+ * place and named after the path to them ("address.city"), to any depth.
+ * A field of a type which is already being flattened higher up the path
+ * would flatten forever, so it is written as a single column as before.
+ * Columns of a nested object that is null are written empty.
+ * Values are quoted as RFC 4180 requires, see {@link CsvStrings};
+ * columns of numbers and booleans are not even scanned unless
+ * the delimiter starts with a character they can contain.
+ * Numbers and dates are written as {@link CsvValues} writes them,
+ * and @CsvFormat of every column is checked when its plan is compiled.
+ * The header row of a plan names its columns after the names set in @Csv
+ * or the names of the fields, and its fingerprint is a hash of the names
+ * and types of its columns in order, so a reader can tell with a single
+ * comparison whether a file was written with the columns it expects.
+ */
+final class CsvPlan {
+    /**
+     * Separator of field names in the names of flattened columns.
+     */
+    static final String PATH_SEPARATOR = ".";
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final ValueReader[] readers;
+    private final boolean[] numeric;
+    private final String[] names;
+    private final long fingerprint;
+
+    /**
+     * Compiles a plan for a specified class.
+     * @param clazz a class which fields marked with @Csv to gather
+     * @param accessor a backend to read the fields with
+     */
+    CsvPlan(final Class<?> clazz, final Accessor accessor) {
+        this(columns(clazz, accessor));
+    }
+
+    /**
+     * Compiles a plan of a projection of a specified class.
+     * Only the selected fields are read.
+     * @param clazz a class which fields marked with @Csv to select
+     * @param accessor a backend to read the fields with
+     * @param projection the columns to write
+     */
+    CsvPlan(final Class<?> clazz, final Accessor accessor,
+            final Projection projection) {
+        this(projection.select(clazz, columns(clazz, accessor)));
+    }
+
+    /**
+     * Compiles a plan writing specified columns.
+     * @param columns the columns in the order they are written
+     */
+    private CsvPlan(final List<Column> columns) {
+        this.readers = columns.stream()
+                .map(Column::reader)
+                .toArray(ValueReader[]::new);
+        this.numeric = new boolean[columns.size()];
+        for (int i = 0; i < numeric.length; i++) {
+            numeric[i] = isNumeric(columns.get(i).type());
+        }
+        this.names = columns.stream()
+                .map(Column::header)
+                .toArray(String[]::new);
+        var hash = FNV_OFFSET;
+        for (final var column : columns) {
+            final var text = column.header() + ':'
+                    + column.type().getName() + ';';
+            for (int i = 0; i < text.length(); i++) {
+                hash = (hash ^ text.charAt(i)) * FNV_PRIME;
+            }
+        }
+        this.fingerprint = hash;
+    }
+
+    /**
+     * Represents all values suitable for serialization from a specified object
+     * as a csv string separated with a specified delimiter.
+     * @param obj an object of the class of this plan
+     * @param delimiter a delimiter to use
+     * @return csv string representation of an object
+     */
+    String format(final Object obj, final String delimiter) {
+        final var sb = new StringBuilder();
+        format(obj, delimiter, scanned(delimiter), sb);
+        return sb.toString();
+    }
+
+    /**
+     * Appends all values suitable for serialization from a specified object
+     * to a specified buffer as a csv row separated with a specified delimiter.
+     * @param obj an object of the class of this plan
+     * @param delimiter a delimiter to use
+     * @param scanned columns which values may have to be quoted
+     *                with the delimiter, see {@link #scanned}
+     * @param out a buffer to append the row to
+     */
+    void format(final Object obj, final String delimiter,
+                final boolean[] scanned, final StringBuilder out) {
+        for (int i = 0; i < readers.length; i++) {
+            if (i > 0) {
+                out.append(delimiter);
+            }
+            final var start = out.length();
+            readers[i].append(obj, out);
+            if (scanned[i]) {
+                CsvStrings.quoteTail(out, start, delimiter);
+            }
+        }
+        out.append(LINE_SEPARATOR);
+    }
+
+    /**
+     * Finds the columns which values may have to be quoted.
+     * @param delimiter a delimiter to use
+     * @return flags of the columns in the order they are written
+     */
+    boolean[] scanned(final String delimiter) {
+        final var quotesNumbers = CsvStrings.quotesNumbers(delimiter);
+        final var res = new boolean[numeric.length];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = quotesNumbers || !numeric[i];
+        }
+        return res;
+    }
+
+    /**
+     * Returns the header row of this plan.
+     * @param delimiter a delimiter to use
+     * @return names of the columns separated with the delimiter,
+     *         followed by a line separator
+     */
+    String header(final String delimiter) {
+        final var sb = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                sb.append(delimiter);
+            }
+            sb.append(CsvStrings.quote(names[i], delimiter));
+        }
+        return sb.append(LINE_SEPARATOR).toString();
+    }
+
+    /**
+     * Returns the names of the columns of this plan.
+     * @return names of the columns in the order they are written
+     */
+    String[] names() {
+        return names.clone();
+    }
+
+    /**
+     * Returns the schema fingerprint of this plan.
+     * @return 64-bit FNV-1a hash of the names and types of the columns
+     */
+    long fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Gathers the columns of a class flattening nested @Csv types.
+     * @param clazz a class which fields marked with @Csv to gather
+     * @param accessor a backend to read the fields with
+     * @return the columns in the order they are written
+     */
+    static List<Column> columns(final Class<?> clazz,
+                                final Accessor accessor) {
+        final var res = new ArrayList<Column>();
+        final Set<Class<?>> path = new HashSet<>();
+        path.add(clazz);
+        flatten(clazz, accessor, null, null, path, res);
+        return res;
+    }
+
+    /**
+     * Adds the columns of a class, or of a nested object of that class,
+     * to a list.
+     * @param clazz a class which fields marked with @Csv to gather
+     * @param accessor a backend to read the fields with
+     * @param parent a function reading the nested object from the root
+     *               object, null for the root class itself
+     * @param outer the column of the field holding the nested object,
+     *              which names and numbers the columns of the object,
+     *              null for the root class itself
+     * @param path classes being flattened on the path to the object
+     * @param columns the list to add the columns to
+     */
+    private static void flatten(final Class<?> clazz, final Accessor accessor,
+            final Function<Object, Object> parent, final Column outer,
+            final Set<Class<?>> path, final List<Column> columns) {
+        final var fields = Util.getAnnotatedFields(clazz, Csv.class)
+                .sorted(Comparator.comparingInt(
+                        f -> f.getAnnotation(Csv.class).col()))
+                .toArray(Field[]::new);
+        for (final var field : fields) {
+            CsvValues.check(field);
+            final var csv = field.getAnnotation(Csv.class);
+            final var header = csv.name().isEmpty()
+                    ? field.getName()
+                    : csv.name();
+            final var type = field.getType();
+            final var column = outer == null
+                    ? new Column(field.getName(), header, csv.col(), type,
+                            null)
+                    : new Column(outer.name + PATH_SEPARATOR
+                            + field.getName(), outer.header + PATH_SEPARATOR
+                            + header, outer.col, type, null);
+            if (isNested(type) && path.add(type)) {
+                flatten(type, accessor, nested(parent,
+                        accessor.getter(field)), column, path, columns);
+                path.remove(type);
+            } else {
+                columns.add(new Column(column.name, column.header,
+                        column.col, type,
+                        nested(parent, accessor.csvReader(field))));
+            }
+        }
+    }
+
+    /**
+     * Checks if values of a specified type are flattened.
+     * @param type the type of a @Csv field
+     * @return true if the type has @Csv fields and no @CsvGetter
+     */
+    static boolean isNested(final Class<?> type) {
+        return !type.isPrimitive()
+                && Util.getAnnotatedFields(type, Csv.class)
+                        .findAny().isPresent()
+                && Util.findGetter(type, CsvGetter.class) == null;
+    }
+
+    /**
+     * Checks if values of a specified type are written as numbers
+     * or booleans.
+     * @param type the type of a @Csv field
+     * @return true for primitive types other than char
+     */
+    private static boolean isNumeric(final Class<?> type) {
+        return type.isPrimitive() && type != char.class;
+    }
+
+    /**
+     * Composes a function reading a nested object with a getter
+     * of a field of that object.
+     * @param parent a function reading the nested object from the root,
+     *               null for the root class itself
+     * @param getter a getter of a field of the nested object
+     * @return a function reading the field from the root
+     */
+    private static Function<Object, Object> nested(
+            final Function<Object, Object> parent,
+            final Function<Object, Object> getter) {
+        if (parent == null) return getter;
+        return obj -> {
+            final var value = parent.apply(obj);
+            return value == null ? null : getter.apply(value);
+        };
+    }
+
+    /**
+     * Composes a function reading a nested object with a reader
+     * of a field of that object.
+     * @param parent a function reading the nested object from the root,
+     *               null for the root class itself
+     * @param reader a reader of a field of the nested object
+     * @return a reader of the field from the root writing nothing
+     *         if the nested object is null
+     */
+    private static ValueReader nested(final Function<Object, Object> parent,
+                                      final ValueReader reader) {
+        if (parent == null) return reader;
+        return (obj, out) -> {
+            final var value = parent.apply(obj);
+            if (value != null) {
+                reader.append(value, out);
+            }
+        };
+    }
+
+    /**
+     * A single column of a flattened class.
+     */
+    static final class Column {
+        private final String name;
+        private final String header;
+        private final int col;
+        private final Class<?> type;
+        private final ValueReader reader;
+
+        /**
+         * Constructs new column.
+         * @param name names of the fields on the path to the column
+         *             separated with dots
+         * @param header names of the columns on the path to the column
+         *               in the header row separated with dots
+         * @param col column number of the root field of the path
+         * @param type the type of the field of the column
+         * @param reader a reader of the value of the column
+         */
+        Column(final String name, final String header, final int col,
+               final Class<?> type, final ValueReader reader) {
+            this.name = name;
+            this.header = header;
+            this.col = col;
+            this.type = type;
+            this.reader = reader;
+        }
+
+        /**
+         * Returns the name of the column.
+         * @return names of the fields on the path to the column
+         *         separated with dots
+         */
+        String name() {
+            return name;
+        }
+
+        /**
+         * Returns the name of the column in the header row.
+         * @return the name set in @Csv or the name of the field,
+         *         prefixed with those of the fields on the path
+         */
+        String header() {
+            return header;
+        }
+
+        /**
+         * Returns the type of the field of the column.
+         * @return the type
+         */
+        Class<?> type() {
+            return type;
+        }
+
+        /**
+         * Returns the column number of the root field of the column.
+         * @return the column number as in @Csv(col)
+         */
+        int col() {
+            return col;
+        }
+
+        /**
+         * Returns the reader of the value of the column.
+         * @return the reader
+         */
+        ValueReader reader() {
+            return reader;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package io.github.zelr0x.jrealize;
+
+import io.github.zelr0x.jrealize.Annotation.Csv;
+import io.github.zelr0x.jrealize.Annotation.CsvFormat;
+import io.github.zelr0x.jrealize.Annotation.Util;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Function;
+
+/**
+ * Compiled CSV deserialization plan of a class.
+ * Maps CSV columns to the fields marked with @Csv annotation in the order
+ * of their column numbers and resolves how to parse each column and how
+ * to instantiate the class once per class.
+ * Objects are created either with a no-arg constructor followed by setting
+ * the fields, or with a constructor which parameter types match the types
+ * of the fields in column order.
+ * A plan also recognizes the fingerprint line and the header row that
+ * Serializer writes with a {@link Header} option, so they aren't read
+ * as objects, and rejects files which fingerprint is not the one of
+ * the class.
+ * Classes with fields of types which have @Csv fields of their own
+ * are rejected: Serializer flattens such fields into several columns,
+ * which cannot be mapped back to a single field.
+ */
+final class CsvReadPlan {
+    private static final int RADIX = 10;
+    private static final String ILLEGAL_ACCESS_MESSAGE =
+            "Unknown error. Please report the details to the maintainer";
+
+    private static final ClassValue<CsvReadPlan> PLANS = new ClassValue<>() {
+        @Override
+        protected CsvReadPlan computeValue(final Class<?> type) {
+            return new CsvReadPlan(type);
+        }
+    };
+
+    private final Class<?> clazz;
+    private final Field[] fields;
+    private final Function<CharSequence, Object>[] parsers;
+    private final Constructor<?> constructor;
+    private final boolean setsFields;
+    private final String[] names;
+    private final String fingerprint;
+
+    /**
+     * Compiles a plan for a specified class.
+     * @param clazz a class which fields marked with @Csv to read
+     * @throws IllegalArgumentException if the class has a field which
+     *         is flattened on write
+     */
+    @SuppressWarnings("unchecked")
+    private CsvReadPlan(final Class<?> clazz) {
+        this.clazz = clazz;
+        this.fields = Util.getAnnotatedFields(clazz, Csv.class)
+                .sorted(Comparator.comparingInt(
+                        f -> f.getAnnotation(Csv.class).col()))
+                .toArray(Field[]::new);
+        for (final var field : fields) {
+            if (CsvPlan.isNested(field.getType())) {
+                throw new IllegalArgumentException(clazz.getName() + "."
+                        + field.getName() + " is of "
+                        + field.getType().getName()
+                        + " which @Csv fields are flattened into columns"
+                        + " on write and cannot be read back");
+            }
+        }
+        this.parsers = Arrays.stream(fields)
+                .map(CsvReadPlan::parser)
+                .toArray(Function[]::new);
+        final var types = Arrays.stream(fields)
+                .map(Field::getType)
+                .toArray(Class<?>[]::new);
+        this.constructor = findConstructor(clazz, types);
+        this.setsFields = constructor.getParameterCount() == 0;
+        final var written = Accessor.getDefault().plan(clazz);
+        this.names = written.names();
+        this.fingerprint = Header.toHex(written.fingerprint());
+    }
+
+    /**
+     * Returns the plan of a specified class compiling it on first access.
+     * @param clazz a class which plan to get
+     * @return the plan of the clazz
+     */
+    static CsvReadPlan of(final Class<?> clazz) {
+        return PLANS.get(clazz);
+    }
+
+    /**
+     * Creates an object from the current row of a tokenizer.
+     * @param row a tokenizer positioned at a row
+     * @return the object
+     */
+    Object read(final CsvTokenizer row) {
+        if (row.fieldCount() != fields.length) {
+            throw new IllegalArgumentException("Row " + row.row()
+                    + " has " + row.fieldCount() + " columns, "
+                    + clazz.getName() + " has " + fields.length);
+        }
+        final var values = new Object[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            values[i] = parse(i, row.field(i), row.row());
+        }
+        return create(values, row.row());
+    }
+
+    /**
+     * Checks if the current row of a tokenizer is a fingerprint line.
+     * @param row a tokenizer positioned at a row
+     * @return true if the row is the fingerprint line of the class
+     * @throws IllegalArgumentException if the row is a fingerprint line
+     *         with a fingerprint of other columns
+     */
+    boolean isFingerprint(final CsvTokenizer row) {
+        if (row.fieldCount() != 1) return false;
+        final var text = row.field(0).toString();
+        if (!text.startsWith(Header.FINGERPRINT_PREFIX)) return false;
+        final var found = text.substring(Header.FINGERPRINT_PREFIX.length());
+        if (!found.equals(fingerprint)) {
+            throw new IllegalArgumentException("Row " + row.row()
+                    + ": the file has schema " + found + ", "
+                    + clazz.getName() + " has " + fingerprint);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the current row of a tokenizer is the header row
+     * of the class.
+     * @param row a tokenizer positioned at a row
+     * @return true if the row holds the names of the columns
+     */
+    boolean isHeader(final CsvTokenizer row) {
+        if (row.fieldCount() != names.length) return false;
+        for (int i = 0; i < names.length; i++) {
+            if (!names[i].contentEquals(row.field(i))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of columns of this plan.
+     * @return the number of fields marked with @Csv
+     */
+    int columnCount() {
+        return fields.length;
+    }
+
+    /**
+     * Returns the field a specified column is read into.
+     * @param column index of a column starting from 0
+     * @return the field
+     */
+    Field column(final int column) {
+        return fields[column];
+    }
+
+    /**
+     * Converts text of a specified column to a value of its field.
+     * An empty column of a field of a reference type is null, which
+     * Serializer writes as an empty column.
+     * @param column index of a column starting from 0
+     * @param text the text of the column
+     * @param row number of the row for error messages
+     * @return the value
+     */
+    Object parse(final int column, final CharSequence text, final long row) {
+        if (text.length() == 0 && !fields[column].getType().isPrimitive()) {
+            return null;
+        }
+        try {
+            return parsers[column].apply(text);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Row " + row
+                    + ", column " + (column + 1) + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates an object from values of its fields.
+     * @param values values of the fields in column order
+     * @param row number of the row for error messages
+     * @return the object
+     */
+    Object create(final Object[] values, final long row) {
+        try {
+            if (!setsFields) {
+                return constructor.newInstance(values);
+            }
+            final var obj = constructor.newInstance();
+            for (int i = 0; i < fields.length; i++) {
+                fields[i].set(obj, values[i]);
+            }
+            return obj;
+        } catch (InvocationTargetException e) {
+            throw new IllegalArgumentException("Row " + row
+                    + ": cannot create " + clazz.getName(), e.getCause());
+        } catch (InstantiationException | IllegalAccessException e) {
+            e.printStackTrace();
+            throw new IllegalAccessError(ILLEGAL_ACCESS_MESSAGE);
+        }
+    }
+
+    /**
+     * Finds a constructor to create objects with.
+     * @param clazz a class to instantiate
+     * @param types types of the fields in column order
+     * @return no-arg constructor if there is one, otherwise a constructor
+     *         with parameters of specified types
+     */
+    private static Constructor<?> findConstructor(final Class<?> clazz,
+                                                  final Class<?>[] types) {
+        Constructor<?> res;
+        try {
+            res = clazz.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            try {
+                res = clazz.getDeclaredConstructor(types);
+            } catch (NoSuchMethodException e1) {
+                throw new IllegalArgumentException(clazz.getName()
+                        + " has neither a no-arg constructor nor a constructor"
+                        + " with parameters of types of @Csv fields"
+                        + " in column order");
+            }
+        }
+        res.setAccessible(true);
+        return res;
+    }
+
+    /**
+     * Resolves a function converting a column to a value of a field.
+     * LocalDate, LocalDateTime and LocalTime columns are parsed as ISO-8601
+     * or with the pattern set with @CsvFormat.
+     * @param field a field marked with @Csv
+     * @return the parser of the field
+     */
+    private static Function<CharSequence, Object> parser(final Field field) {
+        final var type = field.getType();
+        if (type != LocalDate.class && type != LocalDateTime.class
+                && type != LocalTime.class) {
+            return parser(type);
+        }
+        final var format = field.getAnnotation(CsvFormat.class);
+        final DateTimeFormatter formatter;
+        if (format != null && !format.pattern().isEmpty()) {
+            formatter = DateTimeFormatter.ofPattern(format.pattern());
+        } else if (type == LocalDate.class) {
+            formatter = DateTimeFormatter.ISO_LOCAL_DATE;
+        } else if (type == LocalDateTime.class) {
+            formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+        } else {
+            formatter = DateTimeFormatter.ISO_LOCAL_TIME;
+        }
+        if (type == LocalDate.class) {
+            return s -> formatter.parse(s, LocalDate::from);
+        } else if (type == LocalDateTime.class) {
+            return s -> formatter.parse(s, LocalDateTime::from);
+        }
+        return s -> formatter.parse(s, LocalTime::from);
+    }
+
+    /**
+     * Resolves a function converting a column to a value of specified type.
+     * Supported types are primitives, their wrappers, String, enums and
+     * classes with a static valueOf(String) method or a constructor
+     * taking a single String.
+     * @param type a type of a field
+     * @return the parser of the type
+     */
+    private static Function<CharSequence, Object> parser(final Class<?> type) {
+        if (type == String.class || type == Object.class) {
+            return CharSequence::toString;
+        } else if (type == int.class || type == Integer.class) {
+            return s -> Integer.parseInt(s, 0, s.length(), RADIX);
+        } else if (type == long.class || type == Long.class) {
+            return s -> Long.parseLong(s, 0, s.length(), RADIX);
+        } else if (type == short.class || type == Short.class) {
+            return s -> Short.parseShort(s.toString());
+        } else if (type == byte.class || type == Byte.class) {
+            return s -> Byte.parseByte(s.toString());
+        } else if (type == double.class || type == Double.class) {
+            return s -> Double.parseDouble(s.toString());
+        } else if (type == float.class || type == Float.class) {
+            return s -> Float.parseFloat(s.toString());
+        } else if (type == boolean.class || type == Boolean.class) {
+            return s -> Boolean.parseBoolean(s.toString());
+        } else if (type == char.class || type == Character.class) {
+            return s -> {
+                if (s.length() != 1) {
+                    throw new IllegalArgumentException(
+                            "Expected a single character: " + s);
+                }
+                return s.charAt(0);
+            };
+        } else if (type.isEnum()) {
+            return enumParser(type);
+        }
+        return factoryParser(type);
+    }
+
+    /**
+     * Resolves a function converting a column to an enum constant.
+     * @param type an enum type
+     * @return the parser of the type
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Function<CharSequence, Object> enumParser(
+            final Class<?> type) {
+        final Class<? extends Enum> enumType = (Class<? extends Enum>) type;
+        return s -> Enum.valueOf(enumType, s.toString());
+    }
+
+    /**
+     * Resolves a function converting a column with a static valueOf(String)
+     * method or a constructor taking a String.
+     * @param type a type of a field
+     * @return the parser of the type
+     */
+    private static Function<CharSequence, Object> factoryParser(
+            final Class<?> type) {
+        try {
+            final Method valueOf = type.getDeclaredMethod("valueOf",
+                    String.class);
+            if (Modifier.isStatic(valueOf.getModifiers())
+                    && type.isAssignableFrom(valueOf.getReturnType())) {
+                valueOf.setAccessible(true);
+                return s -> create(() -> valueOf.invoke(null, s.toString()));
+            }
+        } catch (NoSuchMethodException e) {
+            // fall through to the constructor
+        }
+        try {
+            final var ctor = type.getDeclaredConstructor(String.class);
+            ctor.setAccessible(true);
+            return s -> create(() -> ctor.newInstance(s.toString()));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Cannot deserialize "
+                    + type.getName() + ": it has neither a static"
+                    + " valueOf(String) method nor a String constructor");
+        }
+    }
+
+    /**
+     * Calls a reflective factory reporting failures of the factory
+     * as illegal column values.
+     * @param factory the factory call
+     * @return the created value
+     */
+    private static Object create(final ReflectiveCall factory) {
+        try {
+            return factory.call();
+        } catch (InvocationTargetException e) {
+            throw new IllegalArgumentException(e.getCause());
+        } catch (InstantiationException | IllegalAccessException e) {
+            e.printStackTrace();
+            throw new IllegalAccessError(ILLEGAL_ACCESS_MESSAGE);
+        }
+    }
+
+    /**
+     * Reflective call which may throw reflective exceptions.
+     */
+    @FunctionalInterface
+    private interface ReflectiveCall {
+        /**
+         * Performs the call.
+         * @return the result of the call
+         * @throws InvocationTargetException if the callee throws
+         * @throws InstantiationException if the class is abstract
+         * @throws IllegalAccessException if the callee is not accessible
+         */
+        Object call() throws InvocationTargetException,
+                InstantiationException, IllegalAccessException;
+    }
+}
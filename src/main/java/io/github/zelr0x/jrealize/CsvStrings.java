@@ -0,0 +1,86 @@
+package io.github.zelr0x.jrealize;
+
+/**
+ * RFC 4180 quoting of CSV values.
+ * Values are appended as is and quoted in place only if they contain
+ * a quote, CR, LF or the first character of the delimiter, so clean
+ * values are scanned once and never copied again. Characters below 64,
+ * which include all of the special ones but a few possible delimiters,
+ * are checked with a single shift of a bit mask. A quoted value is
+ * enclosed in double quotes with the quotes inside it doubled.
+ * Used by plans and by formatters generated by the annotation processor.
+ */
+public final class CsvStrings {
+    private static final char QUOTE = '"';
+    private static final String ESCAPED_QUOTE = "\"\"";
+    private static final long SPECIAL = 1L << QUOTE | 1L << '\n' | 1L << '\r';
+
+    /**
+     * Characters of numbers and booleans as written by StringBuilder.
+     */
+    private static final String NUMBER_CHARS = "0123456789+-.EINaefilnrstuy";
+
+    /**
+     * Prevents instantiation.
+     */
+    private CsvStrings() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Quotes the tail of a buffer starting at a specified index
+     * if it has to be quoted.
+     * @param out a buffer which tail is a single value
+     * @param start index of the first character of the value
+     * @param delimiter a delimiter separating values
+     */
+    public static void quoteTail(final StringBuilder out, final int start,
+                                 final String delimiter) {
+        final var d = delimiter.isEmpty() ? QUOTE : delimiter.charAt(0);
+        final var mask = d < Long.SIZE ? SPECIAL | 1L << d : SPECIAL;
+        final var end = out.length();
+        var i = start;
+        while (i < end) {
+            final var c = out.charAt(i);
+            if (c < Long.SIZE ? (mask >>> c & 1) != 0 : c == d) break;
+            i++;
+        }
+        if (i == end) return;
+        final var tail = out.substring(start);
+        out.setLength(start);
+        out.append(QUOTE);
+        for (int j = 0; j < tail.length(); j++) {
+            final var c = tail.charAt(j);
+            if (c == QUOTE) {
+                out.append(ESCAPED_QUOTE);
+            } else {
+                out.append(c);
+            }
+        }
+        out.append(QUOTE);
+    }
+
+    /**
+     * Returns a value quoted if it has to be.
+     * @param value a value to quote
+     * @param delimiter a delimiter separating values
+     * @return the value, quoted if it contains special characters
+     */
+    static String quote(final CharSequence value, final String delimiter) {
+        final var sb = new StringBuilder(value);
+        quoteTail(sb, 0, delimiter);
+        return sb.toString();
+    }
+
+    /**
+     * Checks if numbers and booleans can contain the character a value
+     * is quoted for with a specified delimiter. If they can't, which is
+     * the case for all usual delimiters, they are never scanned.
+     * @param delimiter a delimiter separating values
+     * @return true if numbers and booleans have to be scanned
+     */
+    public static boolean quotesNumbers(final String delimiter) {
+        return !delimiter.isEmpty()
+                && NUMBER_CHARS.indexOf(delimiter.charAt(0)) >= 0;
+    }
+}
@@ -0,0 +1,194 @@
+package io.github.zelr0x.jrealize;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming char-level CSV tokenizer.
+ * Reads one row at a time into reusable per-column buffers,
+ * so no String is allocated for the row or its fields unless asked for.
+ * Rows end with LF, CR or CR LF. Fields are unquoted as RFC 4180 defines:
+ * a field starting with a double quote ends at the next lone double quote,
+ * may contain the delimiter, CR and LF, and has its doubled quotes read
+ * as single ones.
+ */
+final class CsvTokenizer {
+    private static final int BUFFER_SIZE = 8192;
+    private static final char QUOTE = '"';
+
+    private final Reader in;
+    private final char[] delimiter;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final List<StringBuilder> fields = new ArrayList<>();
+    private int pos;
+    private int limit;
+    private int fieldCount;
+    private long row;
+    private boolean skipLf;
+
+    /**
+     * Constructs a tokenizer reading from a specified reader.
+     * @param in a reader to read from
+     * @param delimiter a delimiter separating fields, must not be empty
+     */
+    CsvTokenizer(final Reader in, final String delimiter) {
+        if (delimiter.isEmpty()) {
+            throw new IllegalArgumentException("Delimiter must not be empty");
+        }
+        this.in = in;
+        this.delimiter = delimiter.toCharArray();
+    }
+
+    /**
+     * Reads the next row.
+     * @return false if there are no more rows
+     * @throws IOException if the reader fails
+     */
+    boolean next() throws IOException {
+        fieldCount = 0;
+        var c = read();
+        if (c < 0) return false;
+        row++;
+        var field = nextField();
+        var unquoted = 0;
+        final var last = delimiter.length - 1;
+        while (c >= 0 && c != '\n' && c != '\r') {
+            if (c == QUOTE && field.length() == 0 && unquoted == 0) {
+                unquoted = readQuoted(field);
+            } else {
+                field.append((char) c);
+                if (c == delimiter[last]
+                        && endsWithDelimiter(field, unquoted)) {
+                    field.setLength(field.length() - delimiter.length);
+                    field = nextField();
+                    unquoted = 0;
+                }
+            }
+            c = read();
+        }
+        skipLf = c == '\r';
+        return true;
+    }
+
+    /**
+     * Returns the number of fields of the current row.
+     * @return the number of fields
+     */
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns the contents of a field of the current row. The contents
+     * are only valid until the next row is read.
+     * @param i index of the field
+     * @return the contents of the field
+     */
+    CharSequence field(final int i) {
+        return fields.get(i);
+    }
+
+    /**
+     * Returns the number of the current row starting with 1.
+     * @return the number of the current row
+     */
+    long row() {
+        return row;
+    }
+
+    /**
+     * Starts the next field of the current row.
+     * @return the cleared buffer of the field
+     */
+    private StringBuilder nextField() {
+        if (fieldCount == fields.size()) {
+            fields.add(new StringBuilder());
+        }
+        final var field = fields.get(fieldCount++);
+        field.setLength(0);
+        return field;
+    }
+
+    /**
+     * Reads the rest of a quoted field after its opening quote.
+     * @param field the buffer of the field
+     * @return the length of the field, which must not be split
+     *         at a delimiter read before it
+     * @throws IOException if the reader fails
+     * @throws IllegalArgumentException if the input ends inside the quotes
+     */
+    private int readQuoted(final StringBuilder field) throws IOException {
+        while (true) {
+            final var c = readRaw();
+            if (c < 0) {
+                throw new IllegalArgumentException("Row " + row
+                        + ": quoted field is not closed");
+            }
+            if (c == QUOTE) {
+                if ((pos == limit && !fill()) || buffer[pos] != QUOTE) {
+                    return field.length() + 1;
+                }
+                pos++;
+            }
+            field.append((char) c);
+        }
+    }
+
+    /**
+     * Checks if a field ends with the delimiter.
+     * @param field the field being read
+     * @param unquoted the length of the quoted part of the field
+     *                 plus one, 0 if the field is not quoted
+     * @return true if the last characters of the field are the delimiter
+     */
+    private boolean endsWithDelimiter(final StringBuilder field,
+                                      final int unquoted) {
+        final var offset = field.length() - delimiter.length;
+        if (offset < Math.max(0, unquoted - 1)) return false;
+        for (int i = 0; i < delimiter.length; i++) {
+            if (field.charAt(offset + i) != delimiter[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next character skipping LF that follows CR.
+     * @return the next character or -1 at the end of input
+     * @throws IOException if the reader fails
+     */
+    private int read() throws IOException {
+        final var c = readRaw();
+        if (skipLf) {
+            skipLf = false;
+            if (c == '\n') return read();
+        }
+        return c;
+    }
+
+    /**
+     * Reads the next character as is.
+     * @return the next character or -1 at the end of input
+     * @throws IOException if the reader fails
+     */
+    private int readRaw() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buffer[pos++];
+    }
+
+    /**
+     * Refills the buffer.
+     * @return false at the end of input
+     * @throws IOException if the reader fails
+     */
+    private boolean fill() throws IOException {
+        limit = in.read(buffer);
+        pos = 0;
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+}
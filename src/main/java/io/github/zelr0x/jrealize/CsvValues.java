@@ -0,0 +1,339 @@
+package io.github.zelr0x.jrealize;
+
+import io.github.zelr0x.jrealize.Annotation.CsvFormat;
+import io.github.zelr0x.jrealize.Annotation.CsvGetter;
+import io.github.zelr0x.jrealize.Annotation.Util;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.function.BiConsumer;
+
+/**
+ * Writes numbers and dates of CSV values straight into the row buffer.
+ * Boxed integers are written as longs, which StringBuilder writes with
+ * its digit tables. Doubles in the range toString() writes without
+ * an exponent are written as the shortest decimal that reads back as
+ * the same double, found with a single multiplication and division;
+ * other doubles are left to StringBuilder. ISO dates and times are
+ * written field by field exactly as their toString() writes them.
+ * Fields marked with @CsvFormat are written with a fixed number
+ * of digits after the point or with a DateTimeFormatter pattern,
+ * compiled once per field. Other values are written through their
+ * serialization getters as before.
+ * Used by plans and by formatters generated by the annotation processor.
+ */
+public final class CsvValues {
+    private static final int RADIX = 10;
+    private static final long[] POW10 = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L,
+        100_000_000L, 1_000_000_000L, 10_000_000_000L, 100_000_000_000L,
+        1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+        1_000_000_000_000_000L, 10_000_000_000_000_000L,
+        100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    /**
+     * Doubles toString() writes without an exponent are in [1e-3, 1e7).
+     */
+    private static final double MIN_PLAIN = 1e-3;
+    private static final double MAX_PLAIN = 1e7;
+
+    /**
+     * Fraction digits the shortest decimal is looked for among, fewer
+     * for doubles of WIDE and above so that scaled values stay below
+     * SCALED_LIMIT, where they are exact and off by less than a half
+     * from the decimal they stand for.
+     */
+    private static final int FRACTION_DIGITS = 9;
+    private static final double WIDE = 1e6;
+    private static final double SCALED_LIMIT = 0x1p50;
+    private static final double HALF = 0.5;
+
+    private static final int YEAR_DIGITS = 4;
+    private static final int MAX_YEAR = 9999;
+    private static final int TWO_DIGITS = 2;
+    private static final int NANOS_PER_MILLI = 1_000_000;
+    private static final int NANOS_PER_MICRO = 1_000;
+    private static final int MILLI_DIGITS = 3;
+    private static final int MICRO_DIGITS = 6;
+    private static final int NANO_DIGITS = 9;
+
+    /**
+     * Prevents instantiation.
+     */
+    private CsvValues() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Appends a double as the shortest decimal which reads back as
+     * the same double, in the notation Double.toString uses.
+     * @param out a buffer to append to
+     * @param value a value to append
+     */
+    public static void appendDouble(final StringBuilder out,
+                                    final double value) {
+        final var abs = Math.abs(value);
+        if (abs >= MIN_PLAIN && abs < MAX_PLAIN) {
+            var digits = abs < WIDE ? FRACTION_DIGITS : FRACTION_DIGITS - 1;
+            final var pow = (double) POW10[digits];
+            final var scaled = Math.rint(abs * pow);
+            if (scaled / pow == abs) {
+                var m = (long) scaled;
+                while (digits > 1 && m % RADIX == 0) {
+                    m /= RADIX;
+                    digits--;
+                }
+                appendFixed(out, value < 0, m, digits);
+                return;
+            }
+        }
+        out.append(value);
+    }
+
+    /**
+     * Appends a double rounded half up to a number of digits after
+     * the point.
+     * @param out a buffer to append to
+     * @param value a value to append
+     * @param scale number of digits after the point, -1 to append
+     *              the shortest decimal, see {@link #appendDouble}
+     */
+    public static void appendDouble(final StringBuilder out,
+                                    final double value, final int scale) {
+        if (scale < 0) {
+            appendDouble(out, value);
+            return;
+        }
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.append(value);
+            return;
+        }
+        if (scale < POW10.length) {
+            final var scaled = Math.abs(value) * POW10[scale];
+            final var floor = Math.floor(scaled);
+            final var fraction = scaled - floor;
+            if (scaled < SCALED_LIMIT
+                    && Math.abs(fraction - HALF) > Math.ulp(scaled)) {
+                final var m = (long) (fraction < HALF ? floor : floor + 1);
+                appendFixed(out, value < 0 && m != 0, m, scale);
+                return;
+            }
+        }
+        out.append(new BigDecimal(value).setScale(scale, RoundingMode.HALF_UP)
+                .toPlainString());
+    }
+
+    /**
+     * Appends a value of a field in its default form. Nothing is
+     * appended for null.
+     * @param out a buffer to append to
+     * @param value a value to append
+     */
+    public static void appendValue(final StringBuilder out,
+                                   final Object value) {
+        if (value == null) return;
+        if (value instanceof String) {
+            out.append((String) value);
+        } else if (value instanceof Double) {
+            appendDouble(out, (Double) value);
+        } else if (value instanceof Long || value instanceof Integer
+                || value instanceof Short || value instanceof Byte) {
+            out.append(((Number) value).longValue());
+        } else if (value instanceof Float) {
+            out.append((float) (Float) value);
+        } else if (value instanceof LocalDate) {
+            appendDate(out, (LocalDate) value);
+        } else if (value instanceof LocalDateTime) {
+            final var dateTime = (LocalDateTime) value;
+            appendDate(out, dateTime.toLocalDate());
+            out.append('T');
+            appendTime(out, dateTime.toLocalTime());
+        } else if (value instanceof LocalTime) {
+            appendTime(out, (LocalTime) value);
+        } else {
+            out.append(Util.valueToString(value, CsvGetter.class));
+        }
+    }
+
+    /**
+     * Checks that the @CsvFormat of a field applies to its type.
+     * @param field a field marked with @Csv
+     * @throws IllegalArgumentException if it doesn't
+     */
+    static void check(final Field field) {
+        final var format = field.getAnnotation(CsvFormat.class);
+        if (format == null) return;
+        final var type = field.getType();
+        if (!format.pattern().isEmpty()
+                && !TemporalAccessor.class.isAssignableFrom(type)) {
+            throw new IllegalArgumentException(name(field)
+                    + ": pattern only applies to java.time fields");
+        }
+        if (format.scale() >= 0 && !isDecimal(type)) {
+            throw new IllegalArgumentException(name(field)
+                    + ": scale only applies to double, float and BigDecimal"
+                    + " fields");
+        }
+        if (format.pattern().isEmpty() && format.scale() < 0) {
+            throw new IllegalArgumentException(name(field)
+                    + ": @CsvFormat sets neither pattern nor scale");
+        }
+    }
+
+    /**
+     * Returns the scale of a double or float field.
+     * @param field a field of a primitive floating point type
+     * @return the scale set with @CsvFormat, -1 if there is none
+     */
+    static int scale(final Field field) {
+        final var format = field.getAnnotation(CsvFormat.class);
+        return format == null ? -1 : format.scale();
+    }
+
+    /**
+     * Creates a function appending values of a specified field.
+     * @param field a field of a reference type
+     * @return a function appending values of the field in the form set
+     *         with @CsvFormat, or in their default form if there is none
+     */
+    static BiConsumer<Object, StringBuilder> appender(final Field field) {
+        final var format = field.getAnnotation(CsvFormat.class);
+        if (format == null) {
+            return (value, out) -> appendValue(out, value);
+        }
+        check(field);
+        if (!format.pattern().isEmpty()) {
+            final var formatter = DateTimeFormatter.ofPattern(
+                    format.pattern());
+            return (value, out) -> {
+                if (value != null) {
+                    formatter.formatTo((TemporalAccessor) value, out);
+                }
+            };
+        }
+        final var scale = format.scale();
+        if (field.getType() == BigDecimal.class) {
+            return (value, out) -> {
+                if (value != null) {
+                    out.append(((BigDecimal) value)
+                            .setScale(scale, RoundingMode.HALF_UP)
+                            .toPlainString());
+                }
+            };
+        }
+        return (value, out) -> {
+            if (value != null) {
+                appendDouble(out, ((Number) value).doubleValue(), scale);
+            }
+        };
+    }
+
+    /**
+     * Appends a number given as its digits and the position of the point.
+     * @param out a buffer to append to
+     * @param negative whether to append the minus sign
+     * @param digits the digits of the number without the point
+     * @param scale number of the digits after the point
+     */
+    private static void appendFixed(final StringBuilder out,
+                                    final boolean negative,
+                                    final long digits, final int scale) {
+        if (negative) {
+            out.append('-');
+        }
+        if (scale == 0) {
+            out.append(digits);
+            return;
+        }
+        final var pow = POW10[scale];
+        out.append(digits / pow).append('.');
+        appendPadded(out, digits % pow, scale);
+    }
+
+    /**
+     * Appends a date as LocalDate.toString writes it.
+     * @param out a buffer to append to
+     * @param date a date to append
+     */
+    private static void appendDate(final StringBuilder out,
+                                   final LocalDate date) {
+        final var year = date.getYear();
+        if (year < 0 || year > MAX_YEAR) {
+            out.append(date);
+            return;
+        }
+        appendPadded(out, year, YEAR_DIGITS);
+        out.append('-');
+        appendPadded(out, date.getMonthValue(), TWO_DIGITS);
+        out.append('-');
+        appendPadded(out, date.getDayOfMonth(), TWO_DIGITS);
+    }
+
+    /**
+     * Appends a time as LocalTime.toString writes it: seconds only if
+     * they or nanoseconds are not zero, and nanoseconds in groups
+     * of three digits.
+     * @param out a buffer to append to
+     * @param time a time to append
+     */
+    private static void appendTime(final StringBuilder out,
+                                   final LocalTime time) {
+        appendPadded(out, time.getHour(), TWO_DIGITS);
+        out.append(':');
+        appendPadded(out, time.getMinute(), TWO_DIGITS);
+        final var second = time.getSecond();
+        final var nano = time.getNano();
+        if (second == 0 && nano == 0) return;
+        out.append(':');
+        appendPadded(out, second, TWO_DIGITS);
+        if (nano == 0) return;
+        out.append('.');
+        if (nano % NANOS_PER_MILLI == 0) {
+            appendPadded(out, nano / NANOS_PER_MILLI, MILLI_DIGITS);
+        } else if (nano % NANOS_PER_MICRO == 0) {
+            appendPadded(out, nano / NANOS_PER_MICRO, MICRO_DIGITS);
+        } else {
+            appendPadded(out, nano, NANO_DIGITS);
+        }
+    }
+
+    /**
+     * Appends a non-negative number padded with zeros.
+     * @param out a buffer to append to
+     * @param value a value to append, shorter than the number of digits
+     * @param digits number of digits to append
+     */
+    private static void appendPadded(final StringBuilder out,
+                                     final long value, final int digits) {
+        for (var pow = POW10[digits - 1]; pow > 0; pow /= RADIX) {
+            out.append((char) ('0' + value / pow % RADIX));
+        }
+    }
+
+    /**
+     * Checks if a type can be written with a scale.
+     * @param type a type of a field
+     * @return true for doubles, floats and BigDecimals
+     */
+    private static boolean isDecimal(final Class<?> type) {
+        return type == double.class || type == float.class
+                || type == Double.class || type == Float.class
+                || type == BigDecimal.class;
+    }
+
+    /**
+     * Names a field for error messages.
+     * @param field a field
+     * @return the name of the class and of the field
+     */
+    private static String name(final Field field) {
+        return field.getDeclaringClass().getName() + "." + field.getName();
+    }
+}
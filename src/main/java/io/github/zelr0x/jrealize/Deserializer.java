@@ -0,0 +1,247 @@
+package io.github.zelr0x.jrealize;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads CSV and binary files written by Serializer back into objects
+ * of classes with fields marked with @Csv annotation.
+ * Files are read lazily, row by row, so they never have to fit in memory.
+ * Returned streams hold the file open and have to be closed.
+ * The fingerprint line and the header row written with a {@link Header}
+ * option are skipped, and a file with a fingerprint of other columns
+ * is rejected before any of its rows is read. Only the first row, or the
+ * row right after the fingerprint line, is taken for the header row,
+ * so later rows which happen to hold the column names are read as data.
+ * Empty columns of fields of reference types are read as null, which
+ * Serializer writes as empty columns, so empty Strings are read as null
+ * as well. Blank lines are skipped unless the class has a single column,
+ * where they stand for a row with an empty column.
+ * Classes with fields of types which have @Csv fields of their own
+ * cannot be read, as Serializer flattens such fields into several
+ * columns; they are rejected before the file is opened.
+ */
+public final class Deserializer {
+    /**
+     * Prevents instantiation.
+     */
+    private Deserializer() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Lazily reads objects from a specified file.
+     * @param <T> type of objects to read
+     * @param type class of objects to read
+     * @param directory name of the directory in which the file is placed
+     * @param filename name of the file to read
+     * @param charset charset to use. Default is UTF-8
+     * @param delimiter String used as a delimiter - common choices
+     *                  for CSV are a comma (default) and a tabulation ("\t")
+     * @return a stream of objects which has to be closed to close the file
+     * @throws IllegalArgumentException if the type has a field which
+     *         is flattened into several columns
+     */
+    public static <T> Stream<T> readCsv(final Class<T> type,
+            final String directory, final String filename,
+            final Charset charset, final String delimiter) {
+        CsvReadPlan.of(type);
+        final Path file = Paths.get(directory, filename);
+        final Reader reader;
+        try {
+            reader = Files.newBufferedReader(file, charset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return readCsv(type, reader, delimiter).onClose(() -> {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Lazily reads objects from a specified file.
+     * UTF-8 is used as a charset. Comma is used as a CSV delimiter.
+     * @param <T> type of objects to read
+     * @param type class of objects to read
+     * @param directory name of the directory in which the file is placed
+     * @param filename name of the file to read
+     * @return a stream of objects which has to be closed to close the file
+     * @throws IllegalArgumentException if the type has a field which
+     *         is flattened into several columns
+     */
+    public static <T> Stream<T> readCsv(final Class<T> type,
+            final String directory, final String filename) {
+        return readCsv(type, directory, filename, StandardCharsets.UTF_8,
+                Formatter.DEFAULT_DELIMITER);
+    }
+
+    /**
+     * Lazily reads objects from a specified reader.
+     * The reader is not closed when the stream is closed.
+     * @param <T> type of objects to read
+     * @param type class of objects to read
+     * @param reader a reader to read CSV from
+     * @param delimiter String used as a delimiter
+     * @return a stream of objects
+     * @throws IllegalArgumentException if the type has a field which
+     *         is flattened into several columns
+     */
+    public static <T> Stream<T> readCsv(final Class<T> type,
+            final Reader reader, final String delimiter) {
+        final var plan = CsvReadPlan.of(type);
+        final var rows = new CsvTokenizer(reader, delimiter);
+        final var iterator = new Iterator<T>() {
+            private T next;
+            private boolean mayBeHeader = true;
+
+            @Override
+            public boolean hasNext() {
+                if (next != null) return true;
+                try {
+                    while (rows.next()) {
+                        if (rows.fieldCount() == 1
+                                && rows.field(0).length() == 0
+                                && plan.columnCount() != 1) {
+                            continue;
+                        }
+                        if (mayBeHeader) {
+                            mayBeHeader = plan.isFingerprint(rows);
+                            if (mayBeHeader || plan.isHeader(rows)) {
+                                continue;
+                            }
+                        }
+                        next = type.cast(plan.read(rows));
+                        return true;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return false;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                final var res = next;
+                next = null;
+                return res;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Reads the schema fingerprint of a CSV file written with
+     * {@link Header#withFingerprint}. Only the first line of the file
+     * is read, so a loader can pick the class or parser to read
+     * the file with before reading any row. Compare it with
+     * {@link Header#fingerprint(Class)}.
+     * @param directory name of the directory in which the file is placed
+     * @param filename name of the file to read
+     * @param charset charset to use
+     * @return 16 hex digits or null if the file has no fingerprint line
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public static String readFingerprint(final String directory,
+            final String filename, final Charset charset) {
+        final Path file = Paths.get(directory, filename);
+        try (BufferedReader reader = Files.newBufferedReader(file,
+                charset)) {
+            final var line = reader.readLine();
+            return line != null && line.startsWith(Header.FINGERPRINT_PREFIX)
+                    ? line.substring(Header.FINGERPRINT_PREFIX.length())
+                    : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lazily reads objects from a specified file in the binary format.
+     * @param <T> type of objects to read
+     * @param type class of objects to read
+     * @param directory name of the directory in which the file is placed
+     * @param filename name of the file to read
+     * @return a stream of objects which has to be closed to close the file
+     * @throws IllegalArgumentException if the type has a field which
+     *         is flattened into several columns
+     */
+    public static <T> Stream<T> readBinary(final Class<T> type,
+            final String directory, final String filename) {
+        CsvReadPlan.of(type);
+        final Path file = Paths.get(directory, filename);
+        final ReadableByteChannel channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return readBinary(type, channel).onClose(() -> {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Lazily reads objects in the binary format from a specified channel.
+     * The channel is not closed when the stream is closed.
+     * @param <T> type of objects to read
+     * @param type class of objects to read
+     * @param channel a channel to read from
+     * @return a stream of objects
+     * @throws IllegalArgumentException if the type has a field which
+     *         is flattened into several columns
+     */
+    public static <T> Stream<T> readBinary(final Class<T> type,
+            final ReadableByteChannel channel) {
+        final var reader = new BinaryReader(type, channel);
+        final var iterator = new Iterator<T>() {
+            private T next;
+
+            @Override
+            public boolean hasNext() {
+                if (next != null) return true;
+                try {
+                    next = type.cast(reader.next());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                final var res = next;
+                next = null;
+                return res;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
@@ -0,0 +1,92 @@
+package io.github.zelr0x.jrealize;
+
+import java.time.Duration;
+
+/**
+ * Option that sets when a {@link SerializerSession} flushes appended rows
+ * to its file. Rows are flushed when the session is closed in any case;
+ * single writes flush when they are done and ignore this option.
+ */
+public final class FlushPolicy implements WriteOption {
+    private static final FlushPolicy ON_CLOSE = new FlushPolicy(0, null);
+    private static final FlushPolicy EVERY_APPEND = new FlushPolicy(1, null);
+
+    private final long rows;
+    private final Duration interval;
+
+    /**
+     * Constructs new policy.
+     * @param rows number of appended rows after which to flush,
+     *             0 to not flush by rows
+     * @param interval time between flushes, null to not flush by time
+     */
+    private FlushPolicy(final long rows, final Duration interval) {
+        this.rows = rows;
+        this.interval = interval;
+    }
+
+    /**
+     * Creates a policy that flushes rows only when the buffer of the writer
+     * is full and when the session is closed.
+     * @return the policy
+     */
+    public static FlushPolicy onClose() {
+        return ON_CLOSE;
+    }
+
+    /**
+     * Creates a policy that flushes after each append, so every appended
+     * batch is visible to readers of the file once the append returns.
+     * It is the default policy of sessions.
+     * @return the policy
+     */
+    public static FlushPolicy everyAppend() {
+        return EVERY_APPEND;
+    }
+
+    /**
+     * Creates a policy that flushes after the append which makes
+     * the number of unflushed rows reach a specified number.
+     * @param rows number of rows
+     * @return the policy
+     */
+    public static FlushPolicy everyRows(final long rows) {
+        if (rows < 1) {
+            throw new IllegalArgumentException(
+                    "Number of rows must be positive: " + rows);
+        }
+        return new FlushPolicy(rows, null);
+    }
+
+    /**
+     * Creates a policy that flushes periodically on a background thread,
+     * so rows are not held back for longer than a specified time
+     * even if nothing is appended after them.
+     * @param interval time between flushes
+     * @return the policy
+     */
+    public static FlushPolicy every(final Duration interval) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException(
+                    "Interval must be positive: " + interval);
+        }
+        return new FlushPolicy(0, interval);
+    }
+
+    /**
+     * Checks if a specified number of unflushed rows has to be flushed.
+     * @param unflushed number of rows appended since the last flush
+     * @return true if the rows have to be flushed now
+     */
+    boolean shouldFlush(final long unflushed) {
+        return rows > 0 && unflushed >= rows;
+    }
+
+    /**
+     * Returns the time between periodic flushes.
+     * @return the interval or null if rows aren't flushed periodically
+     */
+    Duration getInterval() {
+        return interval;
+    }
+}
@@ -3,6 +3,6 @@ package io.github.zelr0x.jrealize;
 /**
  * Serialization formats.
  */
-enum Format {
-    CSV, JSON, XML
+public enum Format {
+    CSV, JSON, NDJSON, XML, BINARY
 }
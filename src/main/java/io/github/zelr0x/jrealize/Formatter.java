@@ -1,12 +1,6 @@
 package io.github.zelr0x.jrealize;
 
-import io.github.zelr0x.jrealize.Annotation.Csv;
-import io.github.zelr0x.jrealize.Annotation.CsvGetter;
-import io.github.zelr0x.jrealize.Annotation.Util;
-
-import java.util.Comparator;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Functional interface responsible for serialization.
@@ -22,8 +16,47 @@ public interface Formatter {
      */
     String format(Object o);
 
+    /**
+     * Serialize object in appropriate format appending the result
+     * to a specified buffer. Formatters that can write values straight
+     * into the buffer override this to avoid intermediate Strings.
+     * @param o an object to serialize
+     * @param out a buffer to append the representation of that object to
+     */
+    default void format(final Object o, final StringBuilder out) {
+        out.append(format(o));
+    }
+
+    /**
+     * Text written once before all objects of a single write.
+     * @return the text, empty by default
+     */
+    default String prefix() {
+        return "";
+    }
+
+    /**
+     * Text written between consecutive objects of a single write.
+     * @return the text, empty by default
+     */
+    default String separator() {
+        return "";
+    }
+
+    /**
+     * Text written once after all objects of a single write.
+     * Formatters with a suffix write whole documents, which are only
+     * written to new or empty files.
+     * @return the text, empty by default
+     */
+    default String suffix() {
+        return "";
+    }
+
     /**
      * Factory of functions conforming to Formatter functional interface.
+     * CSV formatters generated by the jrealize annotation processor are used
+     * for classes that have them.
      * @param format Format to use
      * @param delimiter delimiter to use (for delimited formats)
      * @return appropriate formatter function
@@ -31,92 +64,88 @@ public interface Formatter {
     static Formatter getFormatter(final Format format,
                                   final String delimiter) {
         return (format == Format.CSV)
-                ? obj -> toCsvString(obj, delimiter)
+                ? new CsvFormatter(delimiter, Accessor.getDefault(), true)
                 : getFormatter(format);
     }
 
     /**
      * Factory of functions conforming to Formatter functional interface.
+     * Generated formatters are not used, all values of fields are read
+     * with a specified backend.
      * @param format Format to use
+     * @param delimiter delimiter to use (for delimited formats)
+     * @param accessor backend used to read values of fields
      * @return appropriate formatter function
+     * @throws IllegalArgumentException for the binary format
      */
-    static Formatter getFormatter(final Format format) {
+    static Formatter getFormatter(final Format format,
+                                  final String delimiter,
+                                  final Accessor accessor) {
         switch (format) {
+            case CSV:
+                return new CsvFormatter(delimiter, accessor, false);
             case JSON:
-                return Formatter::toJsonString;
+                return new JsonFormatter(accessor, true);
+            case NDJSON:
+                return new JsonFormatter(accessor, false);
             case XML:
-                return Formatter::toXmlString;
+                return new XmlFormatter(accessor, StandardCharsets.UTF_8,
+                        XmlFormatter.DEFAULT_ROOT);
+            case BINARY:
+                throw binary();
             default:
-                return obj -> toCsvString(obj, DEFAULT_DELIMITER);
+                return getFormatter(format);
         }
     }
 
     /**
-     * Represents all values suitable for serialization from a specified object
-     * as a csv string separated with a specified delimiter.
-     * @param obj an object in which to gather values
-     * @param delimiter a delimiter to use
-     * @return csv string representation of an object
-     */
-    private static String toCsvString(final Object obj,
-                                      final String delimiter) {
-        return getCsvFieldValues(obj)
-                .collect(Collectors
-                        .joining(delimiter))
-                + System.lineSeparator();
-    }
-
-    /**
-     * Retrieves all values suitable for serialization from a specified object.
-     * @param obj an object in which to gather values
-     * @return Stream of values of fields marked with @Csv annotation
-     */
-    private static Stream<String> getCsvFieldValues(final Object obj) {
-        return Util.getAnnotatedFields(obj, Csv.class)
-                .sorted(Comparator.comparingInt(
-                        f -> f.getAnnotation(Csv.class).col()))
-                .map(f -> Util.fieldToString(obj, f, CsvGetter.class));
-    }
-
-    /**
-     * Represents all values suitable for serialization from a specified object
-     * as a json string.
-     * @param obj an object in which to gather values
-     * @return json string representation of an object
-     */
-    private static String toJsonString(final Object obj) {
-        // add JSON joining with commas between objects
-        // instead of line separator
-        return getJsonFieldValues(obj)
-                .collect(Collectors.joining(","))
-                + System.lineSeparator();
-    }
-
-    /**
-     * Retrieves all values suitable for serialization from a specified object.
-     * @param obj an object in which to gather values
-     * @return Stream of values of fields marked with @Json annotation
+     * Factory of functions conforming to Formatter functional interface.
+     * Only the columns of a projection are read and written.
+     * @param format Format to use, only CSV can be projected
+     * @param delimiter delimiter to use
+     * @param projection columns to write
+     * @return appropriate formatter function
      */
-    private static Stream<String> getJsonFieldValues(final Object obj) {
-        throw new UnsupportedOperationException();
+    static Formatter getFormatter(final Format format,
+                                  final String delimiter,
+                                  final Projection projection) {
+        if (format != Format.CSV) {
+            throw new IllegalArgumentException("Only CSV can be projected");
+        }
+        return new CsvFormatter(delimiter, Accessor.getDefault(), false)
+                .project(projection);
     }
 
     /**
-     * Represents all values suitable for serialization from a specified object
-     * as a json string.
-     * @param obj an object in which to gather values
-     * @return xml string representation of an object
+     * Factory of functions conforming to Formatter functional interface.
+     * @param format Format to use
+     * @return appropriate formatter function
+     * @throws IllegalArgumentException for the binary format
      */
-    private static String toXmlString(final Object obj) {
-        throw new UnsupportedOperationException();
+    static Formatter getFormatter(final Format format) {
+        switch (format) {
+            case JSON:
+                return new JsonFormatter(Accessor.getDefault(), true);
+            case NDJSON:
+                return new JsonFormatter(Accessor.getDefault(), false);
+            case XML:
+                return new XmlFormatter(Accessor.getDefault(),
+                        StandardCharsets.UTF_8, XmlFormatter.DEFAULT_ROOT);
+            case BINARY:
+                throw binary();
+            default:
+                return getFormatter(format, DEFAULT_DELIMITER);
+        }
     }
 
     /**
-     * Retrieves all values suitable for serialization from a specified object.
-     * @param obj an object in which to gather values
-     * @return Stream of values of fields marked with @Xml annotation
+     * Creates the exception thrown for the binary format, which is
+     * written by Serializer in column blocks rather than row by row,
+     * so it has no Formatter.
+     * @return the exception
      */
-    private static Stream<String> getXmlFieldValues(final Object obj) {
-        throw new UnsupportedOperationException();
+    private static IllegalArgumentException binary() {
+        return new IllegalArgumentException("Binary format has no"
+                + " Formatter: write it with Serializer.write or export");
     }
 }
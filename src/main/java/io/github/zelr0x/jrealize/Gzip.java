@@ -0,0 +1,153 @@
+package io.github.zelr0x.jrealize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Option that compresses the file with gzip while it is written.
+ * Output is compressed either by a single GZIPOutputStream or in
+ * independent blocks on multiple threads, each block becoming a member
+ * of a multi-member gzip file which any gzip reader decompresses
+ * as a whole. Appending to an existing gzip file adds members to it,
+ * so the result stays a valid gzip file.
+ */
+public final class Gzip implements WriteOption {
+    /**
+     * Default number of uncompressed bytes in a block.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int level;
+    private final Executor executor;
+    private final int blockSize;
+
+    /**
+     * Constructs an option that compresses with default level
+     * on the writing thread.
+     */
+    public Gzip() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Constructs an option that compresses with a specified level
+     * on the writing thread.
+     * @param level compression level from 0 to 9 or -1 for default
+     */
+    public Gzip(final int level) {
+        this(level, null, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructs an option that compresses blocks of default size
+     * in the common ForkJoinPool.
+     * @param level compression level from 0 to 9 or -1 for default
+     * @param parallel whether blocks are compressed on multiple threads
+     */
+    public Gzip(final int level, final boolean parallel) {
+        this(level, parallel ? ForkJoinPool.commonPool() : null,
+                DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructs an option that compresses blocks with a specified
+     * executor.
+     * @param level compression level from 0 to 9 or -1 for default
+     * @param executor executor to compress blocks with or null
+     *                 to compress on the writing thread
+     * @param blockSize number of uncompressed bytes in a block
+     */
+    public Gzip(final int level, final Executor executor,
+                final int blockSize) {
+        if (level < Deflater.DEFAULT_COMPRESSION
+                || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException(
+                    "Invalid compression level: " + level);
+        }
+        if (blockSize < 1) {
+            throw new IllegalArgumentException(
+                    "Block size must be positive: " + blockSize);
+        }
+        this.level = level;
+        this.executor = executor;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns the compression level.
+     * @return the compression level
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns the executor blocks are compressed with.
+     * @return the executor or null if output is compressed
+     *         on the writing thread
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Returns the number of uncompressed bytes in a block.
+     * @return the block size
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Wraps a stream into a stream compressing everything written to it.
+     * @param out a stream to write compressed output to
+     * @return the compressing stream
+     * @throws IOException if the gzip header cannot be written
+     */
+    OutputStream wrap(final OutputStream out) throws IOException {
+        return wrap(out, false);
+    }
+
+    /**
+     * Wraps a stream into a stream compressing everything written to it,
+     * optionally one whose flush compresses and writes all input
+     * written so far. Only a single stream can be flushed that way:
+     * blocks compressed on multiple threads are written once full.
+     * @param out a stream to write compressed output to
+     * @param syncFlush whether flushing writes all compressed input
+     * @return the compressing stream
+     * @throws IOException if the gzip header cannot be written
+     */
+    OutputStream wrap(final OutputStream out, final boolean syncFlush)
+            throws IOException {
+        return executor == null
+                ? new LeveledGzipStream(out, BUFFER_SIZE, level, syncFlush)
+                : new ParallelGzipStream(out, this);
+    }
+
+    /**
+     * GZIPOutputStream with a configurable compression level.
+     */
+    static final class LeveledGzipStream extends GZIPOutputStream {
+        /**
+         * Constructs new stream and writes the gzip header.
+         * @param out a stream to write compressed output to
+         * @param size size of the output buffer
+         * @param level compression level
+         * @param syncFlush whether flushing writes all compressed input
+         * @throws IOException if the header cannot be written
+         */
+        LeveledGzipStream(final OutputStream out, final int size,
+                          final int level, final boolean syncFlush)
+                throws IOException {
+            super(out, size, syncFlush);
+            def.setLevel(level);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.zelr0x.jrealize;
+
+/**
+ * Option that starts CSV output with a header row naming the columns
+ * of a class, after the names set in @Csv or the names of the fields.
+ * The header is built once per class plan, so it follows projections
+ * and flattened nested objects. Optionally the header row is preceded
+ * with a fingerprint line ("#schema=3c1f0e9a5b7d2c48"), a hash of the names
+ * and types of the columns in order, which a reader compares with
+ * the fingerprint it expects before reading any row, see
+ * {@link Deserializer#readFingerprint}.
+ * Output is appended, so the header is only written to empty files:
+ * to each new part of a rolling output and not to a file a previous
+ * export has already written rows to.
+ */
+public final class Header implements WriteOption {
+    /**
+     * Start of the fingerprint line, followed by 16 hex digits.
+     */
+    public static final String FINGERPRINT_PREFIX = "#schema=";
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Class<?> type;
+    private final boolean fingerprint;
+
+    /**
+     * Constructs new option.
+     * @param type the class of the written objects
+     * @param fingerprint whether to write the fingerprint line
+     */
+    private Header(final Class<?> type, final boolean fingerprint) {
+        this.type = type;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Creates an option writing the header row of a class.
+     * @param type the class of the written objects
+     * @return the option
+     */
+    public static Header of(final Class<?> type) {
+        return new Header(type, false);
+    }
+
+    /**
+     * Creates an option writing the fingerprint line and the header row
+     * of a class.
+     * @param type the class of the written objects
+     * @return the option
+     */
+    public static Header withFingerprint(final Class<?> type) {
+        return new Header(type, true);
+    }
+
+    /**
+     * Returns the schema fingerprint of the @Csv columns of a class.
+     * The fingerprint changes whenever a column is added, removed,
+     * reordered, renamed or changes its type.
+     * @param type a class with fields marked with @Csv
+     * @return 16 hex digits
+     */
+    public static String fingerprint(final Class<?> type) {
+        return toHex(Accessor.getDefault().plan(type).fingerprint());
+    }
+
+    /**
+     * Returns the class which columns are named by the header.
+     * @return the class of the written objects
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Checks if the header is preceded with the fingerprint line.
+     * @return true if the fingerprint line is written
+     */
+    public boolean hasFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Builds the text written before the rows.
+     * @param plan the plan of the written columns
+     * @param delimiter a delimiter to use
+     * @return the fingerprint line, if requested, and the header row
+     */
+    String text(final CsvPlan plan, final String delimiter) {
+        final var header = plan.header(delimiter);
+        return fingerprint
+                ? FINGERPRINT_PREFIX + toHex(plan.fingerprint())
+                        + LINE_SEPARATOR + header
+                : header;
+    }
+
+    /**
+     * Formats a fingerprint.
+     * @param fingerprint the fingerprint
+     * @return 16 hex digits
+     */
+    static String toHex(final long fingerprint) {
+        return String.format("%016x", fingerprint);
+    }
+
+    @Override
+    public String toString() {
+        return "Header[" + type.getName()
+                + (fingerprint ? ", fingerprint]" : "]");
+    }
+}
@@ -0,0 +1,297 @@
+package io.github.zelr0x.jrealize;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Metrics listener accumulating measurements of all exports and exposing
+ * them as an MXBean. Counters are striped, so reporting from many writing
+ * threads doesn't contend on a single variable.
+ * <pre>
+ * Serializer.setMetricsListener(JmxMetrics.register());
+ * </pre>
+ */
+public final class JmxMetrics implements MetricsListener, MetricsMXBean {
+    /**
+     * Name the MXBean is registered under.
+     */
+    public static final String OBJECT_NAME =
+            "io.github.zelr0x.jrealize:type=Metrics";
+
+    private static final int BUCKETS = 32;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final Format[] FORMATS = Format.values();
+
+    private final LongAdder rowsFormatted = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder formatNanos = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final LongAdder files = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder fileNanos = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder planCompileNanos = new LongAdder();
+    private final AtomicReference<String> lastFailure =
+            new AtomicReference<>();
+    private final AtomicLongArray formatLatency = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray writeLatency = new AtomicLongArray(BUCKETS);
+    private final Map<Class<?>, PlanCounters> plans =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Creates metrics and registers them with the platform MBean server,
+     * replacing metrics registered before.
+     * @return the registered metrics
+     */
+    public static JmxMetrics register() {
+        final var metrics = new JmxMetrics();
+        final var server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final var name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(metrics, name);
+        } catch (JMException e) {
+            throw new IllegalStateException(
+                    "Cannot register " + OBJECT_NAME, e);
+        }
+        return metrics;
+    }
+
+    @Override
+    public void batchWritten(final int rows, final long formatTime,
+                             final long writeTime) {
+        rowsFormatted.add(rows);
+        batches.increment();
+        formatNanos.add(formatTime);
+        writeNanos.add(writeTime);
+        formatLatency.incrementAndGet(bucket(formatTime));
+        writeLatency.incrementAndGet(bucket(writeTime));
+    }
+
+    @Override
+    public void fileWritten(final Path file, final long rows,
+                            final long bytes, final long nanos) {
+        files.increment();
+        rowsWritten.add(rows);
+        bytesWritten.add(bytes);
+        fileNanos.add(nanos);
+    }
+
+    @Override
+    public void writeFailed(final Path file, final Throwable error) {
+        failures.increment();
+        lastFailure.set(file + ": " + error);
+    }
+
+    @Override
+    public void planLookup(final Class<?> type, final Format format) {
+        plans.computeIfAbsent(type, t -> new PlanCounters())
+                .lookups[format.ordinal()].increment();
+    }
+
+    @Override
+    public void planCompiled(final Class<?> type, final Format format,
+                             final long nanos) {
+        plans.computeIfAbsent(type, t -> new PlanCounters())
+                .misses[format.ordinal()].increment();
+        planCompileNanos.add(nanos);
+    }
+
+    @Override
+    public long getRowsFormatted() {
+        return rowsFormatted.sum();
+    }
+
+    @Override
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    @Override
+    public long getFormatNanos() {
+        return formatNanos.sum();
+    }
+
+    @Override
+    public long getWriteNanos() {
+        return writeNanos.sum();
+    }
+
+    @Override
+    public double getFormatTimeRatio() {
+        final double format = formatNanos.sum();
+        final var total = format + writeNanos.sum();
+        return total == 0 ? 0 : format / total;
+    }
+
+    @Override
+    public long getFilesWritten() {
+        return files.sum();
+    }
+
+    @Override
+    public long getRowsWritten() {
+        return rowsWritten.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public double getRowsPerSecond() {
+        return perSecond(rowsWritten.sum());
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return perSecond(bytesWritten.sum());
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public String getLastFailure() {
+        return lastFailure.get();
+    }
+
+    @Override
+    public Map<String, Long> getPlanCacheHits() {
+        return planCounts(true);
+    }
+
+    @Override
+    public Map<String, Long> getPlanCacheMisses() {
+        return planCounts(false);
+    }
+
+    @Override
+    public long getPlanCompileNanos() {
+        return planCompileNanos.sum();
+    }
+
+    @Override
+    public long[] getFormatLatencyHistogram() {
+        return snapshot(formatLatency);
+    }
+
+    @Override
+    public long[] getWriteLatencyHistogram() {
+        return snapshot(writeLatency);
+    }
+
+    @Override
+    public long[] getLatencyBucketBoundsMicros() {
+        final var bounds = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            bounds[i] = 1L << i;
+        }
+        bounds[BUCKETS - 1] = Long.MAX_VALUE;
+        return bounds;
+    }
+
+    @Override
+    public void reset() {
+        for (final var adder : new LongAdder[] {rowsFormatted, batches,
+                formatNanos, writeNanos, files, rowsWritten, bytesWritten,
+                fileNanos, failures, planCompileNanos}) {
+            adder.reset();
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            formatLatency.set(i, 0);
+            writeLatency.set(i, 0);
+        }
+        lastFailure.set(null);
+        plans.clear();
+    }
+
+    /**
+     * Finds the histogram bucket of a duration.
+     * @param nanos the duration in nanoseconds
+     * @return index of the bucket
+     */
+    private static int bucket(final long nanos) {
+        final var micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        return Math.min(Long.SIZE - Long.numberOfLeadingZeros(micros),
+                BUCKETS - 1);
+    }
+
+    /**
+     * Copies a histogram.
+     * @param histogram the histogram
+     * @return the copy
+     */
+    private static long[] snapshot(final AtomicLongArray histogram) {
+        final var res = new long[histogram.length()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = histogram.get(i);
+        }
+        return res;
+    }
+
+    /**
+     * Divides a count by the time spent writing files.
+     * @param count the count
+     * @return the count per second
+     */
+    private double perSecond(final long count) {
+        final var nanos = fileNanos.sum();
+        return nanos == 0 ? 0 : count * NANOS_PER_SECOND / nanos;
+    }
+
+    /**
+     * Gathers plan cache hits or misses of all looked up plans.
+     * @param hits true to gather hits, false to gather misses
+     * @return the counts by format and class name
+     */
+    private Map<String, Long> planCounts(final boolean hits) {
+        final Map<String, Long> res = new TreeMap<>();
+        plans.forEach((type, counters) -> {
+            for (final var format : FORMATS) {
+                final var lookups = counters.lookups[format.ordinal()].sum();
+                final var misses = counters.misses[format.ordinal()].sum();
+                if (lookups == 0 && misses == 0) continue;
+                res.put(format + " " + type.getName(), hits
+                        ? Math.max(lookups - misses, 0)
+                        : misses);
+            }
+        });
+        return res;
+    }
+
+    /**
+     * Plan cache counters of a single class by format.
+     */
+    private static final class PlanCounters {
+        private final LongAdder[] lookups = adders();
+        private final LongAdder[] misses = adders();
+
+        /**
+         * Creates a counter for each format.
+         * @return the counters
+         */
+        private static LongAdder[] adders() {
+            final var res = new LongAdder[FORMATS.length];
+            for (int i = 0; i < res.length; i++) {
+                res[i] = new LongAdder();
+            }
+            return res;
+        }
+    }
+}
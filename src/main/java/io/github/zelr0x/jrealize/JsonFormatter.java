@@ -0,0 +1,61 @@
+package io.github.zelr0x.jrealize;
+
+/**
+ * JSON formatter writing either elements of a JSON array
+ * or newline-delimited JSON (one object per line).
+ * Plans are cached per formatter and class, as CsvFormatter caches them,
+ * so a plan lookup is reported once rather than for every row.
+ */
+final class JsonFormatter implements Formatter {
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Accessor accessor;
+    private final ClassValue<JsonPlan> plans = new ClassValue<>() {
+        @Override
+        protected JsonPlan computeValue(final Class<?> type) {
+            return accessor.jsonPlan(type);
+        }
+    };
+    private final boolean array;
+
+    /**
+     * Constructs new JSON formatter.
+     * @param accessor backend used to read values of fields
+     * @param array whether objects are elements of a single JSON array
+     *              or separate lines of newline-delimited JSON
+     */
+    JsonFormatter(final Accessor accessor, final boolean array) {
+        this.accessor = accessor;
+        this.array = array;
+    }
+
+    @Override
+    public String format(final Object o) {
+        final var sb = new StringBuilder();
+        format(o, sb);
+        return sb.toString();
+    }
+
+    @Override
+    public void format(final Object o, final StringBuilder out) {
+        plans.get(o.getClass()).format(o, out);
+        if (!array) {
+            out.append(LINE_SEPARATOR);
+        }
+    }
+
+    @Override
+    public String prefix() {
+        return array ? "[" + LINE_SEPARATOR : "";
+    }
+
+    @Override
+    public String separator() {
+        return array ? "," + LINE_SEPARATOR : "";
+    }
+
+    @Override
+    public String suffix() {
+        return array ? LINE_SEPARATOR + "]" + LINE_SEPARATOR : "";
+    }
+}
@@ -0,0 +1,184 @@
+package io.github.zelr0x.jrealize;
+
+import io.github.zelr0x.jrealize.Annotation.Json;
+import io.github.zelr0x.jrealize.Annotation.JsonGetter;
+import io.github.zelr0x.jrealize.Annotation.Util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Compiled JSON serialization plan of a class.
+ * Holds the fields marked with @Json annotation together with their
+ * already escaped and quoted names, so names are escaped once per class.
+ * Numbers and booleans are written as JSON literals, values of classes
+ * with @Json fields as nested objects and all other values as strings
+ * produced by their @JsonGetter or toString().
+ * An object of a class which is already being written higher up the path
+ * would nest forever if the objects form a cycle, so it is written
+ * as a string as well, as CsvPlan writes such a field as a single column.
+ * Plans of nested objects are cached per plan and class, so they are
+ * looked up once rather than for every value.
+ */
+final class JsonPlan {
+    private static final String NULL = "null";
+
+    private final Class<?> clazz;
+    private final Accessor accessor;
+    private final ClassValue<JsonPlan> nestedPlans = new ClassValue<>() {
+        @Override
+        protected JsonPlan computeValue(final Class<?> type) {
+            return accessor.jsonPlan(type);
+        }
+    };
+    private final String[] names;
+    private final ValueWriter[] writers;
+    private final boolean hasGetter;
+
+    /**
+     * Compiles a plan for a specified class.
+     * @param clazz a class which fields marked with @Json to gather
+     * @param accessor a backend to read the fields with
+     */
+    JsonPlan(final Class<?> clazz, final Accessor accessor) {
+        this.clazz = clazz;
+        this.accessor = accessor;
+        final var fields = Util.getAnnotatedFields(clazz, Json.class)
+                .toArray(Field[]::new);
+        this.names = new String[fields.length];
+        this.writers = new ValueWriter[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            final var name = fields[i].getAnnotation(Json.class).name();
+            names[i] = (i == 0 ? "{" : ",") + JsonStrings.quote(
+                    name.isEmpty() ? fields[i].getName() : name) + ":";
+            writers[i] = writer(fields[i]);
+        }
+        final Method getter = Util.findGetter(clazz, JsonGetter.class);
+        this.hasGetter = getter != null;
+    }
+
+    /**
+     * Appends a specified object as a JSON object.
+     * @param obj an object of the class of this plan
+     * @param out a buffer to append the object to
+     */
+    void format(final Object obj, final StringBuilder out) {
+        format(obj, out, null);
+    }
+
+    /**
+     * Appends a specified object as a JSON object nested in other objects.
+     * @param obj an object of the class of this plan
+     * @param out a buffer to append the object to
+     * @param path classes of the objects the object is nested in,
+     *             null for a top level object
+     */
+    private void format(final Object obj, final StringBuilder out,
+                        final List<Class<?>> path) {
+        if (names.length == 0) {
+            out.append("{}");
+            return;
+        }
+        for (int i = 0; i < names.length; i++) {
+            out.append(names[i]);
+            writers[i].write(obj, out, path);
+        }
+        out.append('}');
+    }
+
+    /**
+     * Creates a writer of a value of a specified field.
+     * @param field an accessible field
+     * @return the writer of the field
+     */
+    private ValueWriter writer(final Field field) {
+        final var type = field.getType();
+        if (type == char.class) {
+            final Function<Object, Object> getter = accessor.getter(field);
+            return (obj, out, path) -> JsonStrings.appendQuoted(out,
+                    String.valueOf(getter.apply(obj)));
+        } else if (type == double.class || type == float.class) {
+            final var reader = accessor.reader(field);
+            return (obj, out, path) -> {
+                final var start = out.length();
+                reader.append(obj, out);
+                replaceNonFinite(out, start);
+            };
+        } else if (type.isPrimitive()) {
+            final var reader = accessor.reader(field);
+            return (obj, out, path) -> reader.append(obj, out);
+        }
+        final Function<Object, Object> getter = accessor.getter(field);
+        return (obj, out, path) -> writeValue(getter.apply(obj), out, path);
+    }
+
+    /**
+     * Appends a value of a reference type.
+     * @param value a value to append
+     * @param out a buffer to append the value to
+     * @param path classes of the objects the object of this plan
+     *             is nested in, null for a top level object
+     */
+    private void writeValue(final Object value, final StringBuilder out,
+                            final List<Class<?>> path) {
+        if (value == null) {
+            out.append(NULL);
+        } else if (value instanceof Boolean) {
+            out.append(((Boolean) value).booleanValue());
+        } else if (value instanceof Number) {
+            final var start = out.length();
+            out.append(value);
+            replaceNonFinite(out, start);
+        } else if (value instanceof CharSequence) {
+            JsonStrings.appendQuoted(out, (CharSequence) value);
+        } else {
+            final var type = value.getClass();
+            final var plan = nestedPlans.get(type);
+            final var onPath = type == clazz
+                    || path != null && path.contains(type);
+            if (plan.names.length > 0 && !plan.hasGetter && !onPath) {
+                final List<Class<?>> nested = path == null
+                        ? new ArrayList<>()
+                        : path;
+                nested.add(clazz);
+                plan.format(value, out, nested);
+                nested.remove(nested.size() - 1);
+            } else {
+                JsonStrings.appendQuoted(out,
+                        Util.valueToString(value, JsonGetter.class));
+            }
+        }
+    }
+
+    /**
+     * Replaces NaN and infinities, which JSON cannot represent, with null.
+     * @param out a buffer ending with a number
+     * @param start index of the first character of the number
+     */
+    private static void replaceNonFinite(final StringBuilder out,
+                                         final int start) {
+        final var c = out.charAt(out.length() - 1);
+        if (c == 'N' || c == 'y') {
+            out.setLength(start);
+            out.append(NULL);
+        }
+    }
+
+    /**
+     * Appends the value of a single field as a JSON value.
+     */
+    @FunctionalInterface
+    private interface ValueWriter {
+        /**
+         * Appends the value of the field of a specified object.
+         * @param obj an object which field to write
+         * @param out a buffer to append the value to
+         * @param path classes of the objects the object is nested in,
+         *             null for a top level object
+         */
+        void write(Object obj, StringBuilder out, List<Class<?>> path);
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.zelr0x.jrealize;
+
+/**
+ * JSON string escaping without regular expressions.
+ * Values are appended as is and escaped in place only if they contain
+ * characters that have to be escaped, so clean values are copied once.
+ */
+final class JsonStrings {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int CONTROL_LIMIT = 0x20;
+    private static final int HIGH_NIBBLE = 4;
+    private static final int LOW_NIBBLE_MASK = 0xF;
+
+    /**
+     * Prevents instantiation.
+     */
+    private JsonStrings() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Appends a quoted and escaped JSON string.
+     * @param out a buffer to append to
+     * @param value a value to append
+     */
+    static void appendQuoted(final StringBuilder out,
+                             final CharSequence value) {
+        out.append('"');
+        final var start = out.length();
+        out.append(value);
+        escapeTail(out, start);
+        out.append('"');
+    }
+
+    /**
+     * Returns a quoted and escaped JSON string.
+     * @param value a value to quote
+     * @return the quoted value
+     */
+    static String quote(final CharSequence value) {
+        final var sb = new StringBuilder(value.length() + 2);
+        appendQuoted(sb, value);
+        return sb.toString();
+    }
+
+    /**
+     * Escapes characters of a buffer starting at a specified index.
+     * @param out a buffer which tail to escape
+     * @param start index of the first character to escape
+     */
+    static void escapeTail(final StringBuilder out, final int start) {
+        final var end = out.length();
+        var i = start;
+        while (i < end && !needsEscape(out.charAt(i))) {
+            i++;
+        }
+        if (i == end) return;
+        final var tail = out.substring(i);
+        out.setLength(i);
+        for (int j = 0; j < tail.length(); j++) {
+            appendEscaped(out, tail.charAt(j));
+        }
+    }
+
+    /**
+     * Checks if a character has to be escaped in a JSON string.
+     * @param c a character to check
+     * @return true for quotes, backslashes and control characters
+     */
+    private static boolean needsEscape(final char c) {
+        return c < CONTROL_LIMIT || c == '"' || c == '\\';
+    }
+
+    /**
+     * Appends a character escaping it if necessary.
+     * @param out a buffer to append to
+     * @param c a character to append
+     */
+    private static void appendEscaped(final StringBuilder out, final char c) {
+        switch (c) {
+            case '"':
+                out.append("\\\"");
+                break;
+            case '\\':
+                out.append("\\\\");
+                break;
+            case '\n':
+                out.append("\\n");
+                break;
+            case '\r':
+                out.append("\\r");
+                break;
+            case '\t':
+                out.append("\\t");
+                break;
+            case '\b':
+                out.append("\\b");
+                break;
+            case '\f':
+                out.append("\\f");
+                break;
+            default:
+                if (c < CONTROL_LIMIT) {
+                    out.append("\\u00")
+                            .append(HEX[c >> HIGH_NIBBLE])
+                            .append(HEX[c & LOW_NIBBLE_MASK]);
+                } else {
+                    out.append(c);
+                }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.zelr0x.jrealize;
+
+import java.nio.file.Path;
+
+/**
+ * Receives measurements of exports, set with
+ * {@link Serializer#setMetricsListener(MetricsListener)}.
+ * Rows are measured in batches: the time spent formatting rows and the time
+ * spent handing them to the output are reported separately, so an export
+ * bound by CPU can be told from one bound by disk. Methods are called
+ * concurrently by all writing threads and have to be thread-safe and cheap.
+ * All methods do nothing by default.
+ */
+public interface MetricsListener {
+    /**
+     * Listener ignoring all measurements. Exports aren't timed when it is set.
+     */
+    MetricsListener NOOP = new MetricsListener() { };
+
+    /**
+     * Called after a batch of rows is formatted and written.
+     * For binary output the batch is a block and its formatting is encoding.
+     * @param rows number of rows in the batch
+     * @param formatNanos time spent formatting the rows, in nanoseconds
+     * @param writeNanos time spent writing the rows, in nanoseconds
+     */
+    default void batchWritten(final int rows, final long formatNanos,
+                              final long writeNanos) {
+    }
+
+    /**
+     * Called after all rows of a single write are appended to a file.
+     * Each part of a rolling output is a separate file.
+     * @param file path of the file
+     * @param rows number of rows appended
+     * @param bytes number of bytes appended to the file, after compression
+     * @param nanos time spent appending, in nanoseconds
+     */
+    default void fileWritten(final Path file, final long rows,
+                             final long bytes, final long nanos) {
+    }
+
+    /**
+     * Called when a write fails.
+     * @param file path of the file being written
+     * @param error the failure
+     */
+    default void writeFailed(final Path file, final Throwable error) {
+    }
+
+    /**
+     * Called when the serialization plan of a class is looked up.
+     * Lookups which are not followed by {@link #planCompiled} are hits.
+     * @param type the class which plan is looked up
+     * @param format format of the plan. JSON and NDJSON share JSON plans
+     */
+    default void planLookup(final Class<?> type, final Format format) {
+    }
+
+    /**
+     * Called when the serialization plan of a class is compiled because
+     * it is not cached yet, after the lookup that missed it.
+     * @param type the class which plan is compiled
+     * @param format format of the plan
+     * @param nanos time spent compiling, in nanoseconds
+     */
+    default void planCompiled(final Class<?> type, final Format format,
+                              final long nanos) {
+    }
+}
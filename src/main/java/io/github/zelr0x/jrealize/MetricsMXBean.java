@@ -0,0 +1,130 @@
+package io.github.zelr0x.jrealize;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link JmxMetrics}.
+ * Time is split between formatting rows and writing them, so
+ * a FormatTimeRatio close to 1 means exports are bound by CPU
+ * and a ratio close to 0 means they are bound by the output.
+ * Latency histograms count batches by their duration: bucket 0 counts
+ * batches shorter than 1 microsecond and bucket i counts batches taking
+ * from 2^(i-1) up to 2^i microseconds, the last bucket counts all
+ * longer batches.
+ */
+public interface MetricsMXBean {
+    /**
+     * Returns the number of rows formatted in reported batches.
+     * @return the number of rows
+     */
+    long getRowsFormatted();
+
+    /**
+     * Returns the number of reported batches.
+     * @return the number of batches
+     */
+    long getBatches();
+
+    /**
+     * Returns the total time spent formatting rows.
+     * @return the time in nanoseconds
+     */
+    long getFormatNanos();
+
+    /**
+     * Returns the total time spent writing formatted rows.
+     * @return the time in nanoseconds
+     */
+    long getWriteNanos();
+
+    /**
+     * Returns the share of formatting in the time spent on batches.
+     * @return a ratio from 0 to 1, 0 if nothing is measured yet
+     */
+    double getFormatTimeRatio();
+
+    /**
+     * Returns the number of files written.
+     * @return the number of files
+     */
+    long getFilesWritten();
+
+    /**
+     * Returns the number of rows appended to written files.
+     * @return the number of rows
+     */
+    long getRowsWritten();
+
+    /**
+     * Returns the number of bytes appended to written files.
+     * @return the number of bytes
+     */
+    long getBytesWritten();
+
+    /**
+     * Returns the average throughput of writing a single file.
+     * @return rows per second, 0 if no file is written yet
+     */
+    double getRowsPerSecond();
+
+    /**
+     * Returns the average output rate of writing a single file.
+     * @return bytes per second, 0 if no file is written yet
+     */
+    double getBytesPerSecond();
+
+    /**
+     * Returns the number of failed writes.
+     * @return the number of failures
+     */
+    long getFailures();
+
+    /**
+     * Describes the last failed write.
+     * @return the file and the failure, null if nothing failed
+     */
+    String getLastFailure();
+
+    /**
+     * Returns the number of plan cache hits by plan, keyed by
+     * the format of the plan followed by the name of its class.
+     * @return the hits by plan
+     */
+    Map<String, Long> getPlanCacheHits();
+
+    /**
+     * Returns the number of plan cache misses by plan, keyed by
+     * the format of the plan followed by the name of its class.
+     * @return the misses by plan
+     */
+    Map<String, Long> getPlanCacheMisses();
+
+    /**
+     * Returns the total time spent compiling plans.
+     * @return the time in nanoseconds
+     */
+    long getPlanCompileNanos();
+
+    /**
+     * Returns the histogram of formatting times of batches.
+     * @return batch counts by bucket
+     */
+    long[] getFormatLatencyHistogram();
+
+    /**
+     * Returns the histogram of writing times of batches.
+     * @return batch counts by bucket
+     */
+    long[] getWriteLatencyHistogram();
+
+    /**
+     * Returns the exclusive upper bounds of histogram buckets.
+     * @return the bounds in microseconds, Long.MAX_VALUE for the last bucket
+     */
+    long[] getLatencyBucketBoundsMicros();
+
+    /**
+     * Resets all measurements.
+     */
+    void reset();
+}
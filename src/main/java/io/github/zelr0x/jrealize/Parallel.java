@@ -0,0 +1,74 @@
+package io.github.zelr0x.jrealize;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Option that formats rows on multiple threads.
+ * Input is split into chunks of rows which are formatted concurrently
+ * and written to the file either in the original order or in the order
+ * in which they are ready. Only a bounded number of chunks is held
+ * in memory at once.
+ */
+public final class Parallel implements WriteOption {
+    /**
+     * Default number of rows in a chunk.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    private final Executor executor;
+    private final int chunkSize;
+    private final boolean ordered;
+
+    /**
+     * Constructs an option that formats chunks of default size
+     * in the common ForkJoinPool.
+     * @param ordered whether rows have to be written in the original order
+     */
+    public Parallel(final boolean ordered) {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE, ordered);
+    }
+
+    /**
+     * Constructs an option that formats chunks with a specified executor.
+     * @param executor executor to format chunks with
+     * @param chunkSize number of rows in a chunk
+     * @param ordered whether rows have to be written in the original order.
+     *                Unordered output writes every chunk as soon as it is
+     *                formatted
+     */
+    public Parallel(final Executor executor, final int chunkSize,
+                    final boolean ordered) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException(
+                    "Chunk size must be positive: " + chunkSize);
+        }
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.ordered = ordered;
+    }
+
+    /**
+     * Returns the executor chunks are formatted with.
+     * @return the executor
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Returns the number of rows in a chunk.
+     * @return the number of rows in a chunk
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Returns whether rows are written in the original order.
+     * @return true if rows are written in the original order
+     */
+    public boolean isOrdered() {
+        return ordered;
+    }
+}
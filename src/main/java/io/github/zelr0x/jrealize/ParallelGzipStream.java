@@ -0,0 +1,160 @@
+package io.github.zelr0x.jrealize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Stream compressing blocks of its input on multiple threads.
+ * Every block is compressed into a complete gzip member and members
+ * are written in the order of the input, which makes a valid
+ * multi-member gzip file. Only a bounded number of blocks is held
+ * in memory at once.
+ */
+final class ParallelGzipStream extends OutputStream {
+    private static final int BLOCKS_PER_CPU = 2;
+    private static final int MAX_BLOCKS_IN_FLIGHT =
+            Runtime.getRuntime().availableProcessors() * BLOCKS_PER_CPU;
+    private static final int COMPRESSION_RATIO_GUESS = 4;
+
+    private final OutputStream out;
+    private final Gzip options;
+    private final ArrayDeque<CompletableFuture<byte[]>> inFlight =
+            new ArrayDeque<>();
+    private byte[] block;
+    private int count;
+    private boolean written;
+    private boolean closed;
+
+    /**
+     * Constructs new stream.
+     * @param out a stream to write compressed output to
+     * @param options compression options
+     */
+    ParallelGzipStream(final OutputStream out, final Gzip options) {
+        this.out = out;
+        this.options = options;
+        this.block = new byte[options.getBlockSize()];
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        block[count++] = (byte) b;
+        if (count == block.length) {
+            submit();
+        }
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len)
+            throws IOException {
+        var offset = off;
+        var remaining = len;
+        while (remaining > 0) {
+            final var n = Math.min(remaining, block.length - count);
+            System.arraycopy(b, offset, block, count, n);
+            count += n;
+            offset += n;
+            remaining -= n;
+            if (count == block.length) {
+                submit();
+            }
+        }
+    }
+
+    /**
+     * Flushes the compressed blocks that are ready. The current block
+     * is not compressed until it is full or the stream is closed,
+     * so flushing doesn't produce small members.
+     * @throws IOException if a block cannot be written
+     */
+    @Override
+    public void flush() throws IOException {
+        while (!inFlight.isEmpty() && inFlight.peek().isDone()) {
+            writeMember(inFlight.poll());
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            if (count > 0 || !written && inFlight.isEmpty()) {
+                submit();
+            }
+            while (!inFlight.isEmpty()) {
+                writeMember(inFlight.poll());
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Starts compression of the current block.
+     * @throws IOException if a previous block cannot be written
+     */
+    private void submit() throws IOException {
+        if (inFlight.size() == MAX_BLOCKS_IN_FLIGHT) {
+            writeMember(inFlight.poll());
+        }
+        final var data = block;
+        final var length = count;
+        final var level = options.getLevel();
+        inFlight.add(CompletableFuture.supplyAsync(
+                () -> compress(data, length, level), options.getExecutor()));
+        block = new byte[block.length];
+        count = 0;
+    }
+
+    /**
+     * Writes a compressed block.
+     * @param member a future of the compressed block
+     * @throws IOException if the block cannot be written
+     */
+    private void writeMember(final CompletableFuture<byte[]> member)
+            throws IOException {
+        final byte[] bytes;
+        try {
+            bytes = member.join();
+        } catch (CompletionException e) {
+            final var cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+        out.write(bytes);
+        written = true;
+    }
+
+    /**
+     * Compresses a block into a gzip member.
+     * @param data the block
+     * @param length number of bytes of the block
+     * @param level compression level
+     * @return the gzip member
+     */
+    private static byte[] compress(final byte[] data, final int length,
+                                   final int level) {
+        final var res = new ByteArrayOutputStream(
+                length / COMPRESSION_RATIO_GUESS + 1);
+        try (var gzip = new Gzip.LeveledGzipStream(res,
+                Gzip.BUFFER_SIZE, level, false)) {
+            gzip.write(data, 0, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return res.toByteArray();
+    }
+}
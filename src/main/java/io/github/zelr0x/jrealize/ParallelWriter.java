@@ -0,0 +1,250 @@
+package io.github.zelr0x.jrealize;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Formats chunks of rows on multiple threads and writes them
+ * with a single writer. Rows within a chunk are separated by the formatter
+ * and chunks are separated by the writer, so separators end up between
+ * all rows in both ordered and unordered modes.
+ * Each chunk is reported to the metrics listener as a batch, with the time
+ * its formatting took on a worker and the time its writing took.
+ */
+final class ParallelWriter {
+    private static final int CHUNKS_PER_CPU = 2;
+    private static final int MAX_CHUNKS_IN_FLIGHT =
+            Runtime.getRuntime().availableProcessors() * CHUNKS_PER_CPU;
+    private static final ThreadLocal<StringBuilder> CHUNK_BUFFER =
+            ThreadLocal.withInitial(StringBuilder::new);
+
+    /**
+     * Prevents instantiation.
+     */
+    private ParallelWriter() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Formats objects in chunks and writes them.
+     * @param items objects to write
+     * @param formatter a function used to serialize each object
+     * @param out a writer to write the formatted chunks to
+     * @param parallel parallel formatting options
+     * @param listener listener receiving measurements of written chunks
+     * @return number of objects written
+     * @throws IOException if a chunk cannot be written
+     */
+    static long write(final Iterator<?> items, final Formatter formatter,
+                      final Writer out, final Parallel parallel,
+                      final MetricsListener listener) throws IOException {
+        final var writer = new ChunkWriter(formatter, out, listener);
+        if (parallel.isOrdered()) {
+            writeOrdered(items, formatter, writer, parallel);
+        } else {
+            writeUnordered(items, formatter, writer, parallel);
+        }
+        return writer.rows;
+    }
+
+    /**
+     * Writes formatted chunks in the order of the input.
+     * @param items objects to write
+     * @param formatter a function used to serialize each object
+     * @param out a writer of the formatted chunks
+     * @param parallel parallel formatting options
+     * @throws IOException if a chunk cannot be written
+     */
+    private static void writeOrdered(final Iterator<?> items,
+            final Formatter formatter, final ChunkWriter out,
+            final Parallel parallel) throws IOException {
+        final var inFlight = new ArrayDeque<CompletableFuture<Chunk>>();
+        while (items.hasNext()) {
+            if (inFlight.size() == MAX_CHUNKS_IN_FLIGHT) {
+                out.write(join(inFlight.poll()));
+            }
+            inFlight.add(submit(nextChunk(items, parallel.getChunkSize()),
+                    formatter, parallel));
+        }
+        while (!inFlight.isEmpty()) {
+            out.write(join(inFlight.poll()));
+        }
+    }
+
+    /**
+     * Writes formatted chunks as soon as they are ready.
+     * @param items objects to write
+     * @param formatter a function used to serialize each object
+     * @param out a writer of the formatted chunks
+     * @param parallel parallel formatting options
+     * @throws IOException if a chunk cannot be written
+     */
+    private static void writeUnordered(final Iterator<?> items,
+            final Formatter formatter, final ChunkWriter out,
+            final Parallel parallel) throws IOException {
+        final BlockingQueue<CompletableFuture<Chunk>> done =
+                new LinkedBlockingQueue<>();
+        var inFlight = 0;
+        while (items.hasNext()) {
+            if (inFlight == MAX_CHUNKS_IN_FLIGHT) {
+                out.write(join(take(done)));
+                inFlight--;
+            }
+            final var chunk = submit(
+                    nextChunk(items, parallel.getChunkSize()),
+                    formatter, parallel);
+            chunk.whenComplete((res, e) -> done.add(chunk));
+            inFlight++;
+        }
+        for (; inFlight > 0; inFlight--) {
+            out.write(join(take(done)));
+        }
+    }
+
+    /**
+     * Pulls the next chunk of objects.
+     * @param items objects to write
+     * @param size maximum number of objects in a chunk
+     * @return the chunk
+     */
+    private static List<Object> nextChunk(final Iterator<?> items,
+                                          final int size) {
+        final var chunk = new ArrayList<>(size);
+        while (chunk.size() < size && items.hasNext()) {
+            chunk.add(items.next());
+        }
+        return chunk;
+    }
+
+    /**
+     * Starts formatting of a chunk.
+     * @param chunk objects to format
+     * @param formatter a function used to serialize each object
+     * @param parallel parallel formatting options
+     * @return a future of the formatted chunk
+     */
+    private static CompletableFuture<Chunk> submit(final List<Object> chunk,
+            final Formatter formatter, final Parallel parallel) {
+        final var separator = formatter.separator();
+        return CompletableFuture.supplyAsync(() -> {
+            final var start = System.nanoTime();
+            final var sb = CHUNK_BUFFER.get();
+            sb.setLength(0);
+            for (int i = 0; i < chunk.size(); i++) {
+                if (i > 0) {
+                    sb.append(separator);
+                }
+                formatter.format(chunk.get(i), sb);
+            }
+            final var chars = new char[sb.length()];
+            sb.getChars(0, chars.length, chars, 0);
+            return new Chunk(chars, chunk.size(), System.nanoTime() - start);
+        }, parallel.getExecutor());
+    }
+
+    /**
+     * Waits for a formatted chunk rethrowing the failure of formatting.
+     * @param chunk a future of the formatted chunk
+     * @return the formatted chunk
+     */
+    private static Chunk join(final CompletableFuture<Chunk> chunk) {
+        try {
+            return chunk.join();
+        } catch (CompletionException e) {
+            final var cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Takes the next completed chunk.
+     * @param done queue of completed chunks
+     * @return the completed chunk
+     */
+    private static CompletableFuture<Chunk> take(
+            final BlockingQueue<CompletableFuture<Chunk>> done) {
+        try {
+            return done.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing", e);
+        }
+    }
+
+    /**
+     * Formatted chunk of rows.
+     */
+    private static final class Chunk {
+        private final char[] chars;
+        private final int rows;
+        private final long formatNanos;
+
+        /**
+         * Constructs new chunk.
+         * @param chars the formatted rows
+         * @param rows number of rows in the chunk
+         * @param formatNanos time spent formatting the rows
+         */
+        Chunk(final char[] chars, final int rows, final long formatNanos) {
+            this.chars = chars;
+            this.rows = rows;
+            this.formatNanos = formatNanos;
+        }
+    }
+
+    /**
+     * Writes formatted chunks separating them with the separator
+     * of the formatter and reports them to the metrics listener.
+     */
+    private static final class ChunkWriter {
+        private final Formatter formatter;
+        private final Writer out;
+        private final MetricsListener listener;
+        private long rows;
+
+        /**
+         * Constructs new chunk writer.
+         * @param formatter the formatter of the chunks
+         * @param out a writer to write the chunks to
+         * @param listener listener receiving measurements of the chunks
+         */
+        ChunkWriter(final Formatter formatter, final Writer out,
+                    final MetricsListener listener) {
+            this.formatter = formatter;
+            this.out = out;
+            this.listener = listener;
+        }
+
+        /**
+         * Writes a formatted chunk preceded by the separator
+         * unless it is the first chunk.
+         * @param chunk the formatted chunk
+         * @throws IOException if the chunk cannot be written
+         */
+        void write(final Chunk chunk) throws IOException {
+            final var start = System.nanoTime();
+            if (rows > 0) {
+                out.write(formatter.separator());
+            }
+            out.write(chunk.chars);
+            rows += chunk.rows;
+            if (listener != MetricsListener.NOOP) {
+                listener.batchWritten(chunk.rows, chunk.formatNanos,
+                        System.nanoTime() - start);
+            }
+        }
+    }
+}
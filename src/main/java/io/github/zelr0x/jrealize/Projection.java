@@ -0,0 +1,98 @@
+package io.github.zelr0x.jrealize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Option that writes only some of the @Csv columns, in a given order.
+ * Columns are selected by their column numbers or by the names of their
+ * fields; columns of flattened nested objects are selected by their
+ * dotted paths ("address.city") or all at once by the outer field.
+ * A plan is compiled and cached for each class and projection,
+ * so fields left out are neither read nor formatted. Equal projections
+ * share plans, so a projection doesn't have to be kept between exports.
+ * Only CSV can be projected.
+ */
+public final class Projection implements WriteOption {
+    private final List<Object> columns;
+
+    /**
+     * Constructs new projection.
+     * @param columns column numbers and field names of selected columns
+     */
+    private Projection(final List<Object> columns) {
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("No columns are selected");
+        }
+        this.columns = columns;
+    }
+
+    /**
+     * Creates a projection selecting columns by column number.
+     * @param cols column numbers as in @Csv(col), in the order to write
+     * @return the projection
+     */
+    public static Projection cols(final int... cols) {
+        final var columns = new ArrayList<>(cols.length);
+        for (final var col : cols) {
+            columns.add(col);
+        }
+        return new Projection(columns);
+    }
+
+    /**
+     * Creates a projection selecting columns by field name.
+     * @param fields names of @Csv fields, in the order to write
+     * @return the projection
+     */
+    public static Projection fields(final String... fields) {
+        return new Projection(List.of((Object[]) fields));
+    }
+
+    /**
+     * Selects the columns of a class in the order of this projection.
+     * A column number or the name of a flattened field selects all
+     * of its columns, see {@link CsvPlan}.
+     * @param clazz the class of the columns
+     * @param all all columns of the class
+     * @return the selected columns
+     * @throws IllegalArgumentException if the class has no selected column
+     */
+    List<CsvPlan.Column> select(final Class<?> clazz,
+                                final List<CsvPlan.Column> all) {
+        final var res = new ArrayList<CsvPlan.Column>();
+        for (final var column : columns) {
+            final var size = res.size();
+            for (final var c : all) {
+                if (column instanceof Integer
+                        ? c.col() == (int) column
+                        : c.name().equals(column)
+                                || c.name().startsWith(
+                                        column + CsvPlan.PATH_SEPARATOR)) {
+                    res.add(c);
+                }
+            }
+            if (res.size() == size) {
+                throw new IllegalArgumentException(
+                        clazz.getName() + " has no @Csv column " + column);
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof Projection
+                && columns.equals(((Projection) o).columns);
+    }
+
+    @Override
+    public int hashCode() {
+        return columns.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Projection" + columns;
+    }
+}
@@ -0,0 +1,162 @@
+package io.github.zelr0x.jrealize;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Option that splits the output into part files.
+ * A new part is started after a number of rows, after a number of bytes
+ * or whenever the value of a @Csv column changes. The name of each part
+ * is derived from the file name passed to Serializer, by default
+ * by inserting the index of the part before the extension
+ * ("employees.csv" becomes "employees-00000.csv", "employees-00001.csv"
+ * and so on). Each part is a complete file of its format.
+ */
+public final class Rolling implements WriteOption {
+    /**
+     * Default naming which inserts the zero-padded index of a part
+     * before the extension of the file name.
+     */
+    public static final Naming INDEXED = (filename, index, key) -> {
+        final var dot = filename.lastIndexOf('.');
+        final var base = dot > 0 ? filename.substring(0, dot) : filename;
+        final var extension = dot > 0 ? filename.substring(dot) : "";
+        return String.format("%s-%05d%s", base, index, extension);
+    };
+
+    /**
+     * Condition which starts a new part.
+     */
+    enum Mode {
+        ROWS, BYTES, KEY
+    }
+
+    private final Mode mode;
+    private final long limit;
+    private final Naming naming;
+    private final Executor executor;
+
+    /**
+     * Constructs new option.
+     * @param mode condition which starts a new part
+     * @param limit number of rows or bytes of a part or column of the key
+     * @param naming naming of the parts
+     * @param executor executor to write parts with or null
+     */
+    private Rolling(final Mode mode, final long limit, final Naming naming,
+                    final Executor executor) {
+        if (limit < 1) {
+            throw new IllegalArgumentException(
+                    "Limit must be positive: " + limit);
+        }
+        this.mode = mode;
+        this.limit = limit;
+        this.naming = naming;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates an option that starts a new part after a number of rows.
+     * @param rows maximum number of rows of a part
+     * @return the option
+     */
+    public static Rolling rows(final long rows) {
+        return new Rolling(Mode.ROWS, rows, INDEXED, null);
+    }
+
+    /**
+     * Creates an option that starts a new part at the first row
+     * boundary after a part reaches a number of bytes on the disk.
+     * Compressed parts are measured after compression. Only text formats
+     * compressed on a single thread, if at all, can be split by size.
+     * @param bytes size of a part
+     * @return the option
+     */
+    public static Rolling bytes(final long bytes) {
+        return new Rolling(Mode.BYTES, bytes, INDEXED, null);
+    }
+
+    /**
+     * Creates an option that starts a new part whenever the value
+     * of a specified @Csv column changes. Input sorted or grouped
+     * by the column produces a part per value.
+     * @param col column number of the key, as in @Csv(col)
+     * @return the option
+     */
+    public static Rolling key(final int col) {
+        return new Rolling(Mode.KEY, col, INDEXED, null);
+    }
+
+    /**
+     * Returns a copy of this option with a specified naming of parts.
+     * @param partNaming naming of the parts
+     * @return the option
+     */
+    public Rolling named(final Naming partNaming) {
+        return new Rolling(mode, limit, partNaming, executor);
+    }
+
+    /**
+     * Returns a copy of this option which writes several parts at once
+     * with a specified executor. Parts written in parallel are held
+     * in memory until they are written, so only a bounded number of them
+     * is in flight. Not supported when splitting by size.
+     * @param partExecutor executor to write parts with
+     * @return the option
+     */
+    public Rolling inParallel(final Executor partExecutor) {
+        if (mode == Mode.BYTES) {
+            throw new IllegalArgumentException(
+                    "Parts split by size cannot be written in parallel");
+        }
+        return new Rolling(mode, limit, naming, partExecutor);
+    }
+
+    /**
+     * Returns the condition which starts a new part.
+     * @return the condition
+     */
+    Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the number of rows or bytes of a part
+     * or the column of the key.
+     * @return the limit
+     */
+    long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the naming of the parts.
+     * @return the naming
+     */
+    Naming getNaming() {
+        return naming;
+    }
+
+    /**
+     * Returns the executor parts are written with.
+     * @return the executor or null if parts are written one by one
+     */
+    Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Naming of part files.
+     */
+    @FunctionalInterface
+    public interface Naming {
+        /**
+         * Returns the name of a part.
+         * @param filename the file name passed to Serializer
+         * @param index index of the part starting from 0
+         * @param key value of the key column of the part,
+         *            null unless splitting by key
+         * @return the name of the part file
+         */
+        String name(String filename, long index, Object key);
+    }
+}
@@ -0,0 +1,409 @@
+package io.github.zelr0x.jrealize;
+
+import io.github.zelr0x.jrealize.Annotation.Csv;
+import io.github.zelr0x.jrealize.Annotation.Util;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Splits a stream of objects into part files according to a Rolling option.
+ * Parts split by rows or by key are streamed through the regular write
+ * path one after another, or gathered and written concurrently if the
+ * option has an executor. Parts split by size are written here, counting
+ * the bytes that reach the file below compression, so the limit is
+ * the size of a part on the disk whether it is compressed or not.
+ */
+final class RollingWriter {
+    private static final int PARTS_PER_CPU = 2;
+    private static final int MAX_PARTS_IN_FLIGHT =
+            Runtime.getRuntime().availableProcessors() * PARTS_PER_CPU;
+
+    /**
+     * Prevents instantiation.
+     */
+    private RollingWriter() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Writes objects to part files named after a specified file.
+     * @param items objects to write
+     * @param formatter a function used to serialize each object
+     * @param file path of the file the parts are named after
+     * @param charset charset to use
+     * @param options options of the export including the rolling option
+     * @throws IOException if a part cannot be written
+     */
+    static void write(final Stream<?> items, final Formatter formatter,
+                      final Path file, final Charset charset,
+                      final WriteOptions options) throws IOException {
+        final var rolling = options.rolling();
+        if (rolling.getMode() == Rolling.Mode.BYTES) {
+            if (formatter instanceof BinaryFormatter) {
+                throw new IllegalArgumentException(
+                        "Binary output cannot be split by size");
+            } else if (options.parallel() != null
+                    || options.channel() != null) {
+                throw new IllegalArgumentException("Output split by size"
+                        + " cannot be formatted in parallel or written"
+                        + " with ChannelOutput");
+            } else if (options.gzip() != null
+                    && options.gzip().getExecutor() != null) {
+                throw new IllegalArgumentException("Output split by size"
+                        + " cannot be compressed on multiple threads");
+            }
+            writeBySize(items.iterator(), formatter, file, charset,
+                    options);
+        } else if (rolling.getExecutor() == null) {
+            writeSequential(new Parts(items.iterator(), rolling), formatter,
+                    file, charset, options.withoutRolling());
+        } else {
+            writeParallel(new Parts(items.iterator(), rolling), formatter,
+                    file, charset, options.withoutRolling(),
+                    rolling);
+        }
+    }
+
+    /**
+     * Streams parts one after another.
+     * @param parts the parts of the input
+     * @param formatter a function used to serialize each object
+     * @param file path of the file the parts are named after
+     * @param charset charset to use
+     * @param options options of a single part
+     * @throws IOException if a part cannot be written
+     */
+    private static void writeSequential(final Parts parts,
+            final Formatter formatter, final Path file,
+            final Charset charset, final WriteOptions options)
+            throws IOException {
+        while (parts.hasNext()) {
+            final var part = parts.next(file);
+            Serializer.append(Serializer.toStream(part), formatter,
+                    part.path, charset, options);
+        }
+    }
+
+    /**
+     * Gathers parts and writes several of them at once.
+     * @param parts the parts of the input
+     * @param formatter a function used to serialize each object
+     * @param file path of the file the parts are named after
+     * @param charset charset to use
+     * @param options options of a single part
+     * @param rolling the rolling option
+     * @throws IOException if a part cannot be written
+     */
+    private static void writeParallel(final Parts parts,
+            final Formatter formatter, final Path file,
+            final Charset charset, final WriteOptions options,
+            final Rolling rolling) throws IOException {
+        final var inFlight = new ArrayDeque<CompletableFuture<Void>>();
+        while (parts.hasNext()) {
+            if (inFlight.size() == MAX_PARTS_IN_FLIGHT) {
+                join(inFlight.poll());
+            }
+            final var part = parts.next(file);
+            final List<Object> rows = new ArrayList<>();
+            part.forEachRemaining(rows::add);
+            inFlight.add(CompletableFuture.runAsync(() -> {
+                try {
+                    Serializer.append(rows.stream(), formatter, part.path,
+                            charset, options);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, rolling.getExecutor()));
+        }
+        while (!inFlight.isEmpty()) {
+            join(inFlight.poll());
+        }
+    }
+
+    /**
+     * Writes parts starting a new one at the first row boundary
+     * after a part reaches the size limit. Bytes are counted on the file
+     * stream, below the writer and below compression. The writer is
+     * flushed only when the rows buffered in it may reach the limit,
+     * and the compressor is flushed with it, since rows hardly ever
+     * compress to more bytes than they encode to. Parts left by an earlier
+     * export are appended to counting from their size, and skipped once
+     * full.
+     * @param items objects to write
+     * @param formatter a function used to serialize each object
+     * @param file path of the file the parts are named after
+     * @param charset charset to use
+     * @param options options of the export including the rolling option
+     * @throws IOException if a part cannot be written
+     */
+    private static void writeBySize(final Iterator<?> items,
+            final Formatter formatter, final Path file,
+            final Charset charset, final WriteOptions options)
+            throws IOException {
+        final var rolling = options.rolling();
+        final var maxBytesPerChar = charset.newEncoder().maxBytesPerChar();
+        final var filename = file.getFileName().toString();
+        final var separator = formatter.separator();
+        final var listener = Serializer.getMetricsListener();
+        final var buffer = new RowBuffer(listener);
+        final var gzip = options.gzip();
+        var index = 0L;
+        while (items.hasNext()) {
+            Path part;
+            long size;
+            do {
+                part = file.resolveSibling(rolling.getNaming()
+                        .name(filename, index++, null));
+                size = Files.exists(part) ? Files.size(part) : 0L;
+            } while (isFull(size, formatter, rolling));
+            final var start = System.nanoTime();
+            final var rows = buffer.rows();
+            final var out = options.header() == null
+                    ? formatter
+                    : Serializer.header(formatter, options.header(),
+                            size == 0);
+            try (var counter = new CountingStream(Files.newOutputStream(
+                    part, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND), size);
+                 var writer = new BufferedWriter(new OutputStreamWriter(
+                         gzip == null ? counter : gzip.wrap(counter, true),
+                         charset.newEncoder()))) {
+                writer.write(out.prefix());
+                var pending = 0L;
+                var first = true;
+                while (items.hasNext()) {
+                    if (!first) {
+                        writer.write(separator);
+                        pending += separator.length();
+                    }
+                    first = false;
+                    pending += buffer.write(items.next(), out, writer);
+                    if (counter.count + pending * maxBytesPerChar
+                            >= rolling.getLimit()) {
+                        writer.flush();
+                        pending = 0;
+                        if (counter.count >= rolling.getLimit()) break;
+                    }
+                }
+                writer.write(out.suffix());
+            } catch (IOException | RuntimeException | Error e) {
+                listener.writeFailed(part, e);
+                throw e;
+            }
+            buffer.endBatch();
+            listener.fileWritten(part, buffer.rows() - rows,
+                    Files.size(part) - size, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Checks if a part file left by an earlier export cannot take more
+     * rows: it has reached the size limit, or it holds a whole document
+     * which cannot be appended to.
+     * @param size current size of the part file
+     * @param formatter a function used to serialize each object
+     * @param rolling the rolling option
+     * @return true if the part has to be skipped
+     */
+    private static boolean isFull(final long size,
+            final Formatter formatter, final Rolling rolling) {
+        return size >= rolling.getLimit()
+                || size > 0 && !formatter.suffix().isEmpty();
+    }
+
+    /**
+     * Waits for a part to be written rethrowing the failure of writing.
+     * @param part a future of the written part
+     * @throws IOException if the part cannot be written
+     */
+    private static void join(final CompletableFuture<Void> part)
+            throws IOException {
+        try {
+            part.join();
+        } catch (CompletionException e) {
+            final var cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Splits input into parts by rows or by the value of a key column.
+     */
+    private static final class Parts {
+        private final Iterator<?> items;
+        private final Rolling rolling;
+        private final Map<Class<?>, Function<Object, Object>> keys =
+                new HashMap<>();
+        private long index;
+        private Object next;
+        private Object nextKey;
+        private boolean hasNext;
+
+        /**
+         * Constructs new splitter.
+         * @param items objects to split
+         * @param rolling the rolling option
+         */
+        Parts(final Iterator<?> items, final Rolling rolling) {
+            this.items = items;
+            this.rolling = rolling;
+            advance();
+        }
+
+        /**
+         * Checks if there are objects left.
+         * @return true if there is another part
+         */
+        boolean hasNext() {
+            return hasNext;
+        }
+
+        /**
+         * Starts the next part. The previous part has to be consumed.
+         * @param file path of the file the parts are named after
+         * @return the part
+         */
+        Part next(final Path file) {
+            final var key = nextKey;
+            final var name = rolling.getNaming().name(
+                    file.getFileName().toString(), index++, key);
+            return new Part(file.resolveSibling(name), key);
+        }
+
+        /**
+         * Pulls the next object and its key.
+         */
+        private void advance() {
+            hasNext = items.hasNext();
+            if (hasNext) {
+                next = items.next();
+                nextKey = rolling.getMode() == Rolling.Mode.KEY
+                        ? keyOf(next)
+                        : null;
+            } else {
+                next = null;
+                nextKey = null;
+            }
+        }
+
+        /**
+         * Reads the value of the key column of an object.
+         * @param obj an object
+         * @return the value of the key column
+         */
+        private Object keyOf(final Object obj) {
+            return keys.computeIfAbsent(obj.getClass(), this::keyReader)
+                    .apply(obj);
+        }
+
+        /**
+         * Resolves a reader of the key column of a class.
+         * @param clazz a class with the key column
+         * @return the reader
+         */
+        private Function<Object, Object> keyReader(final Class<?> clazz) {
+            final var col = rolling.getLimit();
+            final var field = Util.getAnnotatedFields(clazz, Csv.class)
+                    .filter(f -> f.getAnnotation(Csv.class).col() == col)
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(
+                            clazz.getName() + " has no @Csv column " + col));
+            return Accessor.getDefault().getter(field);
+        }
+
+        /**
+         * Objects of a single part.
+         */
+        private final class Part implements Iterator<Object> {
+            private final Path path;
+            private final Object key;
+            private long rows;
+
+            /**
+             * Constructs new part.
+             * @param path path of the part file
+             * @param key value of the key column of the part
+             */
+            Part(final Path path, final Object key) {
+                this.path = path;
+                this.key = key;
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (!hasNext) return false;
+                if (rolling.getMode() == Rolling.Mode.KEY) {
+                    return Objects.equals(nextKey, key);
+                }
+                return rows < rolling.getLimit();
+            }
+
+            @Override
+            public Object next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                final var res = next;
+                rows++;
+                advance();
+                return res;
+            }
+        }
+    }
+
+    /**
+     * Output stream counting bytes written through it.
+     */
+    private static final class CountingStream extends FilterOutputStream {
+        private long count;
+
+        /**
+         * Constructs new counting stream.
+         * @param out the stream to write to
+         * @param count number of bytes already in the file
+         */
+        CountingStream(final OutputStream out, final long count) {
+            super(out);
+            this.count = count;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len)
+                throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.zelr0x.jrealize;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Reusable buffer each row is formatted into before it is written.
+ * Rows are copied to the writer straight from the buffer, so writing
+ * a row doesn't allocate a String for it. Not thread-safe, each writing
+ * thread has to use its own buffer.
+ * Unless the metrics listener is NOOP, formatting and writing of each row
+ * are timed and reported in batches of BATCH_ROWS rows.
+ */
+final class RowBuffer {
+    /**
+     * Number of rows in a batch reported to the metrics listener.
+     */
+    static final int BATCH_ROWS = 1024;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final StringBuilder row = new StringBuilder(INITIAL_CAPACITY);
+    private final MetricsListener listener;
+    private char[] chars = new char[INITIAL_CAPACITY];
+    private long rows;
+    private int batchRows;
+    private long formatNanos;
+    private long writeNanos;
+
+    /**
+     * Constructs new buffer which doesn't measure rows.
+     */
+    RowBuffer() {
+        this(MetricsListener.NOOP);
+    }
+
+    /**
+     * Constructs new buffer reporting to a specified listener.
+     * @param listener listener receiving measurements of written rows
+     */
+    RowBuffer(final MetricsListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Formats a specified object and writes the result.
+     * @param obj an object to write
+     * @param formatter a function used to serialize the object
+     * @param out a writer to write the row to
+     * @return number of characters written
+     * @throws IOException if the row cannot be written
+     */
+    int write(final Object obj, final Formatter formatter, final Writer out)
+            throws IOException {
+        rows++;
+        if (listener == MetricsListener.NOOP) {
+            final var length = format(obj, formatter);
+            out.write(chars, 0, length);
+            return length;
+        }
+        final var start = System.nanoTime();
+        final var length = format(obj, formatter);
+        final var formatted = System.nanoTime();
+        out.write(chars, 0, length);
+        formatNanos += formatted - start;
+        writeNanos += System.nanoTime() - formatted;
+        if (++batchRows == BATCH_ROWS) {
+            endBatch();
+        }
+        return length;
+    }
+
+    /**
+     * Reports the rows written since the last report.
+     */
+    void endBatch() {
+        if (batchRows == 0) return;
+        listener.batchWritten(batchRows, formatNanos, writeNanos);
+        batchRows = 0;
+        formatNanos = 0;
+        writeNanos = 0;
+    }
+
+    /**
+     * Returns the number of rows written through this buffer.
+     * @return the number of rows
+     */
+    long rows() {
+        return rows;
+    }
+
+    /**
+     * Formats an object into the character array.
+     * @param obj an object to format
+     * @param formatter a function used to serialize the object
+     * @return number of characters of the row
+     */
+    private int format(final Object obj, final Formatter formatter) {
+        row.setLength(0);
+        formatter.format(obj, row);
+        final var length = row.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        row.getChars(0, length, chars, 0);
+        return length;
+    }
+}
@@ -1,21 +1,39 @@
 package io.github.zelr0x.jrealize;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Serializes objects and writes them to files.
  */
 public class Serializer {
     private static final String WORKING_DIR = System.getProperty("user.dir");
+    private static final String METRICS_PROPERTY = "jrealize.metrics";
+
+    private static volatile MetricsListener metrics =
+            "jmx".equalsIgnoreCase(System.getProperty(METRICS_PROPERTY))
+                    ? JmxMetrics.register()
+                    : MetricsListener.NOOP;
 
     private final String workingDir;
 
@@ -41,12 +59,16 @@ public class Serializer {
      * @param charset charset to use. Default is UTF-8
      * @param delimiter String to use as a delimiter - common choices
      *                  for CSV are a comma (default) and a tabulation ("\t")
+     * @param options options of the export, e.g. {@link Parallel}
+     *                or {@link ChannelOutput}
      */
     public static void writeCsv(final Collection<?> collection,
             final String directory, final String filename,
-            final Charset charset, final String delimiter) {
-        write(collection, Formatter.getFormatter(Format.CSV, delimiter),
-                WORKING_DIR, directory, filename, charset);
+            final Charset charset, final String delimiter,
+            final WriteOption... options) {
+        write(collection.stream(),
+                Formatter.getFormatter(Format.CSV, delimiter),
+                WORKING_DIR, directory, filename, charset, options);
     }
 
     /**
@@ -58,12 +80,15 @@ public class Serializer {
      * @param charset charset to use. Default is UTF-8
      * @param delimiter String to use as a delimiter - common choices
      *                  for CSV are a comma (default) and a tabulation ("\t")
+     * @param options options of the export, e.g. {@link Parallel}
+     *                or {@link ChannelOutput}
      */
     public void csv(final Collection<?> collection, final String directory,
             final String filename, final Charset charset,
-            final String delimiter) {
-        write(collection, Formatter.getFormatter(Format.CSV, delimiter),
-                workingDir, directory, filename, charset);
+            final String delimiter, final WriteOption... options) {
+        write(collection.stream(),
+                Formatter.getFormatter(Format.CSV, delimiter),
+                workingDir, directory, filename, charset, options);
     }
 
     /**
@@ -79,7 +104,8 @@ public class Serializer {
     public static void writeCsv(final Collection<?> collection,
             final String directory, final String filename,
             final String delimiter) {
-        write(collection, Formatter.getFormatter(Format.CSV, delimiter),
+        write(collection.stream(),
+                Formatter.getFormatter(Format.CSV, delimiter),
                 WORKING_DIR, directory, filename, StandardCharsets.UTF_8);
     }
 
@@ -95,7 +121,8 @@ public class Serializer {
      */
     public void csv(final Collection<?> collection, final String directory,
                     final String filename, final String delimiter) {
-        write(collection, Formatter.getFormatter(Format.CSV, delimiter),
+        write(collection.stream(),
+                Formatter.getFormatter(Format.CSV, delimiter),
                 workingDir, directory, filename, StandardCharsets.UTF_8);
     }
 
@@ -111,7 +138,7 @@ public class Serializer {
     public static void writeCsv(final Collection<?> collection,
             final String directory, final String filename,
             final Charset charset) {
-        write(collection, Formatter.getFormatter(Format.CSV),
+        write(collection.stream(), Formatter.getFormatter(Format.CSV),
                 WORKING_DIR, directory, filename, charset);
     }
 
@@ -126,7 +153,7 @@ public class Serializer {
      */
     public void csv(final Collection<?> collection, final String directory,
                     final String filename, final Charset charset) {
-        write(collection, Formatter.getFormatter(Format.CSV),
+        write(collection.stream(), Formatter.getFormatter(Format.CSV),
                 workingDir, directory, filename, charset);
     }
 
@@ -140,7 +167,7 @@ public class Serializer {
      */
     public static void writeCsv(final Collection<?> collection,
             final String directory, final String filename) {
-        write(collection, Formatter.getFormatter(Format.CSV),
+        write(collection.stream(), Formatter.getFormatter(Format.CSV),
                 WORKING_DIR, directory, filename, StandardCharsets.UTF_8);
     }
 
@@ -154,7 +181,7 @@ public class Serializer {
      */
     public void csv(final Collection<?> collection, final String directory,
                     final String filename) {
-        write(collection, Formatter.getFormatter(Format.CSV),
+        write(collection.stream(), Formatter.getFormatter(Format.CSV),
                 workingDir, directory, filename, StandardCharsets.UTF_8);
     }
 
@@ -170,7 +197,8 @@ public class Serializer {
     public static void writeCsv(final Collection<?> collection,
             final String filename, final Charset charset,
             final String delimiter) {
-        write(collection, Formatter.getFormatter(Format.CSV, delimiter),
+        write(collection.stream(),
+                Formatter.getFormatter(Format.CSV, delimiter),
                 WORKING_DIR, "csv", filename, charset);
     }
 
@@ -185,7 +213,8 @@ public class Serializer {
      */
     public void csv(final Collection<?> collection, final String filename,
                     final Charset charset, final String delimiter) {
-        write(collection, Formatter.getFormatter(Format.CSV, delimiter),
+        write(collection.stream(),
+                Formatter.getFormatter(Format.CSV, delimiter),
                 workingDir, "csv", filename, charset);
     }
 
@@ -197,7 +226,7 @@ public class Serializer {
      */
     public static void writeCsv(final Collection<?> collection,
                                 final String filename) {
-        write(collection, Formatter.getFormatter(Format.CSV),
+        write(collection.stream(), Formatter.getFormatter(Format.CSV),
                 WORKING_DIR, "csv", filename, StandardCharsets.UTF_8);
     }
 
@@ -208,101 +237,964 @@ public class Serializer {
      * @param filename name of the file in which to write the iterable
      */
     public void csv(final Collection<?> collection, final String filename) {
-        write(collection, Formatter.getFormatter(Format.CSV),
+        write(collection.stream(), Formatter.getFormatter(Format.CSV),
                 workingDir, "csv", filename, StandardCharsets.UTF_8);
     }
 
     /**
-     * Writes given collection of objects to a specified file.
-     * @param collection collection of objects to write
+     * Writes given stream of objects to a specified file as they arrive,
+     * so the objects never have to be held in memory all at once.
+     * @param stream stream of objects to write
      * @param directory name of the directory in which all created
      *                  files will be placed. Default is working directory
      * @param filename name of the file in which to write the iterable
      * @param charset charset to use. Default is UTF-8
+     * @param delimiter String to use as a delimiter - common choices
+     *                  for CSV are a comma (default) and a tabulation ("\t")
+     * @param options options of the export, e.g. {@link Parallel}
+     *                or {@link ChannelOutput}
      */
-    private static void writeJson(final Collection<?> collection,
+    public static void writeCsv(final Stream<?> stream,
+            final String directory, final String filename,
+            final Charset charset, final String delimiter,
+            final WriteOption... options) {
+        write(stream, Formatter.getFormatter(Format.CSV, delimiter),
+                WORKING_DIR, directory, filename, charset, options);
+    }
+
+    /**
+     * Writes given stream of objects to a specified file as they arrive,
+     * so the objects never have to be held in memory all at once.
+     * @param stream stream of objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8
+     * @param delimiter String to use as a delimiter - common choices
+     *                  for CSV are a comma (default) and a tabulation ("\t")
+     * @param options options of the export, e.g. {@link Parallel}
+     *                or {@link ChannelOutput}
+     */
+    public void csv(final Stream<?> stream, final String directory,
+            final String filename, final Charset charset,
+            final String delimiter, final WriteOption... options) {
+        write(stream, Formatter.getFormatter(Format.CSV, delimiter),
+                workingDir, directory, filename, charset, options);
+    }
+
+    /**
+     * Writes given stream of objects to a specified file as they arrive,
+     * so the objects never have to be held in memory all at once.
+     * UTF-8 is used as a charset.
+     * @param stream stream of objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param delimiter String to use as a delimiter - common choices
+     *                  for CSV are a comma (default) and a tabulation ("\t")
+     */
+    public static void writeCsv(final Stream<?> stream,
+            final String directory, final String filename,
+            final String delimiter) {
+        write(stream, Formatter.getFormatter(Format.CSV, delimiter),
+                WORKING_DIR, directory, filename, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes given stream of objects to a specified file as they arrive,
+     * so the objects never have to be held in memory all at once.
+     * UTF-8 is used as a charset.
+     * @param stream stream of objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param delimiter String to use as a delimiter - common choices
+     *                  for CSV are a comma (default) and a tabulation ("\t")
+     */
+    public void csv(final Stream<?> stream, final String directory,
+                    final String filename, final String delimiter) {
+        write(stream, Formatter.getFormatter(Format.CSV, delimiter),
+                workingDir, directory, filename, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes given stream of objects to a specified file as they arrive,
+     * so the objects never have to be held in memory all at once.
+     * Comma is used as a CSV delimiter.
+     * @param stream stream of objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8
+     */
+    public static void writeCsv(final Stream<?> stream,
             final String directory, final String filename,
             final Charset charset) {
-        write(collection, Formatter.getFormatter(Format.JSON),
+        write(stream, Formatter.getFormatter(Format.CSV),
                 WORKING_DIR, directory, filename, charset);
+    }
 
+    /**
+     * Writes given stream of objects to a specified file as they arrive,
+     * so the objects never have to be held in memory all at once.
+     * Comma is used as a CSV delimiter.
+     * @param stream stream of objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8
+     */
+    public void csv(final Stream<?> stream, final String directory,
+                    final String filename, final Charset charset) {
+        write(stream, Formatter.getFormatter(Format.CSV),
+                workingDir, directory, filename, charset);
     }
 
     /**
-     * Writes given collection of objects to a specified file.
+     * Writes given stream of objects to a specified file as they arrive,
+     * so the objects never have to be held in memory all at once.
+     * UTF-8 is used as a charset. Comma is used as a CSV delimiter.
+     * @param stream stream of objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     */
+    public static void writeCsv(final Stream<?> stream,
+            final String directory, final String filename) {
+        write(stream, Formatter.getFormatter(Format.CSV),
+                WORKING_DIR, directory, filename, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes given stream of objects to a specified file as they arrive,
+     * so the objects never have to be held in memory all at once.
+     * UTF-8 is used as a charset. Comma is used as a CSV delimiter.
+     * @param stream stream of objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     */
+    public void csv(final Stream<?> stream, final String directory,
+                    final String filename) {
+        write(stream, Formatter.getFormatter(Format.CSV),
+                workingDir, directory, filename, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes given stream of objects to a specified file as they arrive,
+     * so the objects never have to be held in memory all at once.
+     * UTF-8 is used as a charset. Comma is used as a CSV delimiter.
+     * @param stream stream of objects to write
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8
+     * @param delimiter String to use as a delimiter - common choices
+     *                  for CSV are a comma (default) and a tabulation ("\t")
+     */
+    public static void writeCsv(final Stream<?> stream,
+            final String filename, final Charset charset,
+            final String delimiter) {
+        write(stream, Formatter.getFormatter(Format.CSV, delimiter),
+                WORKING_DIR, "csv", filename, charset);
+    }
+
+    /**
+     * Writes given stream of objects to a specified file as they arrive,
+     * so the objects never have to be held in memory all at once.
+     * UTF-8 is used as a charset. Comma is used as a CSV delimiter.
+     * @param stream stream of objects to write
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8
+     * @param delimiter String to use as a delimiter - common choices
+     *                  for CSV are a comma (default) and a tabulation ("\t")
+     */
+    public void csv(final Stream<?> stream, final String filename,
+                    final Charset charset, final String delimiter) {
+        write(stream, Formatter.getFormatter(Format.CSV, delimiter),
+                workingDir, "csv", filename, charset);
+    }
+
+    /**
+     * Writes given stream of objects to a specified file as they arrive,
+     * so the objects never have to be held in memory all at once.
+     * UTF-8 is used as a charset. Comma is used as a CSV delimiter.
+     * @param stream stream of objects to write
+     * @param filename name of the file in which to write the iterable
+     */
+    public static void writeCsv(final Stream<?> stream,
+                                final String filename) {
+        write(stream, Formatter.getFormatter(Format.CSV),
+                WORKING_DIR, "csv", filename, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes given stream of objects to a specified file as they arrive,
+     * so the objects never have to be held in memory all at once.
+     * UTF-8 is used as a charset. Comma is used as a CSV delimiter.
+     * @param stream stream of objects to write
+     * @param filename name of the file in which to write the iterable
+     */
+    public void csv(final Stream<?> stream, final String filename) {
+        write(stream, Formatter.getFormatter(Format.CSV),
+                workingDir, "csv", filename, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes given collection of objects to a specified file
+     * as a single JSON array. The file has to be new or empty.
      * @param collection collection of objects to write
      * @param directory name of the directory in which all created
      *                  files will be placed. Default is working directory
      * @param filename name of the file in which to write the iterable
      * @param charset charset to use. Default is UTF-8
+     * @param options options of the export
      */
-    private void json(final Collection<?> collection, final String directory,
-                      final String filename, final Charset charset) {
-        write(collection, Formatter.getFormatter(Format.JSON),
-                workingDir, directory, filename, charset);
+    public static void writeJson(final Collection<?> collection,
+            final String directory, final String filename,
+            final Charset charset, final WriteOption... options) {
+        write(collection.stream(), Formatter.getFormatter(Format.JSON),
+                WORKING_DIR, directory, filename, charset, options);
     }
 
     /**
-     * Writes given collection of objects to a specified file.
-     * @param <T> parent type of items in a collection
+     * Writes given collection of objects to a specified file
+     * as a single JSON array. The file has to be new or empty.
+     * @param collection collection of objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8
+     * @param options options of the export
+     */
+    public void json(final Collection<?> collection,
+            final String directory, final String filename,
+            final Charset charset, final WriteOption... options) {
+        write(collection.stream(), Formatter.getFormatter(Format.JSON),
+                workingDir, directory, filename, charset, options);
+    }
+
+    /**
+     * Writes given stream of objects to a specified file as they arrive,
+     * as a single JSON array. The file has to be new or empty.
+     * @param stream stream of objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8
+     * @param options options of the export
+     */
+    public static void writeJson(final Stream<?> stream,
+            final String directory, final String filename,
+            final Charset charset, final WriteOption... options) {
+        write(stream, Formatter.getFormatter(Format.JSON),
+                WORKING_DIR, directory, filename, charset, options);
+    }
+
+    /**
+     * Writes given stream of objects to a specified file as they arrive,
+     * as a single JSON array. The file has to be new or empty.
+     * @param stream stream of objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8
+     * @param options options of the export
+     */
+    public void json(final Stream<?> stream,
+            final String directory, final String filename,
+            final Charset charset, final WriteOption... options) {
+        write(stream, Formatter.getFormatter(Format.JSON),
+                workingDir, directory, filename, charset, options);
+    }
+
+    /**
+     * Writes given collection of objects to a specified file
+     * as newline-delimited JSON, one object per line.
+     * @param collection collection of objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8
+     * @param options options of the export
+     */
+    public static void writeNdjson(final Collection<?> collection,
+            final String directory, final String filename,
+            final Charset charset, final WriteOption... options) {
+        write(collection.stream(), Formatter.getFormatter(Format.NDJSON),
+                WORKING_DIR, directory, filename, charset, options);
+    }
+
+    /**
+     * Writes given collection of objects to a specified file
+     * as newline-delimited JSON, one object per line.
+     * @param collection collection of objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8
+     * @param options options of the export
+     */
+    public void ndjson(final Collection<?> collection,
+            final String directory, final String filename,
+            final Charset charset, final WriteOption... options) {
+        write(collection.stream(), Formatter.getFormatter(Format.NDJSON),
+                workingDir, directory, filename, charset, options);
+    }
+
+    /**
+     * Writes given stream of objects to a specified file as they arrive,
+     * as newline-delimited JSON, one object per line.
+     * @param stream stream of objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8
+     * @param options options of the export
+     */
+    public static void writeNdjson(final Stream<?> stream,
+            final String directory, final String filename,
+            final Charset charset, final WriteOption... options) {
+        write(stream, Formatter.getFormatter(Format.NDJSON),
+                WORKING_DIR, directory, filename, charset, options);
+    }
+
+    /**
+     * Writes given stream of objects to a specified file as they arrive,
+     * as newline-delimited JSON, one object per line.
+     * @param stream stream of objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8
+     * @param options options of the export
+     */
+    public void ndjson(final Stream<?> stream,
+            final String directory, final String filename,
+            final Charset charset, final WriteOption... options) {
+        write(stream, Formatter.getFormatter(Format.NDJSON),
+                workingDir, directory, filename, charset, options);
+    }
+
+    /**
+     * Writes given collection of objects to a specified file
+     * as elements of a single XML document. The file has to be new
+     * or empty.
+     * @param collection collection of objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8
+     * @param options options of the export
+     */
+    public static void writeXml(final Collection<?> collection,
+            final String directory, final String filename,
+            final Charset charset, final WriteOption... options) {
+        write(collection.stream(), xmlFormatter(charset),
+                WORKING_DIR, directory, filename, charset, options);
+    }
+
+    /**
+     * Writes given collection of objects to a specified file
+     * as elements of a single XML document. The file has to be new
+     * or empty.
      * @param collection collection of objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8
+     * @param options options of the export
+     */
+    public void xml(final Collection<?> collection,
+            final String directory, final String filename,
+            final Charset charset, final WriteOption... options) {
+        write(collection.stream(), xmlFormatter(charset),
+                workingDir, directory, filename, charset, options);
+    }
+
+    /**
+     * Writes given stream of objects to a specified file as they arrive
+     * as elements of a single XML document. The file has to be new
+     * or empty.
+     * @param stream stream of objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8
+     * @param options options of the export
+     */
+    public static void writeXml(final Stream<?> stream,
+            final String directory, final String filename,
+            final Charset charset, final WriteOption... options) {
+        write(stream, xmlFormatter(charset),
+                WORKING_DIR, directory, filename, charset, options);
+    }
+
+    /**
+     * Writes given stream of objects to a specified file as they arrive
+     * as elements of a single XML document. The file has to be new
+     * or empty.
+     * @param stream stream of objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8
+     * @param options options of the export
+     */
+    public void xml(final Stream<?> stream,
+            final String directory, final String filename,
+            final Charset charset, final WriteOption... options) {
+        write(stream, xmlFormatter(charset),
+                workingDir, directory, filename, charset, options);
+    }
+
+    /**
+     * Writes given collection of objects to a specified file
+     * in a specified format, so an export can be switched to another
+     * format by changing the format alone. CSV is written with a comma
+     * as a delimiter.
+     * @param collection collection of objects to write
+     * @param format format of the file
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8. Strings
+     *                of the binary format are always UTF-8
+     * @param options options of the export. The binary format
+     *                takes only Gzip and Rolling by rows or by key
+     *                and rejects the other options
+     */
+    public static void write(final Collection<?> collection,
+            final Format format, final String directory,
+            final String filename, final Charset charset,
+            final WriteOption... options) {
+        write(collection.stream(), formatter(format, charset),
+                WORKING_DIR, directory, filename, charset, options);
+    }
+
+    /**
+     * Writes given collection of objects to a specified file
+     * in a specified format, so an export can be switched to another
+     * format by changing the format alone. CSV is written with a comma
+     * as a delimiter.
+     * @param collection collection of objects to write
+     * @param format format of the file
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8. Strings
+     *                of the binary format are always UTF-8
+     * @param options options of the export. The binary format
+     *                takes only Gzip and Rolling by rows or by key
+     *                and rejects the other options
+     */
+    public void export(final Collection<?> collection,
+            final Format format, final String directory,
+            final String filename, final Charset charset,
+            final WriteOption... options) {
+        write(collection.stream(), formatter(format, charset),
+                workingDir, directory, filename, charset, options);
+    }
+
+    /**
+     * Writes given stream of objects to a specified file as they arrive
+     * in a specified format, so an export can be switched to another
+     * format by changing the format alone. CSV is written with a comma
+     * as a delimiter.
+     * @param stream stream of objects to write
+     * @param format format of the file
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8. Strings
+     *                of the binary format are always UTF-8
+     * @param options options of the export. The binary format
+     *                takes only Gzip and Rolling by rows or by key
+     *                and rejects the other options
+     */
+    public static void write(final Stream<?> stream,
+            final Format format, final String directory,
+            final String filename, final Charset charset,
+            final WriteOption... options) {
+        write(stream, formatter(format, charset),
+                WORKING_DIR, directory, filename, charset, options);
+    }
+
+    /**
+     * Writes given stream of objects to a specified file as they arrive
+     * in a specified format, so an export can be switched to another
+     * format by changing the format alone. CSV is written with a comma
+     * as a delimiter.
+     * @param stream stream of objects to write
+     * @param format format of the file
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8. Strings
+     *                of the binary format are always UTF-8
+     * @param options options of the export. The binary format
+     *                takes only Gzip and Rolling by rows or by key
+     *                and rejects the other options
+     */
+    public void export(final Stream<?> stream,
+            final Format format, final String directory,
+            final String filename, final Charset charset,
+            final WriteOption... options) {
+        write(stream, formatter(format, charset),
+                workingDir, directory, filename, charset, options);
+    }
+
+    /**
+     * Writes given iterator of objects to a specified file as they arrive,
+     * so the objects never have to be held in memory all at once.
+     * @param iterator iterator over objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8
+     * @param delimiter String to use as a delimiter - common choices
+     *                  for CSV are a comma (default) and a tabulation ("\t")
+     * @param options options of the export, e.g. {@link Parallel}
+     *                or {@link ChannelOutput}
+     */
+    public static void writeCsv(final Iterator<?> iterator,
+            final String directory, final String filename,
+            final Charset charset, final String delimiter,
+            final WriteOption... options) {
+        write(toStream(iterator),
+                Formatter.getFormatter(Format.CSV, delimiter),
+                WORKING_DIR, directory, filename, charset, options);
+    }
+
+    /**
+     * Writes given iterator of objects to a specified file as they arrive,
+     * so the objects never have to be held in memory all at once.
+     * @param iterator iterator over objects to write
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file in which to write the iterable
+     * @param charset charset to use. Default is UTF-8
+     * @param delimiter String to use as a delimiter - common choices
+     *                  for CSV are a comma (default) and a tabulation ("\t")
+     * @param options options of the export, e.g. {@link Parallel}
+     *                or {@link ChannelOutput}
+     */
+    public void csv(final Iterator<?> iterator, final String directory,
+            final String filename, final Charset charset,
+            final String delimiter, final WriteOption... options) {
+        write(toStream(iterator),
+                Formatter.getFormatter(Format.CSV, delimiter),
+                workingDir, directory, filename, charset, options);
+    }
+
+    /**
+     * Opens a session appending objects to a specified file in a specified
+     * format until it is closed. The file is opened once and stays open,
+     * so appending small batches doesn't pay for opening the file each time.
+     * CSV is written with a comma as a delimiter.
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file to append to
+     * @param format format of the file, the binary format is not supported
+     * @param charset charset to use. Default is UTF-8
+     * @param options options of the session, e.g. {@link FlushPolicy}
+     * @return the session
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    public static SerializerSession openSession(final String directory,
+            final String filename, final Format format,
+            final Charset charset, final WriteOption... options) {
+        return openSession(WORKING_DIR, directory, filename,
+                formatter(format, charset), charset, options);
+    }
+
+    /**
+     * Opens a session appending objects to a specified file in a specified
+     * format until it is closed. The file is opened once and stays open,
+     * so appending small batches doesn't pay for opening the file each time.
+     * CSV is written with a comma as a delimiter.
+     * @param directory name of the directory in which all created
+     *                  files will be placed. Default is working directory
+     * @param filename name of the file to append to
+     * @param format format of the file, the binary format is not supported
+     * @param charset charset to use. Default is UTF-8
+     * @param options options of the session, e.g. {@link FlushPolicy}
+     * @return the session
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    public SerializerSession session(final String directory,
+            final String filename, final Format format,
+            final Charset charset, final WriteOption... options) {
+        return openSession(workingDir, directory, filename,
+                formatter(format, charset), charset, options);
+    }
+
+    /**
+     * Opens a session appending objects to a specified file.
+     * @param workingDirectory working directory to use
+     * @param directory name of the directory in which all created
+     *                  files will be placed
+     * @param filename name of the file to append to
+     * @param formatter a function used to serialize each object
+     * @param charset charset to use
+     * @param options options of the session
+     * @return the session
+     */
+    private static SerializerSession openSession(
+            final String workingDirectory, final String directory,
+            final String filename, final Formatter formatter,
+            final Charset charset, final WriteOption... options) {
+        final var file = resolve(workingDirectory, directory, filename);
+        try {
+            return new SerializerSession(file, formatter, charset,
+                    WriteOptions.of(options));
+        } catch (IOException e) {
+            metrics.writeFailed(file, e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes given stream of objects to a specified file.
+     * @param <T> parent type of items in a stream
+     * @param items stream of objects to write
      * @param formatter a function used to serialize each object
-     *                  in a specified collection
+     *                  in a specified stream
      * @param workingDirectory working directory to use
      * @param directory name of the directory in which all created
      *                  files will be placed. Default is working directory
-     * @param filename name of the file in which to write the collection
+     * @param filename name of the file in which to write the stream
      * @param charset charset to use. Default is UTF-8
+     * @param options options of the export
      */
-    private static <T> void write(final Collection<? extends T> collection,
+    private static <T> void write(final Stream<? extends T> items,
             final Formatter formatter, final String workingDirectory,
             final String directory, final String filename,
-            final Charset charset) {
+            final Charset charset, final WriteOption... options) {
+        final var file = resolve(workingDirectory, directory, filename);
+        try {
+            append(items, formatter, file, charset, WriteOptions.of(options));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Creates the directory of a file if it doesn't exist.
+     * The file is resolved against the working directory, so a serializer
+     * constructed with a directory of its own doesn't write to the one
+     * of the process.
+     * @param workingDirectory working directory to use
+     * @param directory name of the directory in which all created
+     *                  files will be placed
+     * @param filename name of the file
+     * @return path of the file
+     */
+    static Path resolve(final String workingDirectory,
+            final String directory, final String filename) {
         final var newDirectory = new File(workingDirectory, directory);
         if (!(newDirectory.exists() || newDirectory.mkdir())) {
             throw new Error("Cannot read directory "
                     + workingDirectory + File.separator + directory);
         }
-        final var file = Paths.get(directory, filename);
-        final var contents = collection.stream()
-                .map(formatter::format);
-        write(contents, file, charset);
+        return Paths.get(workingDirectory, directory, filename);
     }
 
     /**
-     * Writes given collection of objects to a specified file.
-     * @param contents Stream of objects that have to be written to a file
+     * Sets the listener receiving measurements of all exports.
+     * JMX metrics can also be enabled with -Djrealize.metrics=jmx JVM flag.
+     * @param listener the listener, {@link MetricsListener#NOOP}
+     *                 to stop measuring
+     */
+    public static void setMetricsListener(final MetricsListener listener) {
+        metrics = Objects.requireNonNull(listener);
+    }
+
+    /**
+     * Returns the listener receiving measurements of all exports.
+     * @return the listener, {@link MetricsListener#NOOP} by default
+     */
+    public static MetricsListener getMetricsListener() {
+        return metrics;
+    }
+
+    /**
+     * Formats given stream of objects and appends them to a specified file.
+     * Each object is formatted into a reusable buffer which is copied
+     * to the file as is.
+     * @param items stream of objects that have to be written to a file
+     * @param formatter a function used to serialize each object
      * @param filePath path in which to look for a file
      * @param charset charset to use. Default is UTF-8
+     * @param options options of the export
+     * @throws IOException if the file cannot be written
      */
-    private static void write(final Stream<String> contents,
-            final Path filePath, final Charset charset) {
-        ensureFilePath(filePath);
-        try (var writer = Files.newBufferedWriter(filePath, charset,
-                StandardOpenOption.APPEND)) {
-            contents.forEach(str -> {
-                try {
-                    writer.append(str);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            });
-        } catch (IOException e) {
-            e.printStackTrace();
+    static void append(final Stream<?> items, final Formatter formatter,
+            final Path filePath, final Charset charset,
+            final WriteOptions options) throws IOException {
+        if (options.projection() != null) {
+            append(items, project(formatter, options.projection()),
+                    filePath, charset, options.withoutProjection());
+            return;
+        }
+        if (formatter instanceof BinaryFormatter) {
+            checkBinary(options);
+        }
+        if (options.rolling() != null) {
+            RollingWriter.write(items, formatter, filePath, charset, options);
+            return;
+        }
+        final var listener = metrics;
+        try {
+            ensureFilePath(filePath);
+            final var start = System.nanoTime();
+            final var size = listener == MetricsListener.NOOP
+                    ? 0L
+                    : Files.size(filePath);
+            final var empty = options.checkpoint() == null
+                    ? Files.size(filePath) == 0
+                    : CheckpointWriter.startsEmpty(filePath);
+            checkAppendable(formatter, filePath, empty
+                    || options.checkpoint() != null
+                            && CheckpointWriter.resumes(filePath));
+            final var out = options.header() == null
+                    ? formatter
+                    : header(formatter, options.header(), empty);
+            final long rows;
+            if (options.checkpoint() != null) {
+                rows = CheckpointWriter.write(items.iterator(), out,
+                        filePath, charset, options, listener);
+            } else if (out instanceof BinaryFormatter) {
+                rows = writeBinary(items, (BinaryFormatter) out,
+                        filePath, options, listener);
+            } else {
+                rows = writeText(items, out, filePath, charset,
+                        options, listener);
+            }
+            if (listener != MetricsListener.NOOP) {
+                listener.fileWritten(filePath, rows,
+                        Files.size(filePath) - size,
+                        System.nanoTime() - start);
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            listener.writeFailed(filePath, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Formats given stream of objects and appends them to a specified file
+     * as text.
+     * @param items stream of objects that have to be written to a file
+     * @param formatter a function used to serialize each object
+     * @param filePath path to the file
+     * @param charset charset to use
+     * @param options options of the export
+     * @param listener listener receiving measurements of the export
+     * @return number of objects written
+     * @throws IOException if the file cannot be written
+     */
+    private static long writeText(final Stream<?> items,
+            final Formatter formatter, final Path filePath,
+            final Charset charset, final WriteOptions options,
+            final MetricsListener listener) throws IOException {
+        try (var writer = openWriter(filePath, charset, options)) {
+            writer.write(formatter.prefix());
+            final long rows;
+            if (options.parallel() != null) {
+                rows = ParallelWriter.write(items.iterator(), formatter,
+                        writer, options.parallel(), listener);
+            } else {
+                final var separator = formatter.separator();
+                final var buffer = new RowBuffer(listener);
+                items.forEachOrdered(item -> {
+                    try {
+                        if (buffer.rows() > 0) {
+                            writer.write(separator);
+                        }
+                        buffer.write(item, formatter, writer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                buffer.endBatch();
+                rows = buffer.rows();
+            }
+            writer.write(formatter.suffix());
+            return rows;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Narrows a CSV formatter to the columns of a projection.
+     * @param formatter a formatter of the export
+     * @param projection the columns to write
+     * @return the projected formatter
+     */
+    static Formatter project(final Formatter formatter,
+                             final Projection projection) {
+        if (!(formatter instanceof CsvFormatter)) {
+            throw new IllegalArgumentException("Only CSV can be projected");
+        }
+        return ((CsvFormatter) formatter).project(projection);
+    }
+
+    /**
+     * Checks that options of an export apply to the binary format,
+     * which encodes blocks of rows straight into a file channel.
+     * @param options options of the export
+     * @throws IllegalArgumentException if the options format rows
+     *                                  in parallel or write them
+     *                                  through a channel option
+     */
+    static void checkBinary(final WriteOptions options) {
+        if (options.parallel() != null) {
+            throw new IllegalArgumentException(
+                    "Binary output cannot be formatted in parallel");
+        } else if (options.channel() != null) {
+            throw new IllegalArgumentException(
+                    "Binary output is always written to a channel"
+                            + " and takes no ChannelOutput option");
+        }
+    }
+
+    /**
+     * Checks that a formatter can append to a file. Formatters with
+     * a suffix write a whole document, such as a JSON array or an XML
+     * root element, and appending a second document to a file would
+     * make it invalid.
+     * @param formatter a formatter of the export
+     * @param filePath path to the file
+     * @param empty whether the file is empty or its document is continued
+     *              from a checkpoint
+     * @throws IllegalArgumentException if the formatter writes a document
+     *                                  and the file is not empty
+     */
+    static void checkAppendable(final Formatter formatter,
+                                final Path filePath, final boolean empty) {
+        if (!empty && !formatter.suffix().isEmpty()) {
+            throw new IllegalArgumentException(filePath + " is not empty"
+                    + " and a document cannot be appended to it: write"
+                    + " to a new file, or use NDJSON or a session to"
+                    + " append repeatedly");
+        }
+    }
+
+    /**
+     * Adds a header to a CSV formatter if a file is empty.
+     * @param formatter a formatter of the export
+     * @param header the header option
+     * @param empty whether the file the rows are appended to is empty
+     * @return the formatter writing the header, or the same formatter
+     *         if the file already has rows
+     */
+    static Formatter header(final Formatter formatter, final Header header,
+                            final boolean empty) {
+        if (!(formatter instanceof CsvFormatter)) {
+            throw new IllegalArgumentException("Only CSV has a header row");
+        }
+        return empty ? ((CsvFormatter) formatter).header(header) : formatter;
+    }
+
+    /**
+     * Creates a formatter of a specified format. The binary format gets
+     * a formatter of its own which is never handed to callers: append
+     * recognizes it and writes column blocks instead of formatting rows.
+     * @param format format of the file
+     * @param charset charset of the file
+     * @return the formatter
+     */
+    static Formatter formatter(final Format format,
+                               final Charset charset) {
+        switch (format) {
+            case XML:
+                return xmlFormatter(charset);
+            case BINARY:
+                return new BinaryFormatter(Accessor.getDefault());
+            default:
+                return Formatter.getFormatter(format);
+        }
+    }
+
+    /**
+     * Creates an XML formatter declaring a specified charset.
+     * @param charset charset of the document
+     * @return the formatter
+     */
+    private static Formatter xmlFormatter(final Charset charset) {
+        return new XmlFormatter(Accessor.getDefault(), charset,
+                XmlFormatter.DEFAULT_ROOT);
+    }
+
+    /**
+     * Encodes given stream of objects in the binary columnar format
+     * and appends them to a specified file.
+     * @param items stream of objects that have to be written to a file
+     * @param formatter the binary formatter
+     * @param filePath path to the file
+     * @param options options of the export
+     * @param listener listener receiving measurements of the export
+     * @return number of objects written
+     * @throws IOException if the file cannot be written
+     */
+    private static long writeBinary(final Stream<?> items,
+            final BinaryFormatter formatter, final Path filePath,
+            final WriteOptions options, final MetricsListener listener)
+            throws IOException {
+        try (var channel = options.gzip() == null
+                ? FileChannel.open(filePath, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND)
+                : Channels.newChannel(options.openStream(filePath))) {
+            return BinaryWriter.write(items.iterator(),
+                    formatter.getAccessor(), channel, listener);
+        }
+    }
+
+    /**
+     * Opens a writer appending to a specified file.
+     * @param filePath path to the file
+     * @param charset charset to use
+     * @param options options of the export
+     * @return the writer
+     * @throws IOException if the file cannot be opened
+     */
+    static Writer openWriter(final Path filePath,
+            final Charset charset, final WriteOptions options)
+            throws IOException {
+        if (options.channel() != null) {
+            return new ChannelWriter(filePath, charset, options.channel());
+        } else if (options.gzip() != null) {
+            return new BufferedWriter(new OutputStreamWriter(
+                    options.openStream(filePath), charset.newEncoder()));
         }
+        return Files.newBufferedWriter(filePath, charset,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Wraps an iterator into a sequential stream which pulls elements
+     * from it lazily.
+     * @param iterator iterator to wrap
+     * @return a stream of elements of the iterator
+     */
+    static Stream<?> toStream(final Iterator<?> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                iterator, Spliterator.ORDERED), false);
     }
 
     /**
      * Checks if specified path leads to a file.
      * If it doesn't - creates that file.
      * @param filePath path in which to look for a file
+     * @throws IOException if the file cannot be created
      */
-    private static void ensureFilePath(final Path filePath) {
+    static void ensureFilePath(final Path filePath)
+            throws IOException {
         if (Files.notExists(filePath)) {
             try {
                 Files.createFile(filePath);
-            } catch (IOException e) {
-                e.printStackTrace();
+            } catch (FileAlreadyExistsException e) {
+                // created concurrently
             }
         }
     }
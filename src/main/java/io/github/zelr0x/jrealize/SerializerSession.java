@@ -0,0 +1,308 @@
+package io.github.zelr0x.jrealize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Writer of a single file which stays open across many appends,
+ * created with {@link Serializer#openSession} or
+ * {@link Serializer#session}. The directory and the file are checked and
+ * the file is opened once, when the session is opened. Everything appended
+ * until the session is closed is a single write: a JSON array or an XML
+ * document is opened with the session and closed with it, so sessions
+ * writing them are only opened on new or empty files.
+ * Appends are safe from any number of threads. Each thread formats its
+ * batch into a buffer of its own and only copies the formatted batch
+ * to the file under the lock of the session, so batches never interleave
+ * and threads wait for each other only while copying. Rows are flushed
+ * according to a {@link FlushPolicy}, after every append by default.
+ * I/O failures are thrown as UncheckedIOException. Failures of periodic
+ * flushes, which have no caller to throw to, are reported to the metrics
+ * listener and flushing goes on; the next append or close of the session
+ * fails as well if the file stays unwritable. The flusher only holds
+ * a session weakly, so a session which is never closed can still
+ * be collected.
+ */
+public final class SerializerSession implements AutoCloseable {
+    private static final ThreadLocal<Buffer> BUFFERS =
+            ThreadLocal.withInitial(Buffer::new);
+
+    private final Path file;
+    private final Formatter formatter;
+    private final Writer writer;
+    private final FlushPolicy policy;
+    private final ScheduledFuture<?> flushTask;
+    private final long start;
+    private final long initialSize;
+    private long rows;
+    private long unflushed;
+    private boolean closed;
+
+    /**
+     * Opens new session.
+     * @param file path to the file
+     * @param formatter a function used to serialize each object
+     * @param charset charset to use
+     * @param options options of the session
+     * @throws IOException if the file cannot be opened
+     */
+    SerializerSession(final Path file, final Formatter formatter,
+                      final Charset charset, final WriteOptions options)
+            throws IOException {
+        if (formatter instanceof BinaryFormatter) {
+            throw new IllegalArgumentException(
+                    "Binary output cannot be written by a session");
+        }
+        if (options.parallel() != null || options.rolling() != null
+                || options.checkpoint() != null) {
+            throw new IllegalArgumentException("Sessions cannot be"
+                    + " parallel, rolled or checkpointed");
+        }
+        this.file = file;
+        this.policy = options.flushPolicy() == null
+                ? FlushPolicy.everyAppend()
+                : options.flushPolicy();
+        this.start = System.nanoTime();
+        Serializer.ensureFilePath(file);
+        this.initialSize = Files.size(file);
+        Serializer.checkAppendable(formatter, file, initialSize == 0);
+        final var projected = options.projection() == null
+                ? formatter
+                : Serializer.project(formatter, options.projection());
+        this.formatter = options.header() == null
+                ? projected
+                : Serializer.header(projected, options.header(),
+                        initialSize == 0);
+        this.writer = Serializer.openWriter(file, charset, options);
+        try {
+            writer.write(this.formatter.prefix());
+        } catch (IOException e) {
+            writer.close();
+            throw e;
+        }
+        final var interval = policy.getInterval();
+        this.flushTask = interval == null
+                ? null
+                : Flusher.schedule(this, interval.toNanos());
+    }
+
+    /**
+     * Appends a batch of objects.
+     * @param batch objects to append
+     * @throws IllegalStateException if the session is closed
+     */
+    public void append(final Collection<?> batch) {
+        append(batch.iterator());
+    }
+
+    /**
+     * Appends a batch of objects. The stream is consumed before anything
+     * is written, so the batch is written as a whole.
+     * @param batch objects to append
+     * @throws IllegalStateException if the session is closed
+     */
+    public void append(final Stream<?> batch) {
+        append(batch.iterator());
+    }
+
+    /**
+     * Flushes appended rows to the file.
+     * Does nothing if the session is closed.
+     */
+    public void flush() {
+        synchronized (this) {
+            if (closed) return;
+            try {
+                writer.flush();
+                unflushed = 0;
+            } catch (IOException e) {
+                throw failed(e);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of rows appended so far.
+     * @return the number of rows
+     */
+    public synchronized long getRows() {
+        return rows;
+    }
+
+    /**
+     * Closes the write and the file. Closing a closed session does nothing.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            if (flushTask != null) {
+                flushTask.cancel(false);
+            }
+            try (writer) {
+                writer.write(formatter.suffix());
+            } catch (IOException e) {
+                throw failed(e);
+            }
+        }
+        final var listener = Serializer.getMetricsListener();
+        if (listener != MetricsListener.NOOP) {
+            try {
+                listener.fileWritten(file, rows,
+                        Files.size(file) - initialSize,
+                        System.nanoTime() - start);
+            } catch (IOException e) {
+                throw failed(e);
+            }
+        }
+    }
+
+    /**
+     * Formats objects into the buffer of the calling thread and copies
+     * them to the file under the lock.
+     * @param batch objects to append
+     */
+    private void append(final Iterator<?> batch) {
+        final var listener = Serializer.getMetricsListener();
+        final var begin = System.nanoTime();
+        final var buffer = BUFFERS.get();
+        final var count = buffer.format(batch, formatter);
+        if (count == 0) return;
+        final var formatted = System.nanoTime();
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Session is closed");
+            }
+            try {
+                if (rows > 0) {
+                    writer.write(formatter.separator());
+                }
+                writer.write(buffer.chars, 0, buffer.length);
+                rows += count;
+                unflushed += count;
+                if (policy.shouldFlush(unflushed)) {
+                    writer.flush();
+                    unflushed = 0;
+                }
+            } catch (IOException e) {
+                throw failed(e);
+            }
+        }
+        if (listener != MetricsListener.NOOP) {
+            listener.batchWritten(count, formatted - begin,
+                    System.nanoTime() - formatted);
+        }
+    }
+
+    /**
+     * Reports a failure to the metrics listener.
+     * @param e the failure
+     * @return the failure to throw
+     */
+    private UncheckedIOException failed(final IOException e) {
+        Serializer.getMetricsListener().writeFailed(file, e);
+        return new UncheckedIOException(e);
+    }
+
+    /**
+     * Reusable buffer a thread formats its batches into.
+     */
+    private static final class Buffer {
+        private final StringBuilder sb = new StringBuilder();
+        private char[] chars = new char[0];
+        private int length;
+
+        /**
+         * Formats objects separated with the separator of the formatter.
+         * @param batch objects to format
+         * @param formatter a function used to serialize each object
+         * @return number of formatted objects
+         */
+        int format(final Iterator<?> batch, final Formatter formatter) {
+            final var separator = formatter.separator();
+            sb.setLength(0);
+            var count = 0;
+            while (batch.hasNext()) {
+                if (count++ > 0) {
+                    sb.append(separator);
+                }
+                formatter.format(batch.next(), sb);
+            }
+            length = sb.length();
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            sb.getChars(0, length, chars, 0);
+            return count;
+        }
+    }
+
+    /**
+     * Periodic flush of a single session, started on the daemon thread
+     * which is created when the first such session is opened.
+     */
+    private static final class Flusher implements Runnable {
+        private static final ScheduledExecutorService EXECUTOR =
+                Executors.newSingleThreadScheduledExecutor(r -> {
+                    final var thread = new Thread(r, "jrealize-flusher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        private final WeakReference<SerializerSession> session;
+        private volatile ScheduledFuture<?> task;
+
+        /**
+         * Constructs new flusher.
+         * @param session the session to flush
+         */
+        private Flusher(final SerializerSession session) {
+            this.session = new WeakReference<>(session);
+        }
+
+        /**
+         * Starts flushing a session periodically.
+         * @param session the session to flush
+         * @param nanos interval between flushes in nanoseconds
+         * @return the scheduled flushes, cancelled when the session closes
+         */
+        static ScheduledFuture<?> schedule(final SerializerSession session,
+                                           final long nanos) {
+            final var flusher = new Flusher(session);
+            flusher.task = EXECUTOR.scheduleWithFixedDelay(flusher, nanos,
+                    nanos, TimeUnit.NANOSECONDS);
+            return flusher.task;
+        }
+
+        @Override
+        public void run() {
+            final var target = session.get();
+            if (target == null) {
+                final var scheduled = task;
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                }
+                return;
+            }
+            try {
+                target.flush();
+            } catch (UncheckedIOException e) {
+                // reported to the metrics listener by flush; an exception
+                // thrown from here would cancel all further flushes
+            }
+        }
+    }
+}
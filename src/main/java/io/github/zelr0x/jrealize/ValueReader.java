@@ -0,0 +1,16 @@
+package io.github.zelr0x.jrealize;
+
+/**
+ * Reads the value of a single serialized field of an object
+ * in a form suitable for serialization.
+ */
+@FunctionalInterface
+interface ValueReader {
+    /**
+     * Reads the value of the field from a specified object and appends it
+     * to a specified buffer.
+     * @param obj an object which field to read
+     * @param out a buffer to append the value of the field to
+     */
+    void append(Object obj, StringBuilder out);
+}
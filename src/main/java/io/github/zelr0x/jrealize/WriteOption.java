@@ -0,0 +1,8 @@
+package io.github.zelr0x.jrealize;
+
+/**
+ * Marker interface of options that configure how Serializer
+ * writes objects to files.
+ */
+public interface WriteOption {
+}
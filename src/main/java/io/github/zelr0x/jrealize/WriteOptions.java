@@ -0,0 +1,203 @@
+package io.github.zelr0x.jrealize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Options of a single export gathered from WriteOption arguments.
+ * When an option is passed more than once, the last one is used.
+ */
+final class WriteOptions {
+    private Parallel parallel;
+    private ChannelOutput channel;
+    private Rolling rolling;
+    private Gzip gzip;
+    private Checkpoint checkpoint;
+    private Projection projection;
+    private FlushPolicy flushPolicy;
+    private Header header;
+
+    /**
+     * Prevents instantiation outside of the factory method.
+     */
+    private WriteOptions() {
+    }
+
+    /**
+     * Gathers specified options.
+     * @param options options passed to Serializer
+     * @return gathered options
+     */
+    static WriteOptions of(final WriteOption... options) {
+        final var res = new WriteOptions();
+        for (final var option : options) {
+            if (option instanceof Parallel) {
+                res.parallel = (Parallel) option;
+            } else if (option instanceof ChannelOutput) {
+                res.channel = (ChannelOutput) option;
+            } else if (option instanceof Rolling) {
+                res.rolling = (Rolling) option;
+            } else if (option instanceof Gzip) {
+                res.gzip = (Gzip) option;
+            } else if (option instanceof Checkpoint) {
+                res.checkpoint = (Checkpoint) option;
+            } else if (option instanceof Projection) {
+                res.projection = (Projection) option;
+            } else if (option instanceof FlushPolicy) {
+                res.flushPolicy = (FlushPolicy) option;
+            } else if (option instanceof Header) {
+                res.header = (Header) option;
+            } else {
+                throw new IllegalArgumentException(
+                        "Unsupported option: " + option);
+            }
+        }
+        if (res.channel != null && res.gzip != null) {
+            throw new IllegalArgumentException(
+                    "Compressed output cannot be written to a channel");
+        }
+        if (res.checkpoint != null) {
+            res.checkCheckpoint();
+        }
+        return res;
+    }
+
+    /**
+     * Returns parallel formatting option.
+     * @return parallel formatting option or null if rows have to be
+     *         formatted on the calling thread
+     */
+    Parallel parallel() {
+        return parallel;
+    }
+
+    /**
+     * Returns channel output option.
+     * @return channel output option or null if the file has to be written
+     *         with a BufferedWriter
+     */
+    ChannelOutput channel() {
+        return channel;
+    }
+
+    /**
+     * Returns rolling output option.
+     * @return rolling output option or null if all rows have to be
+     *         written to a single file
+     */
+    Rolling rolling() {
+        return rolling;
+    }
+
+    /**
+     * Returns these options without the rolling output option,
+     * which apply to each part of a rolling output.
+     * @return options of a single part
+     */
+    WriteOptions withoutRolling() {
+        final var res = new WriteOptions();
+        res.parallel = parallel;
+        res.channel = channel;
+        res.gzip = gzip;
+        res.checkpoint = checkpoint;
+        res.projection = projection;
+        res.header = header;
+        return res;
+    }
+
+    /**
+     * Returns these options without the column projection option,
+     * once the formatter of the export is projected.
+     * @return options of the projected export
+     */
+    WriteOptions withoutProjection() {
+        final var res = withoutRolling();
+        res.rolling = rolling;
+        res.projection = null;
+        return res;
+    }
+
+    /**
+     * Returns these options without the header option,
+     * once the formatter of the export writes the header.
+     * @return options of the export with the header
+     */
+    WriteOptions withoutHeader() {
+        final var res = withoutRolling();
+        res.rolling = rolling;
+        res.header = null;
+        return res;
+    }
+
+    /**
+     * Returns compression option.
+     * @return compression option or null if the file is not compressed
+     */
+    Gzip gzip() {
+        return gzip;
+    }
+
+    /**
+     * Returns checkpoint option.
+     * @return checkpoint option or null if the export is not resumable
+     */
+    Checkpoint checkpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Returns column projection option.
+     * @return column projection option or null if all columns
+     *         have to be written
+     */
+    Projection projection() {
+        return projection;
+    }
+
+    /**
+     * Returns flush policy option.
+     * @return flush policy option or null if a session has to use
+     *         the default policy
+     */
+    FlushPolicy flushPolicy() {
+        return flushPolicy;
+    }
+
+    /**
+     * Returns header option.
+     * @return header option or null if no header has to be written
+     */
+    Header header() {
+        return header;
+    }
+
+    /**
+     * Checks that the other options can be combined with checkpoints.
+     */
+    private void checkCheckpoint() {
+        if (channel != null || gzip != null || rolling != null) {
+            throw new IllegalArgumentException("Checkpointed output cannot"
+                    + " be written to a channel, compressed or rolled");
+        }
+        if (parallel != null && !parallel.isOrdered()) {
+            throw new IllegalArgumentException(
+                    "Checkpointed rows have to be written in order");
+        }
+    }
+
+    /**
+     * Opens a stream appending to a specified file, compressing
+     * the output if compression is requested.
+     * @param filePath path to the file
+     * @return the stream
+     * @throws IOException if the file cannot be opened
+     */
+    OutputStream openStream(final Path filePath) throws IOException {
+        final var out = Files.newOutputStream(filePath,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return gzip == null ? out : gzip.wrap(out);
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.zelr0x.jrealize;
+
+import java.nio.charset.Charset;
+
+/**
+ * XML formatter writing each object as an element of a single document.
+ * The document is streamed: the declaration and the root element are
+ * written once per write and objects are appended one by one,
+ * so no part of the document is held in memory. A second document
+ * appended to a file would leave it malformed, so documents are only
+ * written to new or empty files.
+ * Plans are cached per formatter and class, as CsvFormatter caches them,
+ * so a plan lookup is reported once rather than for every row.
+ */
+final class XmlFormatter implements Formatter {
+    static final String DEFAULT_ROOT = "items";
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Accessor accessor;
+    private final ClassValue<XmlPlan> plans = new ClassValue<>() {
+        @Override
+        protected XmlPlan computeValue(final Class<?> type) {
+            return accessor.xmlPlan(type);
+        }
+    };
+    private final String prefix;
+    private final String suffix;
+
+    /**
+     * Constructs new XML formatter.
+     * @param accessor backend used to read values of fields
+     * @param charset charset declared in the XML declaration
+     * @param root name of the root element
+     */
+    XmlFormatter(final Accessor accessor, final Charset charset,
+                 final String root) {
+        if (!XmlStrings.isName(root)) {
+            throw new IllegalArgumentException(
+                    "Not a valid XML element name: " + root);
+        }
+        this.accessor = accessor;
+        this.prefix = "<?xml version=\"1.0\" encoding=\"" + charset.name()
+                + "\"?>" + LINE_SEPARATOR + "<" + root + ">" + LINE_SEPARATOR;
+        this.suffix = "</" + root + ">" + LINE_SEPARATOR;
+    }
+
+    @Override
+    public String format(final Object o) {
+        final var sb = new StringBuilder();
+        format(o, sb);
+        return sb.toString();
+    }
+
+    @Override
+    public void format(final Object o, final StringBuilder out) {
+        plans.get(o.getClass()).format(o, out);
+        out.append(LINE_SEPARATOR);
+    }
+
+    @Override
+    public String prefix() {
+        return prefix;
+    }
+
+    @Override
+    public String suffix() {
+        return suffix;
+    }
+}
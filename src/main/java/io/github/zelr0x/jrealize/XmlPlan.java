@@ -0,0 +1,229 @@
+package io.github.zelr0x.jrealize;
+
+import io.github.zelr0x.jrealize.Annotation.Util;
+import io.github.zelr0x.jrealize.Annotation.Xml;
+import io.github.zelr0x.jrealize.Annotation.XmlGetter;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Compiled XML serialization plan of a class.
+ * Holds the fields marked with @Xml annotation together with their
+ * already built open and close tags, so tags are built once per class.
+ * Each field is written as a child element of the element of the object:
+ * values of classes with @Xml fields as nested elements and all other
+ * values as text. Fields holding null are omitted.
+ * An object of a class which is already being written higher up the path
+ * would nest forever if the objects form a cycle, so it is written
+ * as text as well, as JsonPlan writes it as a string.
+ * Plans of nested objects are cached per plan and class, so they are
+ * looked up once rather than for every value.
+ */
+final class XmlPlan {
+    private static final String INFINITY = "Infinity";
+    private static final String XML_INFINITY = "INF";
+
+    private final Class<?> clazz;
+    private final Accessor accessor;
+    private final ClassValue<XmlPlan> nestedPlans = new ClassValue<>() {
+        @Override
+        protected XmlPlan computeValue(final Class<?> type) {
+            return accessor.xmlPlan(type);
+        }
+    };
+    private final String open;
+    private final String close;
+    private final String[] opens;
+    private final String[] closes;
+    private final ValueWriter[] writers;
+    private final boolean hasGetter;
+
+    /**
+     * Compiles a plan for a specified class.
+     * @param clazz a class which fields marked with @Xml to gather
+     * @param accessor a backend to read the fields with
+     */
+    XmlPlan(final Class<?> clazz, final Accessor accessor) {
+        this.clazz = clazz;
+        this.accessor = accessor;
+        final var classXml = clazz.getAnnotation(Xml.class);
+        final var name = classXml == null || classXml.name().isEmpty()
+                ? clazz.getSimpleName()
+                : classXml.name();
+        this.open = openTag(name);
+        this.close = closeTag(name);
+        final var fields = Util.getAnnotatedFields(clazz, Xml.class)
+                .toArray(Field[]::new);
+        this.opens = new String[fields.length];
+        this.closes = new String[fields.length];
+        this.writers = new ValueWriter[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            final var fieldName = fields[i].getAnnotation(Xml.class).name();
+            final var tag = fieldName.isEmpty()
+                    ? fields[i].getName()
+                    : fieldName;
+            opens[i] = openTag(tag);
+            closes[i] = closeTag(tag);
+            writers[i] = writer(fields[i]);
+        }
+        final Method getter = Util.findGetter(clazz, XmlGetter.class);
+        this.hasGetter = getter != null;
+    }
+
+    /**
+     * Appends a specified object as an XML element.
+     * @param obj an object of the class of this plan
+     * @param out a buffer to append the element to
+     */
+    void format(final Object obj, final StringBuilder out) {
+        out.append(open);
+        formatChildren(obj, out, null);
+        out.append(close);
+    }
+
+    /**
+     * Appends the child elements of a specified object.
+     * @param obj an object of the class of this plan
+     * @param out a buffer to append the elements to
+     * @param path classes of the objects the object is nested in,
+     *             null for a top level object
+     */
+    private void formatChildren(final Object obj, final StringBuilder out,
+                                final List<Class<?>> path) {
+        for (int i = 0; i < writers.length; i++) {
+            final var start = out.length();
+            out.append(opens[i]);
+            if (writers[i].write(obj, out, path)) {
+                out.append(closes[i]);
+            } else {
+                out.setLength(start);
+            }
+        }
+    }
+
+    /**
+     * Creates a writer of a value of a specified field.
+     * @param field an accessible field
+     * @return the writer of the field
+     */
+    private ValueWriter writer(final Field field) {
+        final var type = field.getType();
+        if (type == char.class) {
+            final Function<Object, Object> getter = accessor.getter(field);
+            return (obj, out, path) -> {
+                XmlStrings.appendEscaped(out,
+                        String.valueOf(getter.apply(obj)));
+                return true;
+            };
+        } else if (type == double.class || type == float.class) {
+            final var reader = accessor.reader(field);
+            return (obj, out, path) -> {
+                reader.append(obj, out);
+                replaceInfinity(out);
+                return true;
+            };
+        } else if (type.isPrimitive()) {
+            final var reader = accessor.reader(field);
+            return (obj, out, path) -> {
+                reader.append(obj, out);
+                return true;
+            };
+        }
+        final Function<Object, Object> getter = accessor.getter(field);
+        return (obj, out, path) -> writeValue(getter.apply(obj), out, path);
+    }
+
+    /**
+     * Appends a value of a reference type as the content of an element.
+     * @param value a value to append
+     * @param out a buffer to append the value to
+     * @param path classes of the objects the object of this plan
+     *             is nested in, null for a top level object
+     * @return false if the value is null and the element has to be omitted
+     */
+    private boolean writeValue(final Object value, final StringBuilder out,
+                               final List<Class<?>> path) {
+        if (value == null) {
+            return false;
+        } else if (value instanceof Boolean) {
+            out.append(((Boolean) value).booleanValue());
+        } else if (value instanceof Number) {
+            out.append(value);
+            replaceInfinity(out);
+        } else if (value instanceof CharSequence) {
+            XmlStrings.appendEscaped(out, (CharSequence) value);
+        } else {
+            final var type = value.getClass();
+            final var plan = nestedPlans.get(type);
+            final var onPath = type == clazz
+                    || path != null && path.contains(type);
+            if (plan.writers.length > 0 && !plan.hasGetter && !onPath) {
+                final List<Class<?>> nested = path == null
+                        ? new ArrayList<>()
+                        : path;
+                nested.add(clazz);
+                plan.formatChildren(value, out, nested);
+                nested.remove(nested.size() - 1);
+            } else {
+                XmlStrings.appendEscaped(out,
+                        Util.valueToString(value, XmlGetter.class));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Replaces infinities written by Java with the XML Schema
+     * representation of infinities. NaN is the same in both.
+     * @param out a buffer ending with a number
+     */
+    private static void replaceInfinity(final StringBuilder out) {
+        final var end = out.length();
+        if (out.charAt(end - 1) == 'y') {
+            out.replace(end - INFINITY.length(), end, XML_INFINITY);
+        }
+    }
+
+    /**
+     * Builds an open tag of an element.
+     * @param name a name of the element
+     * @return the open tag
+     */
+    private static String openTag(final String name) {
+        if (!XmlStrings.isName(name)) {
+            throw new IllegalArgumentException(
+                    "Not a valid XML element name: " + name);
+        }
+        return "<" + name + ">";
+    }
+
+    /**
+     * Builds a close tag of an element.
+     * @param name a name of the element
+     * @return the close tag
+     */
+    private static String closeTag(final String name) {
+        return "</" + name + ">";
+    }
+
+    /**
+     * Appends the value of a single field as the content of an element.
+     */
+    @FunctionalInterface
+    private interface ValueWriter {
+        /**
+         * Appends the value of the field of a specified object.
+         * @param obj an object which field to write
+         * @param out a buffer to append the value to
+         * @param path classes of the objects the object is nested in,
+         *             null for a top level object
+         * @return false if nothing was appended and the element
+         *         has to be omitted
+         */
+        boolean write(Object obj, StringBuilder out, List<Class<?>> path);
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.zelr0x.jrealize;
+
+/**
+ * XML text escaping and name checks without regular expressions.
+ * Values are appended as is and escaped in place only if they contain
+ * characters that have to be escaped, so clean values are copied once.
+ */
+final class XmlStrings {
+    private static final int CONTROL_LIMIT = 0x20;
+    private static final char REPLACEMENT = '\uFFFD';
+
+    /**
+     * Prevents instantiation.
+     */
+    private XmlStrings() {
+        throw new AssertionError();
+    }
+
+    /**
+     * Appends an escaped XML text.
+     * @param out a buffer to append to
+     * @param value a value to append
+     */
+    static void appendEscaped(final StringBuilder out,
+                              final CharSequence value) {
+        final var start = out.length();
+        out.append(value);
+        escapeTail(out, start);
+    }
+
+    /**
+     * Escapes characters of a buffer starting at a specified index.
+     * @param out a buffer which tail to escape
+     * @param start index of the first character to escape
+     */
+    static void escapeTail(final StringBuilder out, final int start) {
+        final var end = out.length();
+        var i = start;
+        while (i < end && !needsEscape(out.charAt(i))) {
+            i++;
+        }
+        if (i == end) return;
+        final var tail = out.substring(i);
+        out.setLength(i);
+        for (int j = 0; j < tail.length(); j++) {
+            appendEscaped(out, tail.charAt(j));
+        }
+    }
+
+    /**
+     * Checks if a specified String is a valid XML element name
+     * without a namespace prefix.
+     * @param name a name to check
+     * @return true if the name can be used as a tag name
+     */
+    static boolean isName(final String name) {
+        if (name.isEmpty()) return false;
+        final var first = name.charAt(0);
+        if (!Character.isLetter(first) && first != '_') return false;
+        for (int i = 1; i < name.length(); i++) {
+            final var c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c)
+                    && c != '_' && c != '-' && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a character has to be escaped in XML text.
+     * @param c a character to check
+     * @return true for markup characters, carriage returns
+     *         and control characters
+     */
+    private static boolean needsEscape(final char c) {
+        return c < CONTROL_LIMIT && c != '\n' && c != '\t'
+                || c == '&' || c == '<' || c == '>';
+    }
+
+    /**
+     * Appends a character escaping it if necessary.
+     * Control characters which XML 1.0 does not allow are replaced
+     * with U+FFFD, carriage returns are kept from line end normalization.
+     * @param out a buffer to append to
+     * @param c a character to append
+     */
+    private static void appendEscaped(final StringBuilder out, final char c) {
+        switch (c) {
+            case '&':
+                out.append("&amp;");
+                break;
+            case '<':
+                out.append("&lt;");
+                break;
+            case '>':
+                out.append("&gt;");
+                break;
+            case '\r':
+                out.append("&#13;");
+                break;
+            case '\n':
+            case '\t':
+                out.append(c);
+                break;
+            default:
+                out.append(c < CONTROL_LIMIT ? REPLACEMENT : c);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package io.github.zelr0x.EmployeePojo;
+
+import io.github.zelr0x.jrealize.Annotation.Csv;
+import io.github.zelr0x.jrealize.ChannelOutput;
+import io.github.zelr0x.jrealize.Deserializer;
+import io.github.zelr0x.jrealize.Format;
+import io.github.zelr0x.jrealize.Formatter;
+import io.github.zelr0x.jrealize.Header;
+import io.github.zelr0x.jrealize.Parallel;
+import io.github.zelr0x.jrealize.Serializer;
+import io.github.zelr0x.jrealize.WriteOption;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class DeserializerTest {
+    private final static String FILENAME = "employees-read.csv";
+    private final static String DEFAULT_DIR = "csv";
+
+    private final static String BINARY_FILENAME = "employees-read.bin";
+
+    @Before
+    public void setUp() {
+        new File(DEFAULT_DIR, FILENAME).delete();
+        new File(DEFAULT_DIR, BINARY_FILENAME).delete();
+    }
+
+    @Test
+    public void readCsvRoundTrip() {
+        final var employees = IntStream.range(0, 1000)
+                .mapToObj(i -> new Employee("John" + i, "Doe",
+                        Position.values()[i % Position.values().length],
+                        new PhoneNumber("0" + i)))
+                .collect(Collectors.toList());
+        Serializer.writeCsv(employees, DEFAULT_DIR, FILENAME,
+                StandardCharsets.UTF_8, "\t");
+
+        final var formatter = Formatter.getFormatter(Format.CSV);
+        try (var read = Deserializer.readCsv(Employee.class, DEFAULT_DIR,
+                FILENAME, StandardCharsets.UTF_8, "\t")) {
+            Assert.assertEquals(
+                    employees.stream().map(formatter::format)
+                            .collect(Collectors.toList()),
+                    read.map(formatter::format).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void readCsvHeader() throws IOException {
+        final var employees = List.of(
+                new Employee("John", "Doe", Position.RANK1,
+                        new PhoneNumber("1")),
+                new Employee("Jane", "Doe", Position.RANK2,
+                        new PhoneNumber("2")));
+        Serializer.writeCsv(employees, DEFAULT_DIR, FILENAME,
+                StandardCharsets.UTF_8, ",",
+                Header.withFingerprint(Employee.class));
+        Serializer.writeCsv(employees, DEFAULT_DIR, FILENAME,
+                StandardCharsets.UTF_8, ",",
+                Header.withFingerprint(Employee.class));
+
+        final var fingerprint = Header.fingerprint(Employee.class);
+        Assert.assertEquals(16, fingerprint.length());
+        Assert.assertNotEquals(fingerprint, Header.fingerprint(Payslip.class));
+        final var lines = Files.readAllLines(Paths.get(DEFAULT_DIR, FILENAME));
+        Assert.assertEquals(List.of(Header.FINGERPRINT_PREFIX + fingerprint,
+                "first_name,lastName,position,number"), lines.subList(0, 2));
+        Assert.assertEquals(6, lines.size());
+        Assert.assertEquals(fingerprint, Deserializer.readFingerprint(
+                DEFAULT_DIR, FILENAME, StandardCharsets.UTF_8));
+
+        try (var read = Deserializer.readCsv(Employee.class, DEFAULT_DIR,
+                FILENAME)) {
+            Assert.assertEquals(4, read.count());
+        }
+        try (var read = Deserializer.readCsv(Payslip.class, DEFAULT_DIR,
+                FILENAME)) {
+            read.findFirst();
+            Assert.fail("Schema mismatch is not detected");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains(fingerprint));
+        }
+    }
+
+    @Test
+    public void readCsvPrimitives() {
+        final var csv = "42::7::1234.5::true::B\r\n1::12::-0.5::false::C";
+        final List<Payslip> payslips = Deserializer.readCsv(Payslip.class,
+                new StringReader(csv), "::").collect(Collectors.toList());
+        Assert.assertEquals(2, payslips.size());
+        Assert.assertEquals(42L, payslips.get(0).getEmployeeId());
+        Assert.assertEquals(1234.5, payslips.get(0).getAmount(), 0);
+        Assert.assertTrue(payslips.get(0).isPaid());
+        Assert.assertEquals(12, payslips.get(1).getMonth());
+        Assert.assertEquals('C', payslips.get(1).getGrade());
+    }
+
+    @Test
+    public void readCsvFormat() {
+        final var invoice = new Invoice(7, LocalDate.of(2024, 2, 9),
+                LocalDateTime.of(2024, 2, 9, 8, 30, 15, 500_000_000),
+                1234.5, new BigDecimal("0.125"));
+        final var csv = Formatter.getFormatter(Format.CSV).format(invoice);
+        final List<Invoice> read = Deserializer.readCsv(Invoice.class,
+                new StringReader(csv), ",").collect(Collectors.toList());
+        Assert.assertEquals(1, read.size());
+        Assert.assertEquals(invoice.getIssued(), read.get(0).getIssued());
+        Assert.assertEquals(invoice.getCreated(), read.get(0).getCreated());
+        Assert.assertEquals(1234.5, read.get(0).getTotal(), 0);
+        Assert.assertEquals(new BigDecimal("0.13"), read.get(0).getTax());
+
+        try {
+            Deserializer.readCsv(Invoice.class,
+                    new StringReader("1,2024-02-09,,0,0"), ",").count();
+            Assert.fail("Dates not matching the pattern are read");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Row 1, column 2"));
+        }
+    }
+
+    @Test
+    public void readCsvNulls() {
+        final var employees = List.of(
+                new Employee(null, "Doe", null, null),
+                new Employee("", "Doe", Position.RANK2,
+                        new PhoneNumber("1")));
+        final var formatter = Formatter.getFormatter(Format.CSV);
+        final var csv = new StringBuilder();
+        employees.forEach(e -> formatter.format(e, csv));
+        final List<Employee> read = Deserializer.readCsv(Employee.class,
+                new StringReader(csv.toString()), ",")
+                .collect(Collectors.toList());
+        Assert.assertEquals(2, read.size());
+        Assert.assertNull(read.get(0).getFirstName());
+        Assert.assertNull(read.get(0).getPosition());
+        Assert.assertNull(read.get(0).getNumber());
+        Assert.assertNull(read.get(1).getFirstName());
+        Assert.assertEquals(Position.RANK2, read.get(1).getPosition());
+
+        final var invoice = new Invoice(1, null, null, 2.5, null);
+        final Invoice readInvoice = Deserializer.readCsv(Invoice.class,
+                new StringReader(Formatter.getFormatter(Format.CSV)
+                        .format(invoice)), ",").findFirst().orElseThrow();
+        Assert.assertNull(readInvoice.getIssued());
+        Assert.assertNull(readInvoice.getCreated());
+        Assert.assertNull(readInvoice.getTax());
+
+        final List<Tag> tags = Deserializer.readCsv(Tag.class,
+                new StringReader("a\n\nb\n"), ",")
+                .collect(Collectors.toList());
+        Assert.assertEquals(3, tags.size());
+        Assert.assertNull(tags.get(1).value);
+        Assert.assertEquals("b", tags.get(2).value);
+    }
+
+    @Test
+    public void readCsvRowsLikeHeader() {
+        final List<String> values = Deserializer.readCsv(Tag.class,
+                new StringReader("a\nvalue\nvalue\n"), ",")
+                .map(tag -> tag.value)
+                .collect(Collectors.toList());
+        Assert.assertEquals(List.of("a", "value", "value"), values);
+
+        final var fingerprinted = Header.FINGERPRINT_PREFIX
+                + Header.fingerprint(Tag.class) + "\nvalue\nvalue\n";
+        Assert.assertEquals(1, Deserializer.readCsv(Tag.class,
+                new StringReader(fingerprinted), ",").count());
+    }
+
+    @Test
+    public void readCsvQuoted() {
+        final var employees = List.of(
+                new Employee("John \"Q\"", "Doe:: Jr.\r\n", Position.RANK1,
+                        new PhoneNumber("")),
+                new Employee("", "\"", Position.RANK2,
+                        new PhoneNumber(":\n:")));
+        final var formatter = Formatter.getFormatter(Format.CSV, "::");
+        final var csv = new StringBuilder();
+        employees.forEach(e -> formatter.format(e, csv));
+        Assert.assertTrue(csv.toString().startsWith(
+                "\"John \"\"Q\"\"\"::\"Doe:: Jr.\r\n\"::RANK1::"));
+
+        final List<Employee> read = Deserializer.readCsv(Employee.class,
+                new StringReader(csv.toString()), "::")
+                .collect(Collectors.toList());
+        Assert.assertEquals(
+                employees.stream().map(formatter::format)
+                        .collect(Collectors.toList()),
+                read.stream().map(formatter::format)
+                        .collect(Collectors.toList()));
+
+        try {
+            Deserializer.readCsv(Employee.class,
+                    new StringReader("\"John::Doe::RANK1::1\n"), "::")
+                    .count();
+            Assert.fail("Unclosed quotes are not detected");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Row 1"));
+        }
+    }
+
+    @Test
+    public void readBinaryRoundTrip() {
+        final var employees = IntStream.range(0, 10000)
+                .mapToObj(i -> new Employee("John" + i,
+                        i % 7 == 0 ? null : "Doe",
+                        Position.values()[i % Position.values().length],
+                        new PhoneNumber("0" + i % 100)))
+                .collect(Collectors.toList());
+        final var payslips = IntStream.range(0, 5000)
+                .mapToObj(i -> new Payslip(i, i % 12 + 1, i * 0.25,
+                        i % 2 == 0, (char) ('A' + i % 26)))
+                .collect(Collectors.toList());
+        Serializer.write(employees, Format.BINARY, DEFAULT_DIR,
+                BINARY_FILENAME, StandardCharsets.UTF_8);
+
+        final var formatter = Formatter.getFormatter(Format.NDJSON);
+        try (var read = Deserializer.readBinary(Employee.class, DEFAULT_DIR,
+                BINARY_FILENAME)) {
+            Assert.assertEquals(
+                    employees.stream().map(formatter::format)
+                            .collect(Collectors.toList()),
+                    read.map(formatter::format).collect(Collectors.toList()));
+        }
+
+        new File(DEFAULT_DIR, BINARY_FILENAME).delete();
+        Serializer.write(payslips.stream(), Format.BINARY, DEFAULT_DIR,
+                BINARY_FILENAME, StandardCharsets.UTF_8);
+        Serializer.write(payslips.stream(), Format.BINARY, DEFAULT_DIR,
+                BINARY_FILENAME, StandardCharsets.UTF_8);
+        try (var read = Deserializer.readBinary(Payslip.class, DEFAULT_DIR,
+                BINARY_FILENAME)) {
+            final var expected = payslips.stream().map(formatter::format)
+                    .collect(Collectors.toList());
+            expected.addAll(List.copyOf(expected));
+            Assert.assertEquals(expected,
+                    read.map(formatter::format).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void writeBinaryOptions() throws IOException {
+        final var payslips = List.of(new Payslip(1, 2, 3.5, true, 'A'));
+        final var file = Paths.get(DEFAULT_DIR, BINARY_FILENAME);
+        final WriteOption[][] rejected = {
+                {new Parallel(true)},
+                {new ChannelOutput()},
+                {Header.of(Payslip.class)},
+        };
+        for (final var options : rejected) {
+            try {
+                Serializer.write(payslips, Format.BINARY, DEFAULT_DIR,
+                        BINARY_FILENAME, StandardCharsets.UTF_8, options);
+                Assert.fail(options[0] + " does not apply to binary output");
+            } catch (IllegalArgumentException e) {
+                Assert.assertTrue(!Files.exists(file)
+                        || Files.size(file) == 0);
+            }
+        }
+    }
+
+    @Test
+    public void readNestedRejected() {
+        final var people = List.of(new FormatterTest.Person("Ann",
+                new FormatterTest.Address("Oslo", "Main"), null));
+        Serializer.write(people, Format.CSV, DEFAULT_DIR, FILENAME,
+                StandardCharsets.UTF_8);
+        Serializer.write(people, Format.BINARY, DEFAULT_DIR,
+                BINARY_FILENAME, StandardCharsets.UTF_8);
+        try {
+            Deserializer.readCsv(FormatterTest.Person.class, DEFAULT_DIR,
+                    FILENAME).close();
+            Assert.fail("nested fields are flattened on write");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("home"));
+        }
+        try {
+            Deserializer.readBinary(FormatterTest.Person.class, DEFAULT_DIR,
+                    BINARY_FILENAME).close();
+            Assert.fail("nested fields are flattened on write");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("home"));
+        }
+    }
+
+    static final class Tag {
+        @Csv(col = 1)
+        String value;
+    }
+}
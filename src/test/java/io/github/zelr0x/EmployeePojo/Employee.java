@@ -1,15 +1,25 @@
 package io.github.zelr0x.EmployeePojo;
 
 import io.github.zelr0x.jrealize.Annotation.Csv;
+import io.github.zelr0x.jrealize.Annotation.Json;
+import io.github.zelr0x.jrealize.Annotation.Xml;
 
 public class Employee {
-    @Csv(col = 1)
+    @Csv(col = 1, name = "first_name")
+    @Json(name = "first_name")
+    @Xml
     private String firstName;
     @Csv(col = 2)
+    @Json
+    @Xml
     private String lastName;
     @Csv(col = 3)
+    @Json
+    @Xml
     private Position position;
     @Csv(col = 4)
+    @Json
+    @Xml
     private PhoneNumber number;
 
     public Employee(final String firstName, final String lastName,
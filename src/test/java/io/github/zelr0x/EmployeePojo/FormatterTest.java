@@ -0,0 +1,499 @@
+package io.github.zelr0x.EmployeePojo;
+
+import io.github.zelr0x.jrealize.Accessor;
+import io.github.zelr0x.jrealize.Annotation.Csv;
+import io.github.zelr0x.jrealize.Annotation.CsvFormat;
+import io.github.zelr0x.jrealize.Annotation.CsvGetter;
+import io.github.zelr0x.jrealize.Annotation.Json;
+import io.github.zelr0x.jrealize.Annotation.Xml;
+import io.github.zelr0x.jrealize.Annotation.Util;
+import io.github.zelr0x.jrealize.CsvValues;
+import io.github.zelr0x.jrealize.Format;
+import io.github.zelr0x.jrealize.Formatter;
+import io.github.zelr0x.jrealize.Projection;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
+
+public class FormatterTest {
+    private final static Employee EMPLOYEE = new Employee("John", "Doe",
+            Position.RANK1,
+            new PhoneNumber("01234567890"));
+
+    @Test
+    public void csvBackendsAgree() {
+        final var expected = "John,Doe,RANK1,01234567890"
+                + System.lineSeparator();
+        for (final var accessor : Accessor.values()) {
+            final var formatter = Formatter.getFormatter(Format.CSV,
+                    Formatter.DEFAULT_DELIMITER, accessor);
+            Assert.assertEquals(expected, formatter.format(EMPLOYEE));
+        }
+    }
+
+    @Test
+    public void csvProjection() {
+        final var ls = System.lineSeparator();
+        Assert.assertEquals("01234567890;Doe" + ls,
+                Formatter.getFormatter(Format.CSV, ";",
+                        Projection.cols(4, 2)).format(EMPLOYEE));
+        Assert.assertEquals("Doe,John,Doe" + ls,
+                Formatter.getFormatter(Format.CSV, ",", Projection.fields(
+                        "lastName", "firstName", "lastName"))
+                        .format(EMPLOYEE));
+        try {
+            Formatter.getFormatter(Format.CSV, ",", Projection.cols(5))
+                    .format(EMPLOYEE);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().endsWith("column 5"));
+        }
+    }
+
+    @Test
+    public void generatedCsvFormatter() {
+        final var expected = Formatter.getFormatter(Format.CSV, ";",
+                Accessor.REFLECTION).format(EMPLOYEE);
+        Assert.assertEquals(expected,
+                new Employee_CsvFormatter(";").format(EMPLOYEE));
+        Assert.assertEquals(expected,
+                Formatter.getFormatter(Format.CSV, ";").format(EMPLOYEE));
+    }
+
+    @Test
+    public void generatedCsvFormatterPrivateFields() {
+        final var payslip = new Payslip(42, 7, 1234.5, true, 'B');
+        final var generated = new Payslip_CsvFormatter(",").format(payslip);
+        Assert.assertEquals("42,7,1234.5,true,B" + System.lineSeparator(),
+                generated);
+        for (final var accessor : Accessor.values()) {
+            Assert.assertEquals(generated, Formatter.getFormatter(
+                    Format.CSV, ",", accessor).format(payslip));
+        }
+    }
+
+    @Test
+    public void binaryHasNoFormatter() {
+        try {
+            Formatter.getFormatter(Format.BINARY);
+            Assert.fail("binary format is written in column blocks");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            Formatter.getFormatter(Format.BINARY, ",", Accessor.REFLECTION);
+            Assert.fail("binary format is written in column blocks");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void generatedCsvFormatterNulls() {
+        final var employees = List.of(
+                new Employee(null, "Doe", Position.RANK1, null),
+                new Employee("John", null, null, new PhoneNumber(null)));
+        for (final var employee : employees) {
+            final var generated = new Employee_CsvFormatter(",")
+                    .format(employee);
+            for (final var accessor : Accessor.values()) {
+                Assert.assertEquals(generated, Formatter.getFormatter(
+                        Format.CSV, ",", accessor).format(employee));
+            }
+        }
+        Assert.assertEquals(",Doe,RANK1," + System.lineSeparator(),
+                new Employee_CsvFormatter(",").format(employees.get(0)));
+
+        final var coded = new Coded(new Code(null), null);
+        for (final var accessor : Accessor.values()) {
+            Assert.assertEquals(new FormatterTest$Coded_CsvFormatter(",")
+                    .format(coded), Formatter.getFormatter(Format.CSV, ",",
+                    accessor).format(coded));
+        }
+        Assert.assertEquals("," + System.lineSeparator(),
+                new FormatterTest$Coded_CsvFormatter(",").format(coded));
+    }
+
+    @Test
+    public void csvQuoting() {
+        final var employee = new Employee("John \"Q\"", "Doe, Jr.\r\n",
+                Position.RANK1, new PhoneNumber("0123"));
+        final var expected = "\"John \"\"Q\"\"\",\"Doe, Jr.\r\n\",RANK1,0123"
+                + System.lineSeparator();
+        for (final var accessor : Accessor.values()) {
+            Assert.assertEquals(expected, Formatter.getFormatter(Format.CSV,
+                    Formatter.DEFAULT_DELIMITER, accessor).format(employee));
+        }
+        Assert.assertEquals(expected,
+                new Employee_CsvFormatter(",").format(employee));
+
+        final var payslip = new Payslip(42L, 7, 1234.5, true, '.');
+        final var dotted = "42.7.\"1234.5\".true.\".\""
+                + System.lineSeparator();
+        Assert.assertEquals(dotted, Formatter.getFormatter(Format.CSV, ".",
+                Accessor.REFLECTION).format(payslip));
+        Assert.assertEquals(dotted, Formatter.getFormatter(Format.CSV, ".")
+                .format(payslip));
+    }
+
+    @Test
+    public void csvPrimitives() {
+        final var payslip = new Payslip(42L, 7, 1234.5, true, 'B');
+        final var expected = "42,7,1234.5,true,B" + System.lineSeparator();
+        for (final var accessor : Accessor.values()) {
+            final var formatter = Formatter.getFormatter(Format.CSV,
+                    Formatter.DEFAULT_DELIMITER, accessor);
+            final var sb = new StringBuilder();
+            formatter.format(payslip, sb);
+            Assert.assertEquals(expected, sb.toString());
+        }
+        Assert.assertEquals(expected, Formatter.getFormatter(Format.CSV)
+                .format(payslip));
+    }
+
+    @Test
+    public void json() {
+        final var employee = new Employee("John \"Q\"", "Doe\n",
+                Position.RANK1, new PhoneNumber("01234567890"));
+        final var expected = "{\"first_name\":\"John \\\"Q\\\"\","
+                + "\"lastName\":\"Doe\\n\",\"position\":\"RANK1\","
+                + "\"number\":\"01234567890\"}";
+        for (final var accessor : Accessor.values()) {
+            final var formatter = Formatter.getFormatter(Format.NDJSON,
+                    Formatter.DEFAULT_DELIMITER, accessor);
+            Assert.assertEquals(expected + System.lineSeparator(),
+                    formatter.format(employee));
+        }
+        Assert.assertEquals(expected,
+                Formatter.getFormatter(Format.JSON).format(employee));
+        Assert.assertEquals("{\"employeeId\":42,\"month\":7,"
+                        + "\"amount\":null,\"paid\":true,\"grade\":\"B\"}",
+                Formatter.getFormatter(Format.JSON).format(
+                        new Payslip(42L, 7, Double.NaN, true, 'B')));
+    }
+
+    @Test
+    public void xml() {
+        final var employee = new Employee("John & <Q>", "Doe",
+                Position.RANK1, null);
+        final var expected = "<Employee><firstName>John &amp; &lt;Q&gt;"
+                + "</firstName><lastName>Doe</lastName>"
+                + "<position>RANK1</position></Employee>"
+                + System.lineSeparator();
+        for (final var accessor : Accessor.values()) {
+            final var formatter = Formatter.getFormatter(Format.XML,
+                    Formatter.DEFAULT_DELIMITER, accessor);
+            Assert.assertEquals(expected, formatter.format(employee));
+        }
+        Assert.assertEquals("<Payslip><employeeId>42</employeeId>"
+                        + "<month>7</month><amount>INF</amount>"
+                        + "<paid>true</paid><grade>B</grade></Payslip>"
+                        + System.lineSeparator(),
+                Formatter.getFormatter(Format.XML).format(new Payslip(
+                        42L, 7, Double.POSITIVE_INFINITY, true, 'B')));
+    }
+
+    @Test
+    public void getterResolution() {
+        Assert.assertEquals("0123", Util.valueToString(
+                new PhoneNumber("0123"), CsvGetter.class));
+        Assert.assertEquals("RANK1", Util.valueToString(
+                Position.RANK1, CsvGetter.class));
+        for (int i = 0; i < 2; i++) {
+            try {
+                Util.valueToString(new TwoGetters(), CsvGetter.class);
+                Assert.fail();
+            } catch (RuntimeException e) {
+                Assert.assertTrue(e.getMessage().contains("methods marked"));
+            }
+        }
+    }
+
+    @Test
+    public void csvNested() {
+        final var ls = System.lineSeparator();
+        final var boss = new Person("Bob", null, null);
+        final var person = new Person("Ann", new Address("Oslo", "Main"),
+                boss);
+        for (final var accessor : Accessor.values()) {
+            final var formatter = Formatter.getFormatter(Format.CSV,
+                    Formatter.DEFAULT_DELIMITER, accessor);
+            Assert.assertEquals("Ann,Oslo,Main,Bob" + ls,
+                    formatter.format(person));
+            Assert.assertEquals("Bob,,," + ls, formatter.format(boss));
+        }
+        Assert.assertEquals("Ann,Oslo,Main,Bob" + ls,
+                Formatter.getFormatter(Format.CSV).format(person));
+        Assert.assertEquals("Oslo;Ann" + ls, Formatter.getFormatter(
+                Format.CSV, ";", Projection.fields("home.city", "name"))
+                .format(person));
+        Assert.assertEquals("Oslo;Main" + ls, Formatter.getFormatter(
+                Format.CSV, ";", Projection.cols(2)).format(person));
+    }
+
+    @Test
+    public void csvNumbers() {
+        for (final var value : List.of(0.1, 0.001, 1234.5, -2.5, 100.0,
+                9999999.999, 0.30000000000000004, 1e7, 1e-4, 0.0, -0.0,
+                Double.NaN, Double.MIN_VALUE)) {
+            Assert.assertEquals(Double.toString(value), appendDouble(value));
+        }
+        final var random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            final var value = i % 2 == 0
+                    ? Double.longBitsToDouble(random.nextLong())
+                    : random.nextDouble() * Math.pow(10, i % 12 - 4);
+            final var text = appendDouble(value);
+            Assert.assertEquals(value, Double.parseDouble(text), 0);
+            Assert.assertTrue(text.length()
+                    <= Double.toString(value).length());
+
+            final var scale = i % 6;
+            if (Double.isNaN(value) || Double.isInfinite(value)) continue;
+            final var sb = new StringBuilder();
+            CsvValues.appendDouble(sb, value, scale);
+            final var expected = new BigDecimal(value)
+                    .setScale(scale, RoundingMode.HALF_UP).toPlainString();
+            Assert.assertEquals(expected.matches("-0(\\.0*)?")
+                    ? expected.substring(1) : expected, sb.toString());
+        }
+
+        final var payslip = new Payslip(42L, 7, 0.1 + 0.2, true, 'A');
+        Assert.assertEquals(Formatter.getFormatter(Format.CSV, ",",
+                Accessor.REFLECTION).format(payslip),
+                Formatter.getFormatter(Format.CSV).format(payslip));
+    }
+
+    @Test
+    public void csvDates() {
+        final var values = List.of(LocalDate.of(2024, 2, 9),
+                LocalDate.of(12345, 1, 1), LocalDate.of(-1, 12, 31),
+                LocalTime.of(7, 5), LocalTime.of(7, 5, 3),
+                LocalTime.of(7, 5, 0, 120_000_000),
+                LocalTime.of(7, 5, 0, 123_400),
+                LocalTime.of(23, 59, 59, 1),
+                LocalDateTime.of(2024, 2, 9, 0, 0),
+                LocalDateTime.of(1, 1, 1, 13, 30, 15, 999_000_000));
+        for (final var value : values) {
+            final var sb = new StringBuilder();
+            CsvValues.appendValue(sb, value);
+            Assert.assertEquals(value.toString(), sb.toString());
+        }
+    }
+
+    @Test
+    public void csvFormat() {
+        final var invoice = new Invoice(7, LocalDate.of(2024, 2, 9),
+                LocalDateTime.of(2024, 2, 9, 8, 30), 1234.5,
+                new BigDecimal("0.125"));
+        final var expected = "7,09.02.2024,2024-02-09T08:30,1234.50,0.13"
+                + System.lineSeparator();
+        for (final var accessor : Accessor.values()) {
+            Assert.assertEquals(expected, Formatter.getFormatter(Format.CSV,
+                    Formatter.DEFAULT_DELIMITER, accessor).format(invoice));
+            Assert.assertEquals("{\"total\":1234.5}", Formatter.getFormatter(
+                    Format.JSON, Formatter.DEFAULT_DELIMITER, accessor)
+                    .format(invoice));
+            Assert.assertTrue(Formatter.getFormatter(Format.XML,
+                    Formatter.DEFAULT_DELIMITER, accessor).format(invoice)
+                    .contains("<total>1234.5</total>"));
+        }
+        try {
+            Formatter.getFormatter(Format.CSV).format(new Misformatted());
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().endsWith(
+                    "pattern only applies to java.time fields"));
+        }
+    }
+
+    @Test
+    public void jsonCycle() {
+        final var first = new Node("a");
+        final var second = new Node("b");
+        first.next = second;
+        second.next = first;
+        for (final var accessor : Accessor.values()) {
+            Assert.assertEquals("{\"name\":\"a\",\"next\":\"b\"}",
+                    Formatter.getFormatter(Format.NDJSON,
+                            Formatter.DEFAULT_DELIMITER, accessor)
+                            .format(first).trim());
+        }
+    }
+
+    @Test
+    public void xmlCycle() {
+        final var first = new Node("a");
+        final var second = new Node("b");
+        first.next = second;
+        second.next = first;
+        final var self = new Node("c");
+        self.next = self;
+        for (final var accessor : Accessor.values()) {
+            final var formatter = Formatter.getFormatter(Format.XML,
+                    Formatter.DEFAULT_DELIMITER, accessor);
+            Assert.assertEquals("<Node><name>a</name><next>b</next></Node>",
+                    formatter.format(first).trim());
+            Assert.assertEquals("<Node><name>c</name><next>c</next></Node>",
+                    formatter.format(self).trim());
+        }
+    }
+
+    @Test
+    public void generatedGetterCycle() {
+        try {
+            Class.forName(Rally.class.getName() + "_CsvFormatter");
+            Assert.fail("getters of Ping and Pong form a cycle");
+        } catch (ClassNotFoundException e) {
+            // reflection reports the cycle at runtime
+        }
+        try {
+            Formatter.getFormatter(Format.CSV).format(new Rally());
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().endsWith("form a cycle"));
+        }
+    }
+
+    @Test
+    public void getterCycle() {
+        try {
+            Util.valueToString(new Loop(), CsvGetter.class);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().endsWith("form a cycle"));
+        }
+    }
+
+    private static String appendDouble(final double value) {
+        final var sb = new StringBuilder();
+        CsvValues.appendDouble(sb, value);
+        return sb.toString();
+    }
+
+    static final class Address {
+        @Csv(col = 1)
+        final String city;
+        @Csv(col = 2)
+        final String street;
+
+        Address(final String city, final String street) {
+            this.city = city;
+            this.street = street;
+        }
+    }
+
+    static final class Person {
+        @Csv(col = 1)
+        final String name;
+        @Csv(col = 2)
+        final Address home;
+        @Csv(col = 3)
+        final Person manager;
+
+        Person(final String name, final Address home, final Person manager) {
+            this.name = name;
+            this.home = home;
+            this.manager = manager;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    static final class Code {
+        private final String value;
+
+        Code(final String value) {
+            this.value = value;
+        }
+
+        @CsvGetter
+        String get() {
+            return value;
+        }
+    }
+
+    static final class Coded {
+        @Csv(col = 1)
+        final Code code;
+        @Csv(col = 2)
+        final Double amount;
+
+        Coded(final Code code, final Double amount) {
+            this.code = code;
+            this.amount = amount;
+        }
+    }
+
+    static final class Node {
+        @Json
+        @Xml
+        final String name;
+        @Json
+        @Xml
+        Node next;
+
+        Node(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static final class Misformatted {
+        @Csv(col = 1)
+        @CsvFormat(pattern = "yyyy")
+        final long year = 2024;
+    }
+
+    static final class Rally {
+        @Csv(col = 1)
+        final Ping ping = new Ping();
+    }
+
+    static final class Ping {
+        @CsvGetter
+        Pong get() {
+            return new Pong();
+        }
+    }
+
+    static final class Pong {
+        @CsvGetter
+        Ping get() {
+            return new Ping();
+        }
+    }
+
+    private static final class Loop {
+        @CsvGetter
+        Object get() {
+            return this;
+        }
+    }
+
+    private static final class TwoGetters {
+        @CsvGetter
+        String first() {
+            return "first";
+        }
+
+        @CsvGetter
+        String second() {
+            return "second";
+        }
+    }
+}
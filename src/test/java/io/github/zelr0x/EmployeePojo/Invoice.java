@@ -0,0 +1,58 @@
+package io.github.zelr0x.EmployeePojo;
+
+import io.github.zelr0x.jrealize.Annotation.Csv;
+import io.github.zelr0x.jrealize.Annotation.CsvFormat;
+import io.github.zelr0x.jrealize.Annotation.Json;
+import io.github.zelr0x.jrealize.Annotation.Xml;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class Invoice {
+    @Csv(col = 1)
+    private long id;
+    @Csv(col = 2)
+    @CsvFormat(pattern = "dd.MM.yyyy")
+    private LocalDate issued;
+    @Csv(col = 3)
+    private LocalDateTime created;
+    @Csv(col = 4)
+    @CsvFormat(scale = 2)
+    @Json
+    @Xml
+    private double total;
+    @Csv(col = 5)
+    @CsvFormat(scale = 2)
+    private BigDecimal tax;
+
+    public Invoice(final long id, final LocalDate issued,
+                   final LocalDateTime created, final double total,
+                   final BigDecimal tax) {
+        this.id = id;
+        this.issued = issued;
+        this.created = created;
+        this.total = total;
+        this.tax = tax;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public LocalDate getIssued() {
+        return issued;
+    }
+
+    public LocalDateTime getCreated() {
+        return created;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    public BigDecimal getTax() {
+        return tax;
+    }
+}
@@ -0,0 +1,58 @@
+package io.github.zelr0x.EmployeePojo;
+
+import io.github.zelr0x.jrealize.Annotation.Csv;
+import io.github.zelr0x.jrealize.Annotation.Json;
+import io.github.zelr0x.jrealize.Annotation.Xml;
+
+public class Payslip {
+    @Csv(col = 1)
+    @Json
+    @Xml
+    private long employeeId;
+    @Csv(col = 2)
+    @Json
+    @Xml
+    private int month;
+    @Csv(col = 3)
+    @Json
+    @Xml
+    private double amount;
+    @Csv(col = 4)
+    @Json
+    @Xml
+    private boolean paid;
+    @Csv(col = 5)
+    @Json
+    @Xml
+    private char grade;
+
+    public Payslip(final long employeeId, final int month,
+                   final double amount, final boolean paid,
+                   final char grade) {
+        this.employeeId = employeeId;
+        this.month = month;
+        this.amount = amount;
+        this.paid = paid;
+        this.grade = grade;
+    }
+
+    public long getEmployeeId() {
+        return employeeId;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public boolean isPaid() {
+        return paid;
+    }
+
+    public char getGrade() {
+        return grade;
+    }
+}
@@ -1,6 +1,8 @@
 package io.github.zelr0x.EmployeePojo;
 
 import io.github.zelr0x.jrealize.Annotation.CsvGetter;
+import io.github.zelr0x.jrealize.Annotation.JsonGetter;
+import io.github.zelr0x.jrealize.Annotation.XmlGetter;
 
 public class PhoneNumber {
     private String value;
@@ -10,6 +12,8 @@ public class PhoneNumber {
     }
 
     @CsvGetter
+    @JsonGetter
+    @XmlGetter
     public String get() {
         return value;
     }
@@ -1,13 +1,50 @@
 package io.github.zelr0x.EmployeePojo;
 
+import io.github.zelr0x.jrealize.AsyncSerializer;
+import io.github.zelr0x.jrealize.ChannelOutput;
+import io.github.zelr0x.jrealize.Checkpoint;
+import io.github.zelr0x.jrealize.FlushPolicy;
+import io.github.zelr0x.jrealize.Format;
+import io.github.zelr0x.jrealize.Formatter;
+import io.github.zelr0x.jrealize.Gzip;
+import io.github.zelr0x.jrealize.JmxMetrics;
+import io.github.zelr0x.jrealize.MetricsListener;
+import io.github.zelr0x.jrealize.Parallel;
+import io.github.zelr0x.jrealize.Projection;
+import io.github.zelr0x.jrealize.Rolling;
 import io.github.zelr0x.jrealize.Serializer;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import javax.management.ObjectName;
+import javax.xml.parsers.DocumentBuilderFactory;
 
 public class SerializerTest {
     private final static List<Employee> EMPLOYEES = List.of(
@@ -44,4 +81,561 @@ public class SerializerTest {
                 Serializer.writeCsv(EMPLOYEES, DEFAULT_DIR, FILENAME));
         Assert.assertEquals(file.length(), length * (repeats + 1));
     }
+
+    @Test
+    public void writeCsvStream() {
+        final var file = new File(DEFAULT_DIR, FILENAME);
+        Serializer.writeCsv(EMPLOYEES, DEFAULT_DIR, FILENAME);
+        final var length = file.length();
+
+        Serializer.writeCsv(EMPLOYEES.stream(), DEFAULT_DIR, FILENAME);
+        Assert.assertEquals(file.length(), length * 2);
+
+        Serializer.writeCsv(EMPLOYEES.iterator(), DEFAULT_DIR, FILENAME,
+                StandardCharsets.UTF_8, Formatter.DEFAULT_DELIMITER);
+        Assert.assertEquals(file.length(), length * 3);
+    }
+
+    @Test
+    public void writeCsvProjection() throws IOException {
+        final var file = new File(DEFAULT_DIR, FILENAME);
+        Serializer.writeCsv(EMPLOYEES, DEFAULT_DIR, FILENAME,
+                StandardCharsets.UTF_8, ",", Projection.fields("lastName"),
+                Projection.cols(2, 1));
+        Assert.assertEquals(List.of("Doe,John", "Doe,Jane"),
+                Files.readAllLines(file.toPath()));
+    }
+
+    @Test
+    public void writeCsvParallel() throws IOException {
+        final var employees = IntStream.range(0, 10_000)
+                .mapToObj(i -> new Employee("John" + i, "Doe",
+                        Position.RANK1, new PhoneNumber("0" + i)))
+                .collect(Collectors.toList());
+        final var file = new File(DEFAULT_DIR, FILENAME);
+        Serializer.writeCsv(employees, DEFAULT_DIR, FILENAME);
+        final var expected = Files.readAllLines(file.toPath());
+        file.delete();
+
+        Serializer.writeCsv(employees, DEFAULT_DIR, FILENAME,
+                StandardCharsets.UTF_8, Formatter.DEFAULT_DELIMITER,
+                new Parallel(ForkJoinPool.commonPool(), 100, true));
+        Assert.assertEquals(expected, Files.readAllLines(file.toPath()));
+        file.delete();
+
+        Serializer.writeCsv(employees, DEFAULT_DIR, FILENAME,
+                StandardCharsets.UTF_8, Formatter.DEFAULT_DELIMITER,
+                new Parallel(ForkJoinPool.commonPool(), 100, false));
+        final var unordered = Files.readAllLines(file.toPath());
+        Assert.assertEquals(new HashSet<>(expected),
+                new HashSet<>(unordered));
+        Assert.assertEquals(expected.size(), unordered.size());
+    }
+
+    @Test
+    public void writeCsvChannel() throws IOException {
+        final var file = new File(DEFAULT_DIR, FILENAME);
+        Serializer.writeCsv(EMPLOYEES, DEFAULT_DIR, FILENAME);
+        final var expected = Files.readAllBytes(file.toPath());
+        for (final var mapped : new boolean[] {false, true}) {
+            file.delete();
+            // a buffer smaller than a row forces several blocks per row
+            final var option = new ChannelOutput(7, mapped);
+            Serializer.writeCsv(EMPLOYEES, DEFAULT_DIR, FILENAME,
+                    StandardCharsets.UTF_8, Formatter.DEFAULT_DELIMITER,
+                    option);
+            Serializer.writeCsv(EMPLOYEES, DEFAULT_DIR, FILENAME,
+                    StandardCharsets.UTF_8, Formatter.DEFAULT_DELIMITER,
+                    option);
+            final var actual = Files.readAllBytes(file.toPath());
+            Assert.assertEquals(expected.length * 2, actual.length);
+            Assert.assertArrayEquals(expected,
+                    Arrays.copyOfRange(actual, expected.length,
+                            actual.length));
+        }
+    }
+
+    @Test
+    public void writeCsvChannelUnmappable() throws IOException {
+        final var file = new File(DEFAULT_DIR, FILENAME);
+        final var employees = List.of(new Employee("J\u00f6rg", "Doe",
+                Position.RANK1, new PhoneNumber("0")));
+        final var failures = new ArrayList<Throwable>();
+        Serializer.setMetricsListener(new MetricsListener() {
+            @Override
+            public void writeFailed(final Path path, final Throwable error) {
+                failures.add(error);
+            }
+        });
+        try {
+            for (final var mapped : new boolean[] {false, true}) {
+                file.delete();
+                Serializer.writeCsv(employees, DEFAULT_DIR, FILENAME,
+                        StandardCharsets.US_ASCII,
+                        Formatter.DEFAULT_DELIMITER,
+                        new ChannelOutput(1024, mapped));
+                Assert.assertFalse(new String(Files.readAllBytes(
+                        file.toPath()), StandardCharsets.US_ASCII)
+                        .contains("?"));
+            }
+        } finally {
+            Serializer.setMetricsListener(MetricsListener.NOOP);
+        }
+        Assert.assertEquals(2, failures.size());
+        for (final var failure : failures) {
+            Assert.assertTrue(failure instanceof CharacterCodingException);
+        }
+        file.delete();
+    }
+
+    @Test
+    public void writeJson() throws IOException {
+        final var filename = "employees.json";
+        final var file = new File(DEFAULT_DIR, filename);
+        file.delete();
+        final var ls = System.lineSeparator();
+        final var employees = IntStream.range(0, 3000)
+                .mapToObj(i -> EMPLOYEES.get(i % 2))
+                .collect(Collectors.toList());
+        final var expected = employees.stream()
+                .map(Formatter.getFormatter(Format.JSON)::format)
+                .collect(Collectors.joining("," + ls, "[" + ls, ls + "]" + ls));
+
+        Serializer.writeJson(employees, DEFAULT_DIR, filename,
+                StandardCharsets.UTF_8);
+        Assert.assertEquals(expected, new String(
+                Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        try {
+            Serializer.writeJson(employees, DEFAULT_DIR, filename,
+                    StandardCharsets.UTF_8);
+            Assert.fail("A second array is appended");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("is not empty"));
+        }
+        Assert.assertEquals(expected, new String(
+                Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        file.delete();
+
+        Serializer.writeJson(employees.stream(), DEFAULT_DIR, filename,
+                StandardCharsets.UTF_8,
+                new Parallel(ForkJoinPool.commonPool(), 100, true));
+        Assert.assertEquals(expected, new String(
+                Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        file.delete();
+    }
+
+    @Test
+    public void writeXml() throws Exception {
+        final var filename = "employees.xml";
+        final var file = new File(DEFAULT_DIR, filename);
+        file.delete();
+        final var employees = IntStream.range(0, 3000)
+                .mapToObj(i -> EMPLOYEES.get(i % 2))
+                .collect(Collectors.toList());
+
+        Serializer.writeXml(employees.stream(), DEFAULT_DIR, filename,
+                StandardCharsets.UTF_8,
+                new Parallel(ForkJoinPool.commonPool(), 100, true));
+        final var document = DocumentBuilderFactory.newInstance()
+                .newDocumentBuilder().parse(file);
+        final var items = document.getDocumentElement().getChildNodes();
+        final var names = new ArrayList<String>();
+        for (int i = 0; i < items.getLength(); i++) {
+            final var item = items.item(i);
+            if (item.getNodeType() == Node.ELEMENT_NODE) {
+                names.add(((Element) item)
+                        .getElementsByTagName("firstName")
+                        .item(0).getTextContent());
+            }
+        }
+        Assert.assertEquals(employees.stream()
+                .map(Employee::getFirstName)
+                .collect(Collectors.toList()), names);
+
+        final var written = Files.readAllBytes(file.toPath());
+        try {
+            new Serializer(".").export(employees, Format.XML, DEFAULT_DIR,
+                    filename, StandardCharsets.UTF_8);
+            Assert.fail("A second document is appended");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("is not empty"));
+        }
+        Assert.assertArrayEquals(written, Files.readAllBytes(file.toPath()));
+        file.delete();
+    }
+
+    @Test
+    public void writeCsvAsync() throws IOException {
+        final var filename = "employees-async.csv";
+        final var file = new File(DEFAULT_DIR, filename);
+        file.delete();
+        final var futures = new ArrayList<CompletableFuture<Void>>();
+        try (var serializer = new AsyncSerializer(
+                System.getProperty("user.dir"), 2, 2,
+                Executors.defaultThreadFactory(), false)) {
+            for (int i = 0; i < 100; i++) {
+                futures.add(serializer.csv(EMPLOYEES, DEFAULT_DIR, filename,
+                        StandardCharsets.UTF_8, ","));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .join();
+        }
+        final var formatter = Formatter.getFormatter(Format.CSV);
+        final var expected = IntStream.range(0, 100 * EMPLOYEES.size())
+                .mapToObj(i -> formatter.format(EMPLOYEES.get(
+                        i % EMPLOYEES.size())).trim())
+                .collect(Collectors.toList());
+        Assert.assertEquals(expected, Files.readAllLines(file.toPath()));
+        file.delete();
+    }
+
+    @Test
+    public void writeWorkingDir() throws IOException {
+        final var workingDir = Files.createTempDirectory("jrealize");
+        final var dir = "csv-working-dir";
+        final var filename = "employees-async.csv";
+        final var formatter = Formatter.getFormatter(Format.CSV);
+        final var expected = EMPLOYEES.stream()
+                .map(e -> formatter.format(e).trim())
+                .collect(Collectors.toList());
+        try {
+            new Serializer(workingDir.toString()).export(EMPLOYEES,
+                    Format.CSV, dir, FILENAME, StandardCharsets.UTF_8);
+            try (var serializer = new AsyncSerializer(workingDir.toString(),
+                    2, 1, Executors.defaultThreadFactory(), false)) {
+                serializer.csv(EMPLOYEES, dir, filename,
+                        StandardCharsets.UTF_8, ",").join();
+            }
+            Assert.assertFalse(new File(dir).exists());
+            Assert.assertEquals(expected, Files.readAllLines(
+                    workingDir.resolve(dir).resolve(FILENAME)));
+            Assert.assertEquals(expected, Files.readAllLines(
+                    workingDir.resolve(dir).resolve(filename)));
+        } finally {
+            deleteAll(workingDir.resolve(dir).toFile());
+            Files.delete(workingDir.resolve(dir));
+            Files.delete(workingDir);
+        }
+    }
+
+    @Test
+    public void writeCsvRolling() throws IOException {
+        final var dir = new File("csv-rolling");
+        final var employees = IntStream.range(0, 1000)
+                .mapToObj(i -> new Employee("John" + i, "Doe",
+                        Position.values()[i / 250],
+                        new PhoneNumber("0" + i)))
+                .collect(Collectors.toList());
+        final var formatter = Formatter.getFormatter(Format.CSV);
+        final var expected = employees.stream()
+                .map(e -> formatter.format(e).trim())
+                .collect(Collectors.toList());
+
+        deleteAll(dir);
+        Serializer.writeCsv(employees, dir.getPath(), FILENAME,
+                StandardCharsets.UTF_8, ",", Rolling.rows(300));
+        Assert.assertEquals(List.of(300, 300, 300, 100), lineCounts(dir));
+        Assert.assertEquals(expected, readAll(dir));
+
+        deleteAll(dir);
+        Serializer.writeCsv(employees, dir.getPath(), FILENAME,
+                StandardCharsets.UTF_8, ",", Rolling.bytes(10_000));
+        for (final var part : dir.listFiles()) {
+            Assert.assertTrue(part.length() < 10_000 + 100);
+        }
+        Assert.assertEquals(expected, readAll(dir));
+        Serializer.writeCsv(employees, dir.getPath(), FILENAME,
+                StandardCharsets.UTF_8, ",", Rolling.bytes(10_000));
+        for (final var part : dir.listFiles()) {
+            Assert.assertTrue(part.length() < 10_000 + 100);
+        }
+        final var twice = new ArrayList<>(expected);
+        twice.addAll(expected);
+        Assert.assertEquals(twice, readAll(dir));
+        for (final var option : List.of(new Parallel(true),
+                new ChannelOutput())) {
+            try {
+                Serializer.writeCsv(employees, dir.getPath(), FILENAME,
+                        StandardCharsets.UTF_8, ",", Rolling.bytes(10_000),
+                        option);
+                Assert.fail(option + " does not apply to parts by size");
+            } catch (IllegalArgumentException e) {
+                Assert.assertEquals(twice, readAll(dir));
+            }
+        }
+
+        deleteAll(dir);
+        Serializer.writeCsv(employees, dir.getPath(), FILENAME,
+                StandardCharsets.UTF_8, ",", Rolling.key(3)
+                        .named((name, index, key) -> key + ".csv")
+                        .inParallel(ForkJoinPool.commonPool()));
+        Assert.assertEquals(List.of(250, 250, 250, 250), lineCounts(dir));
+        Assert.assertTrue(new File(dir, "RANK4.csv").exists());
+        Assert.assertEquals(expected, readAll(dir));
+        deleteAll(dir);
+    }
+
+    private static void deleteAll(final File dir) {
+        final var files = dir.listFiles();
+        if (files != null) {
+            for (final var file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private static List<File> parts(final File dir) {
+        final var files = dir.listFiles();
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+
+    private static List<Integer> lineCounts(final File dir)
+            throws IOException {
+        final var res = new ArrayList<Integer>();
+        for (final var part : parts(dir)) {
+            res.add(Files.readAllLines(part.toPath()).size());
+        }
+        return res;
+    }
+
+    private static List<String> readAll(final File dir) throws IOException {
+        final var res = new ArrayList<String>();
+        for (final var part : parts(dir)) {
+            res.addAll(Files.readAllLines(part.toPath()));
+        }
+        return res;
+    }
+
+    @Test
+    public void writeCsvGzip() throws IOException {
+        final var filename = "employees.csv.gz";
+        final var file = new File(DEFAULT_DIR, filename);
+        final var employees = IntStream.range(0, 5000)
+                .mapToObj(i -> new Employee("John" + i, "Doe",
+                        Position.RANK1, new PhoneNumber("0" + i)))
+                .collect(Collectors.toList());
+        final var formatter = Formatter.getFormatter(Format.CSV);
+        final var expected = employees.stream()
+                .map(formatter::format)
+                .collect(Collectors.joining());
+        for (final var gzip : List.of(new Gzip(),
+                new Gzip(9, ForkJoinPool.commonPool(), 4096))) {
+            file.delete();
+            Serializer.writeCsv(employees, DEFAULT_DIR, filename,
+                    StandardCharsets.UTF_8, ",", gzip);
+            Serializer.writeCsv(employees, DEFAULT_DIR, filename,
+                    StandardCharsets.UTF_8, ",", gzip);
+            try (var in = new GZIPInputStream(new FileInputStream(file))) {
+                Assert.assertEquals(expected + expected, new String(
+                        in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        file.delete();
+    }
+
+    @Test
+    public void writeCsvGzipRolling() throws IOException {
+        final var dir = new File("csv-gzip-rolling");
+        final var employees = IntStream.range(0, 20_000)
+                .mapToObj(i -> new Employee("John" + i, "Doe",
+                        Position.RANK1, new PhoneNumber("0" + i)))
+                .collect(Collectors.toList());
+        final var formatter = Formatter.getFormatter(Format.CSV);
+        final var expected = employees.stream()
+                .map(formatter::format)
+                .collect(Collectors.joining());
+
+        deleteAll(dir);
+        Serializer.writeCsv(employees, dir.getPath(), FILENAME,
+                StandardCharsets.UTF_8, ",", Rolling.bytes(10_000),
+                new Gzip());
+        final var out = new ByteArrayOutputStream();
+        for (final var part : parts(dir)) {
+            Assert.assertTrue(part.length() < 10_000 + 100);
+            try (var in = new GZIPInputStream(new FileInputStream(part))) {
+                in.transferTo(out);
+            }
+        }
+        final var count = parts(dir).size();
+        Assert.assertTrue(count > 1);
+        Assert.assertEquals(expected,
+                out.toString(StandardCharsets.UTF_8.name()));
+        try {
+            Serializer.writeCsv(employees, dir.getPath(), FILENAME,
+                    StandardCharsets.UTF_8, ",", Rolling.bytes(10_000),
+                    new Gzip(9, ForkJoinPool.commonPool(), 4096));
+            Assert.fail("Parts by size cannot be compressed in parallel");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(count, parts(dir).size());
+        }
+        deleteAll(dir);
+        dir.delete();
+    }
+
+    @Test
+    public void writeCsvMetrics() throws Exception {
+        final var filename = "employees-metrics.csv";
+        final var file = new File(DEFAULT_DIR, filename);
+        final var json = new File(DEFAULT_DIR, "employees-metrics.json");
+        file.delete();
+        json.delete();
+        final var employees = IntStream.range(0, 3000)
+                .mapToObj(i -> new Employee("John" + i, "Doe",
+                        Position.RANK1, new PhoneNumber("0" + i)))
+                .collect(Collectors.toList());
+        final var metrics = JmxMetrics.register();
+        Serializer.setMetricsListener(metrics);
+        try {
+            Serializer.writeCsv(employees, DEFAULT_DIR, filename,
+                    StandardCharsets.UTF_8, ",");
+            Serializer.writeCsv(employees, DEFAULT_DIR, filename,
+                    StandardCharsets.UTF_8, ",", new Parallel(true));
+            Serializer.writeJson(employees, DEFAULT_DIR, json.getName(),
+                    StandardCharsets.UTF_8);
+        } finally {
+            Serializer.setMetricsListener(MetricsListener.NOOP);
+        }
+        Assert.assertEquals(9000, metrics.getRowsFormatted());
+        Assert.assertEquals(9000, metrics.getRowsWritten());
+        Assert.assertEquals(3, metrics.getFilesWritten());
+        Assert.assertEquals(file.length() + json.length(),
+                metrics.getBytesWritten());
+        Assert.assertEquals(metrics.getBatches(),
+                Arrays.stream(metrics.getWriteLatencyHistogram()).sum());
+        Assert.assertTrue(metrics.getFormatTimeRatio() > 0);
+        final var key = "JSON " + Employee.class.getName();
+        Assert.assertEquals(1,
+                metrics.getPlanCacheHits().getOrDefault(key, 0L)
+                + metrics.getPlanCacheMisses().getOrDefault(key, 0L));
+        Assert.assertEquals(9000L, ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(JmxMetrics.OBJECT_NAME),
+                        "RowsWritten"));
+        file.delete();
+        json.delete();
+    }
+
+    @Test
+    public void writeJsonCheckpoint() throws IOException {
+        final var expectedFile = new File(DEFAULT_DIR, "expected.json");
+        final var file = new File(DEFAULT_DIR, "checkpointed.json");
+        final var sidecar = new File(DEFAULT_DIR,
+                file.getName() + Checkpoint.SUFFIX);
+        expectedFile.delete();
+        file.delete();
+        sidecar.delete();
+        final var employees = IntStream.range(0, 2500)
+                .mapToObj(i -> new Employee("John" + i, "Doe",
+                        Position.RANK1, new PhoneNumber("0" + i)))
+                .collect(Collectors.toList());
+        Serializer.writeJson(employees, DEFAULT_DIR, expectedFile.getName(),
+                StandardCharsets.UTF_8);
+        try {
+            Serializer.writeJson(employees.stream().peek(e -> {
+                if (e == employees.get(2200)) {
+                    throw new IllegalStateException("crash");
+                }
+            }), DEFAULT_DIR, file.getName(), StandardCharsets.UTF_8,
+                    new Checkpoint(1000));
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("crash", e.getMessage());
+        }
+        final var checkpoint = Files.readAllLines(sidecar.toPath());
+        Assert.assertEquals("rows=2000", checkpoint.get(0));
+        final var expected = Files.readAllBytes(expectedFile.toPath());
+        final var bytes = Integer.parseInt(checkpoint.get(1).substring(6));
+        Assert.assertEquals('}', expected[bytes - 1]);
+        Assert.assertEquals(',', expected[bytes]);
+        Files.write(file.toPath(), ",{\"name\":\"Jo".getBytes(),
+                StandardOpenOption.APPEND);
+        Serializer.writeJson(employees, DEFAULT_DIR, file.getName(),
+                StandardCharsets.UTF_8, new Checkpoint(1000));
+        Assert.assertFalse(sidecar.exists());
+        Assert.assertArrayEquals(expected, Files.readAllBytes(file.toPath()));
+        expectedFile.delete();
+        file.delete();
+    }
+
+    @Test(timeout = 10_000)
+    public void writeSessionFlushFailure() throws Exception {
+        final var file = new File(DEFAULT_DIR, "session-failure.csv");
+        file.delete();
+        final var failures = new ArrayList<Throwable>();
+        Serializer.setMetricsListener(new MetricsListener() {
+            @Override
+            public void writeFailed(final Path path, final Throwable error) {
+                synchronized (failures) {
+                    failures.add(error);
+                }
+            }
+        });
+        try {
+            final var session = Serializer.openSession(DEFAULT_DIR,
+                    file.getName(), Format.CSV, StandardCharsets.US_ASCII,
+                    new ChannelOutput(),
+                    FlushPolicy.every(Duration.ofMillis(10)));
+            session.append(List.of(new Employee("J\u00f6rg", "Doe",
+                    Position.RANK1, new PhoneNumber("0"))));
+            while (true) {
+                synchronized (failures) {
+                    if (failures.size() >= 2) break;
+                }
+                Thread.sleep(10);
+            }
+            try {
+                session.close();
+                Assert.fail("the row cannot be encoded");
+            } catch (UncheckedIOException e) {
+                Assert.assertTrue(e.getCause()
+                        instanceof CharacterCodingException);
+            }
+        } finally {
+            Serializer.setMetricsListener(MetricsListener.NOOP);
+        }
+        file.delete();
+    }
+
+    @Test
+    public void writeSession() throws Exception {
+        final var csv = new File(DEFAULT_DIR, "session.csv");
+        final var json = new File(DEFAULT_DIR, "session.json");
+        csv.delete();
+        json.delete();
+        final var pool = Executors.newFixedThreadPool(4);
+        try (var csvSession = Serializer.openSession(DEFAULT_DIR,
+                csv.getName(), Format.CSV, StandardCharsets.UTF_8,
+                FlushPolicy.everyRows(100));
+             var jsonSession = Serializer.openSession(DEFAULT_DIR,
+                json.getName(), Format.JSON, StandardCharsets.UTF_8,
+                FlushPolicy.every(Duration.ofMillis(10)))) {
+            final var futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(pool.submit(() -> {
+                    csvSession.append(EMPLOYEES);
+                    jsonSession.append(EMPLOYEES.stream());
+                }));
+            }
+            for (final var future : futures) {
+                future.get();
+            }
+            Assert.assertEquals(400, csvSession.getRows());
+        } finally {
+            pool.shutdown();
+        }
+        final var lines = Files.readAllLines(csv.toPath());
+        Assert.assertEquals(400, lines.size());
+        for (int i = 0; i < lines.size(); i += 2) {
+            Assert.assertTrue(lines.get(i).startsWith("John,"));
+            Assert.assertTrue(lines.get(i + 1).startsWith("Jane,"));
+        }
+        final var objects = Files.readAllLines(json.toPath());
+        Assert.assertEquals(402, objects.size());
+        Assert.assertEquals("[", objects.get(0));
+        Assert.assertEquals("]", objects.get(401));
+        Assert.assertTrue(objects.subList(1, 400).stream()
+                .allMatch(o -> o.startsWith("{") && o.endsWith("},")));
+        csv.delete();
+        json.delete();
+    }
 }